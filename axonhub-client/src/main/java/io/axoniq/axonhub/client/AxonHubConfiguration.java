@@ -15,12 +15,16 @@
 
 package io.axoniq.axonhub.client;
 
+import io.axoniq.axonhub.client.event.util.DeflatePayloadCodec;
 import io.axoniq.axonhub.client.event.util.EventCipher;
+import io.axoniq.axonhub.client.event.util.PayloadCodec;
+import io.axoniq.axonhub.client.event.util.PayloadCodecChain;
 import io.axoniq.platform.grpc.NodeInfo;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 import java.lang.management.ManagementFactory;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -115,6 +119,158 @@ public class AxonHubConfiguration {
      */
     private int heartbeatInterval = 60000;
 
+    /**
+     * Read the events of an aggregate as a lazily populated stream, instead of loading the full history in memory
+     * before returning it. Only applies to reads within a unit of work, which releases the underlying server call
+     * and prefetched events on cleanup. Reads outside a unit of work always load the full history, as a partially
+     * consumed stream would otherwise hold on to these until garbage collected.
+     */
+    private boolean streamAggregateEvents;
+    /**
+     * Maximum number of aggregate events requested ahead of the consumer when streaming aggregate events
+     */
+    private int aggregateEventsPrefetch = 1000;
+
+    /**
+     * Maximum number of aggregates kept in the aggregate event cache, 0 disables the cache
+     */
+    private int aggregateCacheMaxEntries;
+    /**
+     * Maximum size in bytes of the events kept in the aggregate event cache, over all aggregates, estimated by the
+     * serialized size of the events
+     */
+    private long aggregateCacheMaxBytes = 64L * 1024 * 1024;
+
+    /**
+     * Combine the events appended by concurrent units of work into shared transactions. Experimental: this only
+     * improves throughput when committing a transaction on the server is expensive compared to the linger time
+     */
+    private boolean groupCommit;
+    /**
+     * Time (in ms) to wait for other appends to join a group commit
+     */
+    private long groupCommitLingerTime = 2;
+    /**
+     * Size (in bytes) at which a group commit is sent without waiting for the linger time
+     */
+    private int groupCommitMaxBytes = 1024 * 1024;
+
+    /**
+     * Maximum number of bytes of events buffered per event stream, including events requested but not received
+     * yet. Permits are sized from the free byte budget. 0 means events are only limited by the number of permits.
+     */
+    private long eventBufferMaxBytes;
+
+    /**
+     * Number of threads decrypting, upcasting and deserializing events of tracking event streams ahead of the event
+     * processors. 0 processes events on the event processor thread. Upcasters must not depend on other events in
+     * the stream when enabled.
+     */
+    private int eventProcessingThreads;
+    /**
+     * Maximum number of events per tracking event stream processed ahead of the event processor
+     */
+    private int eventProcessingPipelineSize = 1000;
+
+    /**
+     * Size the window of outstanding permits from the observed consumption rate and round-trip time, instead of
+     * granting a fixed number of new permits. Applies to event, command, query and subscription query streams.
+     */
+    private boolean adaptiveFlowControl;
+    /**
+     * Minimum number of outstanding permits when adaptive flow control is enabled
+     */
+    private long minNrOfPermits = 100;
+    /**
+     * Maximum number of outstanding permits when adaptive flow control is enabled
+     */
+    private long maxNrOfPermits = 100000;
+
+    /**
+     * Name of the gRPC compressor (e.g. "gzip") for messages sent on event store calls, such as appended events. Null
+     * or "identity" sends messages uncompressed.
+     */
+    private String eventCompression;
+    /**
+     * Name of the gRPC compressor for messages sent on command calls and command handler streams
+     */
+    private String commandCompression;
+    /**
+     * Name of the gRPC compressor for messages sent on query calls and query handler streams
+     */
+    private String queryCompression;
+    /**
+     * Minimum serialized size (in bytes) of a message to compress it when compression is enabled
+     */
+    private int compressionThreshold = 1024;
+
+    /**
+     * Compress event payloads with Deflate before they are encrypted and sent to AxonHub
+     */
+    private boolean payloadCompression;
+    /**
+     * Additional codecs applied to event payloads, in order, before the payload is encrypted
+     */
+    private List<PayloadCodec> payloadCodecs = new ArrayList<>();
+
+    /**
+     * Serve the event streams of tracking processors from a single shared stream when their tokens are close
+     */
+    private boolean sharedEventStream;
+    /**
+     * Number of recent events kept for the streams sharing a stream. Streams that fall further behind open their own
+     * stream
+     */
+    private int sharedEventStreamWindow = 1000;
+
+    /**
+     * Distance to the head of the event store (in events) at which an event stream switches from catching up to the
+     * live phase, 0 disables catch-up detection
+     */
+    private long liveThreshold;
+    /**
+     * Maximum number of outstanding permits for event streams in the live phase
+     */
+    private long livePermits = 1000;
+    /**
+     * Minimum interval (in ms) between requests for the head token by an event stream
+     */
+    private long headTokenRefreshInterval = 5000;
+
+    /**
+     * Directory of the local cache of the global event stream, no cache is used when not set
+     */
+    private String eventCacheDirectory;
+    /**
+     * Size (in bytes) of the segment files of the event cache
+     */
+    private int eventCacheSegmentSize = 64 * 1024 * 1024;
+    /**
+     * Maximum total size (in bytes) of the event cache, the oldest segments are deleted when exceeded
+     */
+    private long eventCacheMaxSize = 1024L * 1024 * 1024;
+
+    /**
+     * Remember per payload type and revision whether the upcaster chain leaves events unchanged, and pass such events
+     * by the upcasters. Only valid when upcasters decide on type and revision alone and do not depend on other events
+     */
+    private boolean upcasterShortCircuit;
+
+    /**
+     * Number of streams over which commands are dispatched, 0 dispatches each command in a call of its own
+     */
+    private int commandDispatchStreams;
+    /**
+     * Maximum number of commands awaiting a response on a single dispatch stream, further commands are dispatched in
+     * a call of their own
+     */
+    private int commandDispatchStreamPermits = 1000;
+    /**
+     * Handle commands this application has subscribed to in-process, without sending them to AxonHub. Only valid when
+     * no other instance of the component handles these commands, as they are no longer load balanced
+     */
+    private boolean localCommandRouting;
+
     public AxonHubConfiguration() {
     }
 
@@ -219,6 +375,22 @@ public class AxonHubConfiguration {
         return eventCipher;
     }
 
+    /**
+     * Returns the codec applied to event payloads: Deflate compression when payload compression is enabled, followed
+     * by the configured payload codecs and the event cipher. Events are encoded in that order and decoded in reverse.
+     *
+     * @return the codec for event payloads
+     */
+    public PayloadCodec getPayloadCodec() {
+        List<PayloadCodec> codecs = new ArrayList<>();
+        if (payloadCompression) {
+            codecs.add(new DeflatePayloadCodec());
+        }
+        codecs.addAll(payloadCodecs);
+        codecs.add(eventCipher);
+        return new PayloadCodecChain(codecs);
+    }
+
     private void setEventSecretKey(String key) {
         if(key != null && key.length() > 0) {
             eventCipher = new EventCipher(key.getBytes(StandardCharsets.US_ASCII));
@@ -285,6 +457,254 @@ public class AxonHubConfiguration {
         this.heartbeatInterval = heartbeatInterval;
     }
 
+    public boolean isStreamAggregateEvents() {
+        return streamAggregateEvents;
+    }
+
+    public void setStreamAggregateEvents(boolean streamAggregateEvents) {
+        this.streamAggregateEvents = streamAggregateEvents;
+    }
+
+    public int getAggregateEventsPrefetch() {
+        return aggregateEventsPrefetch;
+    }
+
+    public void setAggregateEventsPrefetch(int aggregateEventsPrefetch) {
+        this.aggregateEventsPrefetch = aggregateEventsPrefetch;
+    }
+
+    public int getAggregateCacheMaxEntries() {
+        return aggregateCacheMaxEntries;
+    }
+
+    public void setAggregateCacheMaxEntries(int aggregateCacheMaxEntries) {
+        this.aggregateCacheMaxEntries = aggregateCacheMaxEntries;
+    }
+
+    public long getAggregateCacheMaxBytes() {
+        return aggregateCacheMaxBytes;
+    }
+
+    public void setAggregateCacheMaxBytes(long aggregateCacheMaxBytes) {
+        this.aggregateCacheMaxBytes = aggregateCacheMaxBytes;
+    }
+
+    public boolean isGroupCommit() {
+        return groupCommit;
+    }
+
+    public void setGroupCommit(boolean groupCommit) {
+        this.groupCommit = groupCommit;
+    }
+
+    public long getGroupCommitLingerTime() {
+        return groupCommitLingerTime;
+    }
+
+    public void setGroupCommitLingerTime(long groupCommitLingerTime) {
+        this.groupCommitLingerTime = groupCommitLingerTime;
+    }
+
+    public int getGroupCommitMaxBytes() {
+        return groupCommitMaxBytes;
+    }
+
+    public void setGroupCommitMaxBytes(int groupCommitMaxBytes) {
+        this.groupCommitMaxBytes = groupCommitMaxBytes;
+    }
+
+    public long getEventBufferMaxBytes() {
+        return eventBufferMaxBytes;
+    }
+
+    public void setEventBufferMaxBytes(long eventBufferMaxBytes) {
+        this.eventBufferMaxBytes = eventBufferMaxBytes;
+    }
+
+    public int getEventProcessingThreads() {
+        return eventProcessingThreads;
+    }
+
+    public void setEventProcessingThreads(int eventProcessingThreads) {
+        this.eventProcessingThreads = eventProcessingThreads;
+    }
+
+    public int getEventProcessingPipelineSize() {
+        return eventProcessingPipelineSize;
+    }
+
+    public void setEventProcessingPipelineSize(int eventProcessingPipelineSize) {
+        this.eventProcessingPipelineSize = eventProcessingPipelineSize;
+    }
+
+    public boolean isAdaptiveFlowControl() {
+        return adaptiveFlowControl;
+    }
+
+    public void setAdaptiveFlowControl(boolean adaptiveFlowControl) {
+        this.adaptiveFlowControl = adaptiveFlowControl;
+    }
+
+    public long getMinNrOfPermits() {
+        return minNrOfPermits;
+    }
+
+    public void setMinNrOfPermits(long minNrOfPermits) {
+        this.minNrOfPermits = minNrOfPermits;
+    }
+
+    public long getMaxNrOfPermits() {
+        return maxNrOfPermits;
+    }
+
+    public void setMaxNrOfPermits(long maxNrOfPermits) {
+        this.maxNrOfPermits = maxNrOfPermits;
+    }
+
+    public String getEventCompression() {
+        return eventCompression;
+    }
+
+    public void setEventCompression(String eventCompression) {
+        this.eventCompression = eventCompression;
+    }
+
+    public String getCommandCompression() {
+        return commandCompression;
+    }
+
+    public void setCommandCompression(String commandCompression) {
+        this.commandCompression = commandCompression;
+    }
+
+    public String getQueryCompression() {
+        return queryCompression;
+    }
+
+    public void setQueryCompression(String queryCompression) {
+        this.queryCompression = queryCompression;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public boolean isPayloadCompression() {
+        return payloadCompression;
+    }
+
+    public void setPayloadCompression(boolean payloadCompression) {
+        this.payloadCompression = payloadCompression;
+    }
+
+    public List<PayloadCodec> getPayloadCodecs() {
+        return payloadCodecs;
+    }
+
+    public void setPayloadCodecs(List<PayloadCodec> payloadCodecs) {
+        this.payloadCodecs = payloadCodecs;
+    }
+
+    public boolean isSharedEventStream() {
+        return sharedEventStream;
+    }
+
+    public void setSharedEventStream(boolean sharedEventStream) {
+        this.sharedEventStream = sharedEventStream;
+    }
+
+    public int getSharedEventStreamWindow() {
+        return sharedEventStreamWindow;
+    }
+
+    public void setSharedEventStreamWindow(int sharedEventStreamWindow) {
+        this.sharedEventStreamWindow = sharedEventStreamWindow;
+    }
+
+    public long getLiveThreshold() {
+        return liveThreshold;
+    }
+
+    public void setLiveThreshold(long liveThreshold) {
+        this.liveThreshold = liveThreshold;
+    }
+
+    public long getLivePermits() {
+        return livePermits;
+    }
+
+    public void setLivePermits(long livePermits) {
+        this.livePermits = livePermits;
+    }
+
+    public long getHeadTokenRefreshInterval() {
+        return headTokenRefreshInterval;
+    }
+
+    public void setHeadTokenRefreshInterval(long headTokenRefreshInterval) {
+        this.headTokenRefreshInterval = headTokenRefreshInterval;
+    }
+
+    public String getEventCacheDirectory() {
+        return eventCacheDirectory;
+    }
+
+    public void setEventCacheDirectory(String eventCacheDirectory) {
+        this.eventCacheDirectory = eventCacheDirectory;
+    }
+
+    public int getEventCacheSegmentSize() {
+        return eventCacheSegmentSize;
+    }
+
+    public void setEventCacheSegmentSize(int eventCacheSegmentSize) {
+        this.eventCacheSegmentSize = eventCacheSegmentSize;
+    }
+
+    public long getEventCacheMaxSize() {
+        return eventCacheMaxSize;
+    }
+
+    public void setEventCacheMaxSize(long eventCacheMaxSize) {
+        this.eventCacheMaxSize = eventCacheMaxSize;
+    }
+
+    public boolean isUpcasterShortCircuit() {
+        return upcasterShortCircuit;
+    }
+
+    public void setUpcasterShortCircuit(boolean upcasterShortCircuit) {
+        this.upcasterShortCircuit = upcasterShortCircuit;
+    }
+
+    public int getCommandDispatchStreams() {
+        return commandDispatchStreams;
+    }
+
+    public void setCommandDispatchStreams(int commandDispatchStreams) {
+        this.commandDispatchStreams = commandDispatchStreams;
+    }
+
+    public int getCommandDispatchStreamPermits() {
+        return commandDispatchStreamPermits;
+    }
+
+    public void setCommandDispatchStreamPermits(int commandDispatchStreamPermits) {
+        this.commandDispatchStreamPermits = commandDispatchStreamPermits;
+    }
+
+    public boolean isLocalCommandRouting() {
+        return localCommandRouting;
+    }
+
+    public void setLocalCommandRouting(boolean localCommandRouting) {
+        this.localCommandRouting = localCommandRouting;
+    }
+
     @SuppressWarnings("unused")
     public static class Builder {
         private AxonHubConfiguration instance;
@@ -333,6 +753,117 @@ public class AxonHubConfiguration {
             return this;
         }
 
+        /**
+         * Reads aggregate events as a lazily populated stream when read within a unit of work. The server call and
+         * up to {@code prefetch} received events are held until the stream is consumed or the unit of work is
+         * cleaned up. Reads outside a unit of work load the full history instead.
+         *
+         * @param prefetch the maximum number of events requested ahead of the consumer
+         * @return this builder
+         */
+        public Builder streamAggregateEvents(int prefetch) {
+            instance.streamAggregateEvents = true;
+            instance.aggregateEventsPrefetch = prefetch;
+            return this;
+        }
+
+        public Builder aggregateEventCache(int maxEntries, long maxBytes) {
+            instance.aggregateCacheMaxEntries = maxEntries;
+            instance.aggregateCacheMaxBytes = maxBytes;
+            return this;
+        }
+
+        public Builder groupCommit(long lingerTime, int maxBytes) {
+            instance.groupCommit = true;
+            instance.groupCommitLingerTime = lingerTime;
+            instance.groupCommitMaxBytes = maxBytes;
+            return this;
+        }
+
+        public Builder eventBufferMaxBytes(long eventBufferMaxBytes) {
+            instance.eventBufferMaxBytes = eventBufferMaxBytes;
+            return this;
+        }
+
+        public Builder parallelEventProcessing(int threads, int pipelineSize) {
+            instance.eventProcessingThreads = threads;
+            instance.eventProcessingPipelineSize = pipelineSize;
+            return this;
+        }
+
+        public Builder adaptiveFlowControl(long minNrOfPermits, long maxNrOfPermits) {
+            instance.adaptiveFlowControl = true;
+            instance.minNrOfPermits = minNrOfPermits;
+            instance.maxNrOfPermits = maxNrOfPermits;
+            return this;
+        }
+
+        public Builder compression(String eventCompression, String commandCompression, String queryCompression) {
+            instance.eventCompression = eventCompression;
+            instance.commandCompression = commandCompression;
+            instance.queryCompression = queryCompression;
+            return this;
+        }
+
+        public Builder compressionThreshold(int compressionThreshold) {
+            instance.compressionThreshold = compressionThreshold;
+            return this;
+        }
+
+        public Builder payloadCompression(boolean payloadCompression) {
+            instance.payloadCompression = payloadCompression;
+            return this;
+        }
+
+        public Builder payloadCodecs(PayloadCodec... payloadCodecs) {
+            instance.payloadCodecs = new ArrayList<>(Arrays.asList(payloadCodecs));
+            return this;
+        }
+
+        public Builder sharedEventStream(int windowSize) {
+            instance.sharedEventStream = true;
+            instance.sharedEventStreamWindow = windowSize;
+            return this;
+        }
+
+        public Builder catchUpDetection(long liveThreshold, long livePermits) {
+            instance.liveThreshold = liveThreshold;
+            instance.livePermits = livePermits;
+            return this;
+        }
+
+        public Builder headTokenRefreshInterval(long headTokenRefreshInterval) {
+            instance.headTokenRefreshInterval = headTokenRefreshInterval;
+            return this;
+        }
+
+        public Builder eventCache(String directory, long maxSize) {
+            instance.eventCacheDirectory = directory;
+            instance.eventCacheMaxSize = maxSize;
+            return this;
+        }
+
+        public Builder eventCacheSegmentSize(int segmentSize) {
+            instance.eventCacheSegmentSize = segmentSize;
+            return this;
+        }
+
+        public Builder upcasterShortCircuit(boolean upcasterShortCircuit) {
+            instance.upcasterShortCircuit = upcasterShortCircuit;
+            return this;
+        }
+
+        public Builder commandDispatchStreams(int streams, int permitsPerStream) {
+            instance.commandDispatchStreams = streams;
+            instance.commandDispatchStreamPermits = permitsPerStream;
+            return this;
+        }
+
+        public Builder localCommandRouting(boolean localCommandRouting) {
+            instance.localCommandRouting = localCommandRouting;
+            return this;
+        }
+
         public AxonHubConfiguration build() {
             return instance;
         }
@@ -64,9 +64,11 @@ public class PlatformConnectionManager {
     private final static Logger logger = LoggerFactory.getLogger(PlatformConnectionManager.class);
 
     private volatile ManagedChannel channel;
+    private volatile ManagedChannel connectedChannel;
     private volatile StreamObserver<PlatformInboundInstruction> inputStream;
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
     private volatile ScheduledFuture<?> reconnectTask;
+    private volatile boolean shutdown;
     private final List<Runnable> disconnectListeners = new CopyOnWriteArrayList<>();
     private final List<Function<Runnable, Runnable>> reconnectInterceptors = new CopyOnWriteArrayList<>();
     private final List<Runnable> reconnectListeners = new CopyOnWriteArrayList<>();
@@ -77,8 +79,26 @@ public class PlatformConnectionManager {
         this.connectInformation = connectInformation;
     }
 
-    public synchronized Channel getChannel() {
+    /**
+     * Returns the channel to the primary AxonHub node, connecting when there is no open channel. Once connected, the
+     * channel is returned without locking, so that dispatching threads do not contend on this connection manager.
+     *
+     * @return the channel to AxonHub
+     */
+    public Channel getChannel() {
+        ManagedChannel connected = connectedChannel;
+        if (connected != null && !connected.isShutdown()) {
+            return connected;
+        }
+        return connect();
+    }
+
+    private synchronized Channel connect() {
+        if (shutdown) {
+            throw new RuntimeException("Connection to AxonHub has been shut down");
+        }
         if( channel == null || channel.isShutdown()) {
+            connectedChannel = null;
             channel = null;
             logger.info("Connecting {}using SSL...", connectInformation.isSslEnabled()?"":"not ");
             boolean unavailable = false;
@@ -118,6 +138,7 @@ public class PlatformConnectionManager {
                 throw new RuntimeException("No connection to AxonHub available");
             }
         }
+        connectedChannel = channel;
         return channel;
     }
 
@@ -238,7 +259,11 @@ public class PlatformConnectionManager {
     }
 
     private synchronized void scheduleReconnect() {
+        if (shutdown) {
+            return;
+        }
         if( reconnectTask == null || reconnectTask.isDone()) {
+            connectedChannel = null;
             if( channel != null) {
                 try {
                     channel.shutdownNow().awaitTermination(1, TimeUnit.SECONDS);
@@ -272,4 +297,18 @@ public class PlatformConnectionManager {
         inputStream.onNext(instruction);
     }
 
+    /**
+     * Closes the channel to AxonHub, cancelling the streams opened on it, and stops reconnecting. The connection
+     * manager cannot be used after shutdown.
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        scheduler.shutdownNow();
+        connectedChannel = null;
+        if (channel != null) {
+            shutdown(channel);
+            channel = null;
+        }
+    }
+
 }
@@ -22,6 +22,8 @@ import io.axoniq.axonhub.client.AxonHubConfiguration;
 import io.axoniq.axonhub.client.DispatchInterceptors;
 import io.axoniq.axonhub.client.ErrorCode;
 import io.axoniq.axonhub.client.PlatformConnectionManager;
+import io.axoniq.axonhub.client.util.ChannelStub;
+import io.axoniq.axonhub.client.util.CompressingInterceptor;
 import io.axoniq.axonhub.client.util.ContextAddingInterceptor;
 import io.axoniq.axonhub.client.util.ExceptionSerializer;
 import io.axoniq.axonhub.client.util.FlowControllingStreamObserver;
@@ -71,6 +73,8 @@ public class AxonHubCommandBus implements CommandBus {
     private final CommandSerializer serializer;
     private final AxonHubConfiguration configuration;
     private final ClientInterceptor[] interceptors;
+    private final ChannelStub<CommandServiceGrpc.CommandServiceStub> commandService;
+    private final CommandDispatchStreams dispatchStreams;
     private final DispatchInterceptors<CommandMessage<?>> dispatchInterceptors = new DispatchInterceptors<>();
     private Logger logger = LoggerFactory.getLogger(AxonHubCommandBus.class);
 
@@ -96,7 +100,14 @@ public class AxonHubCommandBus implements CommandBus {
         this.configuration = configuration;
         this.commandRouterSubscriber = new CommandRouterSubscriber();
         interceptors = new ClientInterceptor[]{ new TokenAddingInterceptor(configuration.getToken()),
-                new ContextAddingInterceptor(configuration.getContext())};
+                new ContextAddingInterceptor(configuration.getContext()),
+                new CompressingInterceptor(configuration.getCommandCompression(), configuration.getCompressionThreshold())};
+        commandService = new ChannelStub<>(platformConnectionManager::getChannel,
+                                           channel -> CommandServiceGrpc.newStub(channel).withInterceptors(interceptors));
+        dispatchStreams = configuration.getCommandDispatchStreams() <= 0 ? null
+                : new CommandDispatchStreams(commandService, configuration.getCommandDispatchStreams(),
+                                             configuration.getCommandDispatchStreamPermits(),
+                                             (command, responseObserver) -> commandService.get().dispatch(command, responseObserver));
     }
 
     @Override
@@ -116,51 +127,57 @@ public class AxonHubCommandBus implements CommandBus {
     public <C, R> void dispatch(CommandMessage<C> commandMessage, CommandCallback<? super C, R> commandCallback) {
         logger.debug("Dispatch with callback: {}", commandMessage.getCommandName());
         CommandMessage<C> command = dispatchInterceptors.intercept(commandMessage);
-            CommandServiceGrpc.newStub(platformConnectionManager.getChannel())
-                              .withInterceptors(interceptors)
-                              .dispatch(serializer.serialize(command,
-                                                             routingStrategy.getRoutingKey(command),
-                                                             priorityCalculator.determinePriority(command)),
-                                        new StreamObserver<CommandResponse>() {
-                                            @Override
-                                            public void onNext(CommandResponse commandResponse) {
-                                                if (!commandResponse.hasMessage()) {
-                                                    logger.debug("response received - {}", commandResponse);
-                                                    R payload = null;
-                                                    if (commandResponse.hasPayload()) {
-                                                        try {
-                                                            //noinspection unchecked
-                                                            payload = (R) serializer.deserialize(commandResponse);
-                                                        } catch (Exception ex) {
-                                                            logger.info("Failed to deserialize payload - {} - {}",
-                                                                        commandResponse.getPayload().getData(),
-                                                                        ex.getCause().getMessage());
-                                                        }
-                                                    }
-
-                                                    commandCallback.onSuccess(command, payload);
-                                                } else {
-                                                    commandCallback.onFailure(command,
-                                                                              new CommandExecutionException(
-                                                                                      commandResponse.getMessage()
-                                                                                                     .getMessage(),
-                                                                                      new RemoteCommandException(
-                                                                                              commandResponse
-                                                                                                      .getErrorCode(),
-                                                                                              commandResponse
-                                                                                                      .getMessage())));
-                                                }
-                                            }
-
-                                            @Override
-                                            public void onError(Throwable throwable) {
-                                                commandCallback.onFailure(command, throwable);
-                                            }
-
-                                            @Override
-                                            public void onCompleted() {
-                                            }
-                                        });
+        if (configuration.isLocalCommandRouting() && commandRouterSubscriber.isSubscribed(command.getCommandName())) {
+            logger.debug("Dispatch in-process: {}", command.getCommandName());
+            localSegment.dispatch(command, commandCallback);
+            return;
+        }
+        Command serializedCommand = serializer.serialize(command,
+                                                         routingStrategy.getRoutingKey(command),
+                                                         priorityCalculator.determinePriority(command));
+        StreamObserver<CommandResponse> responseObserver = new StreamObserver<CommandResponse>() {
+            @Override
+            public void onNext(CommandResponse commandResponse) {
+                if (!commandResponse.hasMessage()) {
+                    logger.debug("response received - {}", commandResponse);
+                    R payload = null;
+                    if (commandResponse.hasPayload()) {
+                        try {
+                            //noinspection unchecked
+                            payload = (R) serializer.deserialize(commandResponse);
+                        } catch (Exception ex) {
+                            logger.info("Failed to deserialize payload - {} - {}",
+                                        commandResponse.getPayload().getData(),
+                                        ex.getCause().getMessage());
+                        }
+                    }
+
+                    commandCallback.onSuccess(command, payload);
+                } else {
+                    commandCallback.onFailure(command,
+                                              new CommandExecutionException(
+                                                      commandResponse.getMessage()
+                                                                     .getMessage(),
+                                                      new RemoteCommandException(
+                                                              commandResponse
+                                                                      .getErrorCode(),
+                                                              commandResponse
+                                                                      .getMessage())));
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                commandCallback.onFailure(command, throwable);
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        };
+        if (dispatchStreams == null || !dispatchStreams.dispatch(serializedCommand, responseObserver)) {
+            commandService.get().dispatch(serializedCommand, responseObserver);
+        }
     }
 
     @Override
@@ -178,6 +195,9 @@ public class AxonHubCommandBus implements CommandBus {
 
     public void disconnect() {
         commandRouterSubscriber.disconnect();
+        if (dispatchStreams != null) {
+            dispatchStreams.close();
+        }
     }
 
     protected class CommandRouterSubscriber {
@@ -237,6 +257,10 @@ public class AxonHubCommandBus implements CommandBus {
             }
         }
 
+        boolean isSubscribed(String command) {
+            return subscribedCommands.contains(command);
+        }
+
         public void subscribe(String command) {
             subscribing = true;
             subscribedCommands.add(command);
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.command;
+
+import io.axoniq.axonhub.Command;
+import io.axoniq.axonhub.CommandResponse;
+import io.axoniq.axonhub.client.SynchronizedStreamObserver;
+import io.axoniq.axonhub.client.util.ChannelStub;
+import io.axoniq.axonhub.grpc.CommandServiceGrpc;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+
+/**
+ * Dispatches commands over a fixed number of long-lived DispatchStream calls, rather than a call per command. Commands
+ * are spread over the streams round-robin, and responses are matched to their command by request identifier.
+ * <p>
+ * Each stream accepts a limited number of commands awaiting a response. When the chosen stream has no permits left, or
+ * AxonHub does not support dispatch streams, {@link #dispatch(Command, StreamObserver)} returns {@code false} and the
+ * caller dispatches the command in a call of its own. Commands that were sent before AxonHub reported that it does not
+ * support dispatch streams are passed to the fallback. When a stream fails otherwise, the commands awaiting a response
+ * on it fail with the same error and the stream is reopened for the next command.
+ */
+class CommandDispatchStreams {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommandDispatchStreams.class);
+
+    private final ChannelStub<CommandServiceGrpc.CommandServiceStub> commandService;
+    private final int permitsPerStream;
+    private final BiConsumer<Command, StreamObserver<CommandResponse>> fallback;
+    private final AtomicReferenceArray<DispatchStream> streams;
+    private final AtomicInteger nextStream = new AtomicInteger();
+    private volatile boolean unsupported;
+
+    /**
+     * @param commandService   the stub to open dispatch streams with
+     * @param streamCount      the number of streams to spread commands over
+     * @param permitsPerStream the maximum number of commands awaiting a response per stream
+     * @param fallback         dispatcher for commands that were sent on a stream AxonHub turned out not to support
+     */
+    CommandDispatchStreams(ChannelStub<CommandServiceGrpc.CommandServiceStub> commandService, int streamCount,
+                           int permitsPerStream, BiConsumer<Command, StreamObserver<CommandResponse>> fallback) {
+        this.commandService = commandService;
+        this.permitsPerStream = permitsPerStream;
+        this.fallback = fallback;
+        this.streams = new AtomicReferenceArray<>(streamCount);
+    }
+
+    /**
+     * Sends given {@code command} on one of the dispatch streams. The response is passed to given
+     * {@code responseObserver}, followed by a call to its {@code onCompleted} method.
+     *
+     * @param command          the command to dispatch
+     * @param responseObserver the observer of the response to the command
+     * @return {@code true} if the command was sent, {@code false} if it must be dispatched in a call of its own
+     */
+    boolean dispatch(Command command, StreamObserver<CommandResponse> responseObserver) {
+        if (unsupported) {
+            return false;
+        }
+        int index = Math.floorMod(nextStream.getAndIncrement(), streams.length());
+        DispatchStream stream = streams.get(index);
+        if (stream == null || stream.closed) {
+            DispatchStream opened;
+            try {
+                opened = new DispatchStream();
+            } catch (RuntimeException e) {
+                logger.debug("Failed to open command dispatch stream: {}", e.getMessage());
+                return false;
+            }
+            if (streams.compareAndSet(index, stream, opened)) {
+                stream = opened;
+            } else {
+                opened.close();
+                stream = streams.get(index);
+            }
+        }
+        return stream.send(command, responseObserver);
+    }
+
+    /**
+     * Closes the dispatch streams. Commands awaiting a response still receive it.
+     */
+    void close() {
+        for (int i = 0; i < streams.length(); i++) {
+            DispatchStream stream = streams.getAndSet(i, null);
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+
+    private class DispatchStream implements StreamObserver<CommandResponse> {
+
+        private final Map<String, PendingCommand> pending = new ConcurrentHashMap<>();
+        private final Semaphore permits = new Semaphore(permitsPerStream);
+        private final StreamObserver<Command> requestStream;
+        private volatile boolean closed;
+
+        private DispatchStream() {
+            this.requestStream = new SynchronizedStreamObserver<>(commandService.get().dispatchStream(this));
+        }
+
+        private boolean send(Command command, StreamObserver<CommandResponse> responseObserver) {
+            if (closed || !permits.tryAcquire()) {
+                return false;
+            }
+            String identifier = command.getMessageIdentifier();
+            pending.put(identifier, new PendingCommand(command, responseObserver));
+            try {
+                requestStream.onNext(command);
+            } catch (RuntimeException e) {
+                logger.debug("Failed to send command on dispatch stream: {}", e.getMessage());
+                return !release(identifier);
+            }
+            if (closed && release(identifier)) {
+                // the stream failed while sending, and the failure handling did not pick up this command
+                if (unsupported) {
+                    return false;
+                }
+                responseObserver.onError(Status.UNAVAILABLE.withDescription("Command dispatch stream failed")
+                                                           .asRuntimeException());
+            }
+            return true;
+        }
+
+        private boolean release(String identifier) {
+            if (pending.remove(identifier) != null) {
+                permits.release();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void onNext(CommandResponse response) {
+            PendingCommand pendingCommand = pending.remove(response.getRequestIdentifier());
+            if (pendingCommand == null) {
+                logger.debug("Received response for unknown command {}", response.getRequestIdentifier());
+                return;
+            }
+            permits.release();
+            pendingCommand.responseObserver.onNext(response);
+            pendingCommand.responseObserver.onCompleted();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            closed = true;
+            if (Status.fromThrowable(throwable).getCode() == Status.Code.UNIMPLEMENTED) {
+                if (!unsupported) {
+                    logger.info("AxonHub does not support command dispatch streams, dispatching a call per command");
+                }
+                unsupported = true;
+                drain((command, responseObserver) -> fallback.accept(command, responseObserver));
+            } else {
+                logger.debug("Command dispatch stream failed: {}", throwable.getMessage());
+                drain((command, responseObserver) -> responseObserver.onError(throwable));
+            }
+        }
+
+        @Override
+        public void onCompleted() {
+            closed = true;
+            StatusRuntimeException closedByServer = Status.UNAVAILABLE
+                    .withDescription("Command dispatch stream closed by AxonHub")
+                    .asRuntimeException();
+            drain((command, responseObserver) -> responseObserver.onError(closedByServer));
+        }
+
+        private void drain(BiConsumer<Command, StreamObserver<CommandResponse>> action) {
+            for (String identifier : pending.keySet()) {
+                PendingCommand pendingCommand = pending.remove(identifier);
+                if (pendingCommand != null) {
+                    action.accept(pendingCommand.command, pendingCommand.responseObserver);
+                }
+            }
+        }
+
+        private void close() {
+            closed = true;
+            try {
+                requestStream.onCompleted();
+            } catch (RuntimeException e) {
+                logger.debug("Failed to close command dispatch stream: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static class PendingCommand {
+
+        private final Command command;
+        private final StreamObserver<CommandResponse> responseObserver;
+
+        private PendingCommand(Command command, StreamObserver<CommandResponse> responseObserver) {
+            this.command = command;
+            this.responseObserver = responseObserver;
+        }
+    }
+}
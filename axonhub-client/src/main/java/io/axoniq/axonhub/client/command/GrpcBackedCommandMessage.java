@@ -16,27 +16,27 @@
 package io.axoniq.axonhub.client.command;
 
 import io.axoniq.axonhub.Command;
-import io.axoniq.platform.MetaDataValue;
+import io.axoniq.axonhub.client.util.GrpcMetadata;
+import io.axoniq.axonhub.client.util.LazyGrpcObject;
 import org.axonframework.commandhandling.CommandMessage;
 import org.axonframework.messaging.MetaData;
-import org.axonframework.serialization.SerializedObject;
 import org.axonframework.serialization.Serializer;
-import org.axonframework.serialization.SimpleSerializedObject;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
- * Wrapper that allows clients to access a GRPC Command as a command message.
+ * Wrapper that allows clients to access a GRPC Command as a command message. The payload, its type and the meta data
+ * are converted on first access and memoized.
  * @author Marc Gathier
  */
 public class GrpcBackedCommandMessage<C> implements CommandMessage<C> {
     private final Command request;
-    private final Serializer serializer;
-    private MetaData metaData;
+    private final LazyGrpcObject<C> payload;
+    private final GrpcMetadata metaData;
     public GrpcBackedCommandMessage(Command request, Serializer serializer) {
         this.request = request;
-        this.serializer = serializer;
+        this.payload = new LazyGrpcObject<>(request.getPayload(), serializer);
+        this.metaData = new GrpcMetadata(request.getMetaDataMap(), serializer);
     }
 
     @Override
@@ -51,28 +51,17 @@ public class GrpcBackedCommandMessage<C> implements CommandMessage<C> {
 
     @Override
     public MetaData getMetaData() {
-        if( metaData == null) {
-            metaData = this.deserializeMetaData(request.getMetaDataMap());
-        }
-        return metaData;
+        return metaData.get();
     }
 
     @Override
     public C getPayload() {
-        String revision = request.getPayload().getRevision();
-        SerializedObject object =  new SimpleSerializedObject<>(request.getPayload().getData().toByteArray(),
-                byte[].class, request.getPayload().getType(),
-                "".equals(revision) ? null : revision);
-        return (C)serializer.deserialize(object);
+        return payload.getObject();
     }
 
     @Override
     public Class<C> getPayloadType() {
-        try {
-            return (Class<C>) Class.forName(request.getPayload().getType());
-        } catch (ClassNotFoundException e) {
-            throw new RuntimeException(e);
-        }
+        return payload.getType();
     }
 
     @Override
@@ -84,38 +73,4 @@ public class GrpcBackedCommandMessage<C> implements CommandMessage<C> {
     public CommandMessage<C> andMetaData(Map<String, ?> map) {
         return this;
     }
-
-    private MetaData deserializeMetaData(Map<String, MetaDataValue> metaDataMap) {
-        if (metaDataMap.isEmpty()) {
-            return MetaData.emptyInstance();
-        }
-        Map<String, Object> metaData = new HashMap<>(metaDataMap.size());
-        metaDataMap.forEach((k, v) -> metaData.put(k, convertFromMetaDataValue(v)));
-        return MetaData.from(metaData);
-    }
-
-    private Object convertFromMetaDataValue(MetaDataValue value) {
-        switch (value.getDataCase()) {
-            case TEXT_VALUE:
-                return value.getTextValue();
-            case BYTES_VALUE:
-                io.axoniq.platform.SerializedObject bytesValue = value.getBytesValue();
-                return serializer.deserialize(new SimpleSerializedObject<>(bytesValue.getData().toByteArray(),
-                        byte[].class,
-                        bytesValue.getType(),
-                        bytesValue.getRevision()));
-
-            case DATA_NOT_SET:
-                return null;
-            case DOUBLE_VALUE:
-                return value.getDoubleValue();
-            case NUMBER_VALUE:
-                return value.getNumberValue();
-            case BOOLEAN_VALUE:
-                return value.getBooleanValue();
-        }
-        return null;
-    }
-
-
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event;
+
+import io.axoniq.axondb.Event;
+import io.axoniq.axondb.grpc.GetAggregateEventsRequest;
+import io.axoniq.axonhub.client.event.util.EventStoreClientException;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Spliterator that hands out the events of an aggregate as they are received from the server. Inbound flow control is
+ * managed manually: at most {@code prefetch} events are requested ahead of the consumer, and more are requested as
+ * events are consumed.
+ */
+class AggregateEventSpliterator extends Spliterators.AbstractSpliterator<Event>
+        implements ClientResponseObserver<GetAggregateEventsRequest, Event> {
+
+    private static final Event END_OF_STREAM = Event.newBuilder().build();
+
+    private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+    private final int prefetch;
+    private final int refillBatch;
+    private final Function<Event, Event> eventDecoder;
+    private final Function<Throwable, RuntimeException> errorMapper;
+    private final Runnable completionListener;
+
+    private volatile ClientCallStreamObserver<GetAggregateEventsRequest> call;
+    private volatile RuntimeException error;
+    private volatile boolean cancelled;
+    private boolean done;
+    private int consumedSinceRequest;
+
+    AggregateEventSpliterator(int prefetch, Function<Event, Event> eventDecoder,
+                              Function<Throwable, RuntimeException> errorMapper, Runnable completionListener) {
+        super(Long.MAX_VALUE, ORDERED | NONNULL | IMMUTABLE);
+        this.prefetch = Math.max(1, prefetch);
+        this.refillBatch = Math.max(1, this.prefetch / 2);
+        this.eventDecoder = eventDecoder;
+        this.errorMapper = errorMapper;
+        this.completionListener = completionListener;
+    }
+
+    @Override
+    public void beforeStart(ClientCallStreamObserver<GetAggregateEventsRequest> requestStream) {
+        this.call = requestStream;
+        requestStream.disableAutoInboundFlowControl();
+    }
+
+    /**
+     * Requests the initial batch of events. The gRPC stub already requests the first message when starting the call.
+     */
+    void start() {
+        if (prefetch > 1) {
+            call.request(prefetch - 1);
+        }
+    }
+
+    @Override
+    public void onNext(Event event) {
+        events.add(eventDecoder.apply(event));
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        if (!cancelled) {
+            error = errorMapper.apply(throwable);
+        }
+        events.add(END_OF_STREAM);
+    }
+
+    @Override
+    public void onCompleted() {
+        events.add(END_OF_STREAM);
+        completionListener.run();
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Event> action) {
+        if (done) {
+            return false;
+        }
+        Event event;
+        try {
+            event = events.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+            throw new EventStoreClientException("AXONIQ-0001", "Interrupted while reading aggregate events", e);
+        }
+        if (event == END_OF_STREAM) {
+            done = true;
+            if (error != null) {
+                throw error;
+            }
+            return false;
+        }
+        action.accept(event);
+        if (++consumedSinceRequest >= refillBatch) {
+            consumedSinceRequest = 0;
+            call.request(refillBatch);
+        }
+        return true;
+    }
+
+    /**
+     * Cancels the call to the server, if it is still active. Events that have already been received are discarded.
+     */
+    void cancel() {
+        if (!done && !cancelled) {
+            cancelled = true;
+            done = true;
+            call.cancel("Aggregate event stream closed by client", null);
+            events.clear();
+        }
+    }
+}
@@ -17,7 +17,7 @@ package io.axoniq.axonhub.client.event;
 
 import io.axoniq.axondb.Event;
 import io.axoniq.axondb.grpc.Confirmation;
-import io.axoniq.axonhub.client.event.util.EventCipher;
+import io.axoniq.axonhub.client.event.util.PayloadCodec;
 import io.grpc.stub.StreamObserver;
 
 import java.util.concurrent.CompletableFuture;
@@ -31,21 +31,34 @@ import java.util.concurrent.TimeoutException;
 public class AppendEventTransaction {
     private final StreamObserver<Event> eventStreamObserver;
     private final CompletableFuture<Confirmation> observer;
-    private final EventCipher eventCipher;
+    private final PayloadCodec payloadCodec;
 
-    public AppendEventTransaction(StreamObserver<Event> eventStreamObserver, CompletableFuture<Confirmation> observer, EventCipher eventCipher) {
+    public AppendEventTransaction(StreamObserver<Event> eventStreamObserver, CompletableFuture<Confirmation> observer, PayloadCodec payloadCodec) {
         this.eventStreamObserver = eventStreamObserver;
         this.observer = observer;
-        this.eventCipher = eventCipher;
+        this.payloadCodec = payloadCodec;
     }
 
     public void append(Event event) {
-        eventStreamObserver.onNext(eventCipher.encrypt(event));
+        eventStreamObserver.onNext(payloadCodec.encode(event));
     }
 
+    /**
+     * Commits the transaction and waits (at most 10 seconds) for the confirmation from the server.
+     */
     public void commit() throws InterruptedException, ExecutionException, TimeoutException {
+        commitAsync().get(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Commits the transaction without waiting for the server to process it. The returned future completes when the
+     * server confirms the transaction, or completes exceptionally when the server rejects it.
+     *
+     * @return future for the confirmation of the transaction
+     */
+    public CompletableFuture<Confirmation> commitAsync() {
         eventStreamObserver.onCompleted();
-        observer.get(10, TimeUnit.SECONDS);
+        return observer;
     }
 
     public void rollback(Throwable reason) {
@@ -32,8 +32,10 @@ import io.axoniq.axondb.grpc.TrackingToken;
 import io.axoniq.axonhub.client.AxonHubConfiguration;
 import io.axoniq.axonhub.client.AxonHubException;
 import io.axoniq.axonhub.client.PlatformConnectionManager;
-import io.axoniq.axonhub.client.event.util.EventCipher;
+import io.axoniq.axonhub.client.event.util.PayloadCodec;
 import io.axoniq.axonhub.client.event.util.GrpcExceptionParser;
+import io.axoniq.axonhub.client.util.ChannelStub;
+import io.axoniq.axonhub.client.util.CompressingInterceptor;
 import io.axoniq.axonhub.client.util.ContextAddingInterceptor;
 import io.axoniq.axonhub.client.util.TokenAddingInterceptor;
 import io.grpc.Channel;
@@ -46,7 +48,9 @@ import org.slf4j.LoggerFactory;
 import java.time.Instant;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Generic client for EventStore through AxonHub. Does not require any Axon framework classes.
@@ -56,16 +60,25 @@ public class AxonDBClient {
 
     private final TokenAddingInterceptor tokenAddingInterceptor;
     private final ContextAddingInterceptor contextAddingInterceptor;
-    private final EventCipher eventCipher;
+    private final CompressingInterceptor compressingInterceptor;
+    private final PayloadCodec payloadCodec;
     private final PlatformConnectionManager platformConnectionManager;
+    private final ChannelStub<EventStoreGrpc.EventStoreStub> eventStore;
 
     private boolean shutdown;
 
     public AxonDBClient(AxonHubConfiguration eventStoreConfiguration, PlatformConnectionManager platformConnectionManager) {
         this.tokenAddingInterceptor = new TokenAddingInterceptor(eventStoreConfiguration.getToken());
-        this.eventCipher = eventStoreConfiguration.getEventCipher();
+        this.payloadCodec = eventStoreConfiguration.getPayloadCodec();
         this.platformConnectionManager = platformConnectionManager;
         contextAddingInterceptor = new ContextAddingInterceptor(eventStoreConfiguration.getContext());
+        compressingInterceptor = new CompressingInterceptor(eventStoreConfiguration.getEventCompression(),
+                                                            eventStoreConfiguration.getCompressionThreshold());
+        eventStore = new ChannelStub<>(this::getChannelToEventStore,
+                                       channel -> EventStoreGrpc.newStub(channel)
+                                                                .withInterceptors(tokenAddingInterceptor)
+                                                                .withInterceptors(contextAddingInterceptor)
+                                                                .withInterceptors(compressingInterceptor));
     }
 
     public void shutdown() {
@@ -73,7 +86,7 @@ public class AxonDBClient {
     }
 
     private EventStoreGrpc.EventStoreStub eventStoreStub() {
-        return EventStoreGrpc.newStub(getChannelToEventStore()).withInterceptors(tokenAddingInterceptor).withInterceptors(contextAddingInterceptor);
+        return eventStore.get();
     }
 
 
@@ -91,6 +104,22 @@ public class AxonDBClient {
      * @throws InterruptedException when the thread was interrupted while reading events from the server
      */
     public Stream<Event> listAggregateEvents(GetAggregateEventsRequest request) throws ExecutionException, InterruptedException {
+        return listAggregateEvents(request, true);
+    }
+
+    /**
+     * Retrieves the events for an aggregate described in given {@code request}, optionally leaving the decoding of
+     * events to the caller. When {@code decodeEvents} is {@code false}, events are returned as received, and must be
+     * decoded using {@link #decode(Event)} before use.
+     *
+     * @param request       The request describing the aggregate to retrieve messages for
+     * @param decodeEvents  whether to decode events before returning them
+     * @return a Stream providing access to Events published by the aggregate described in the request
+     * @throws ExecutionException   when an error was reported while reading events
+     * @throws InterruptedException when the thread was interrupted while reading events from the server
+     */
+    public Stream<Event> listAggregateEvents(GetAggregateEventsRequest request, boolean decodeEvents)
+            throws ExecutionException, InterruptedException {
         CompletableFuture<Stream<Event>> stream = new CompletableFuture<>();
         long before = System.currentTimeMillis();
 
@@ -100,7 +129,7 @@ public class AxonDBClient {
 
             @Override
             public void onNext(Event event) {
-                eventStream.accept(eventCipher.decrypt(event));
+                eventStream.accept(decodeEvents ? payloadCodec.decode(event) : event);
                 count++;
             }
 
@@ -121,16 +150,71 @@ public class AxonDBClient {
         return stream.get();
     }
 
+    /**
+     * Reads the events of an aggregate as a lazily populated stream. Events are requested from the server as the stream
+     * is consumed, keeping at most {@code prefetch} events in memory. Errors reported by the server are thrown when the
+     * stream is consumed. Closing the stream cancels the request if it is still active.
+     *
+     * @param request  the request identifying the aggregate and the first sequence number to read
+     * @param prefetch the maximum number of events to request ahead of the consumer
+     * @return stream of events for the aggregate
+     */
+    public Stream<Event> streamAggregateEvents(GetAggregateEventsRequest request, int prefetch) {
+        return streamAggregateEvents(request, prefetch, true);
+    }
+
+    /**
+     * Reads the events of an aggregate as a lazily populated stream, optionally leaving the decoding of events to the
+     * caller. When {@code decodeEvents} is {@code false}, events are returned as received, and must be decoded using
+     * {@link #decode(Event)} before use.
+     *
+     * @param request       the request identifying the aggregate and the first sequence number to read
+     * @param prefetch      the maximum number of events to request ahead of the consumer
+     * @param decodeEvents  whether to decode events before returning them
+     * @return stream of events for the aggregate
+     */
+    public Stream<Event> streamAggregateEvents(GetAggregateEventsRequest request, int prefetch, boolean decodeEvents) {
+        long before = System.currentTimeMillis();
+        AggregateEventSpliterator spliterator = new AggregateEventSpliterator(prefetch,
+                decodeEvents ? payloadCodec::decode : Function.identity(),
+                throwable -> {
+                    checkConnectionException(throwable);
+                    return GrpcExceptionParser.parse(throwable);
+                },
+                () -> {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Done request for {}: {}ms", request.getAggregateId(), System.currentTimeMillis() - before);
+                    }
+                });
+        eventStoreStub().listAggregateEvents(request, spliterator);
+        spliterator.start();
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::cancel);
+    }
+
     /**
      *
      * @param responseStreamObserver: observer for messages from server
      * @return stream observer to send request messages to server
      */
     public StreamObserver<GetEventsRequest> listEvents(StreamObserver<EventWithToken> responseStreamObserver) {
+        return listEvents(responseStreamObserver, true);
+    }
+
+    /**
+     * Opens an event stream, optionally leaving the decoding of events to the caller. When {@code decodeEvents} is
+     * {@code false}, events are passed to the observer as received, and must be decoded using
+     * {@link #decode(Event)} before use.
+     *
+     * @param responseStreamObserver observer for messages from server
+     * @param decodeEvents           whether to decode events before passing them to the observer
+     * @return stream observer to send request messages to server
+     */
+    public StreamObserver<GetEventsRequest> listEvents(StreamObserver<EventWithToken> responseStreamObserver,
+                                                       boolean decodeEvents) {
         StreamObserver<EventWithToken> wrappedStreamObserver = new StreamObserver<EventWithToken>() {
             @Override
             public void onNext(EventWithToken eventWithToken) {
-                responseStreamObserver.onNext(eventCipher.decrypt(eventWithToken));
+                responseStreamObserver.onNext(decodeEvents ? decode(eventWithToken) : eventWithToken);
             }
 
             @Override
@@ -148,9 +232,24 @@ public class AxonDBClient {
         return eventStoreStub().listEvents(wrappedStreamObserver);
     }
 
+    /**
+     * Decodes the payload of an event received from a stream opened without decoding events, reversing the payload
+     * codecs configured, such as compression and encryption.
+     *
+     * @param event the event as received from the server
+     * @return the decoded event
+     */
+    public Event decode(Event event) {
+        return payloadCodec.decode(event);
+    }
+
+    private EventWithToken decode(EventWithToken eventWithToken) {
+        return eventWithToken.toBuilder().setEvent(payloadCodec.decode(eventWithToken.getEvent())).build();
+    }
+
     public CompletableFuture<Confirmation> appendSnapshot(Event snapshot) {
         CompletableFuture<Confirmation> confirmationFuture = new CompletableFuture<>();
-        eventStoreStub().appendSnapshot(eventCipher.encrypt(snapshot),
+        eventStoreStub().appendSnapshot(payloadCodec.encode(snapshot),
                                         new SingleResultStreamObserver<>(confirmationFuture ));
 
 
@@ -198,7 +297,7 @@ public class AxonDBClient {
             public void onCompleted() {
                 // no-op: already
             }
-        }), futureConfirmation, eventCipher);
+        }), futureConfirmation, payloadCodec);
     }
 
     public StreamObserver<QueryEventsRequest> query(StreamObserver<QueryEventsResponse> responseStreamObserver) {
@@ -0,0 +1,577 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.axoniq.axonhub.client.event;
+
+import com.google.protobuf.CodedInputStream;
+import io.axoniq.axondb.Event;
+import io.axoniq.axondb.grpc.EventWithToken;
+import io.axoniq.axonhub.client.event.util.EventStoreClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk cache of a contiguous range of the global event stream, stored in memory-mapped segment files. Events are
+ * appended as they are received from the server, and can be read back from any token within the cached range, so that
+ * replays of historical events do not need to fetch them from AxonHub again.
+ * <p>
+ * Each segment file starts with a header holding the token of the event preceding its first record and a fingerprint
+ * of the identity of the event store the events were read from, such as its servers and context. Records consist of
+ * the length of the event, its token, a CRC32 checksum of token and event, and the event as received from the server,
+ * so with payloads still encrypted or compressed. A record is only appended when it directly follows the last cached
+ * event, as reported by the stream that received it, which keeps the cached range free of gaps.
+ * <p>
+ * When the total size of the segments exceeds the maximum size, the oldest segments are deleted. Segments found in the
+ * directory when the cache is created are validated, and segments of another event store are discarded. Reading stops
+ * at the first record with an invalid checksum.
+ * <p>
+ * The cache holds a lock on a file in its directory until it is {@link #close() closed}. When another process or
+ * cache instance already holds the lock, the cache is disabled: it does not read or write segments.
+ */
+public class EventSegmentCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventSegmentCache.class);
+
+    private static final byte[] MAGIC_NUMBER = "AxC2".getBytes(StandardCharsets.US_ASCII);
+    private static final int IDENTITY_OFFSET = MAGIC_NUMBER.length + 8;
+    private static final int HEADER_SIZE = IDENTITY_OFFSET + 16;
+    private static final int RECORD_HEADER_SIZE = 4 + 8 + 4;
+    private static final int INDEX_INTERVAL = 64;
+    private static final String SUFFIX = ".segment";
+    private static final String LOCK_FILE = "cache.lock";
+    private static final int WRITE_QUEUE_SIZE = 4096;
+
+    private final Path directory;
+    private final byte[] identity;
+    private final int segmentSize;
+    private final long maxSize;
+    private final List<Segment> segments = new ArrayList<>();
+    private final Object writeLock = new Object();
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final ExecutorService writer;
+    private volatile long highWaterMark = -1;
+    private boolean writeFailed;
+
+    /**
+     * Opens the cache in given {@code directory}, creating the directory when it does not exist and loading the
+     * segments it contains. Segments holding the events of an event store with another {@code identity} are deleted.
+     *
+     * @param directory   the directory to store segment files in
+     * @param identity    the identity of the event store the events are read from
+     * @param segmentSize the size (in bytes) of segment files
+     * @param maxSize     the maximum total size (in bytes) of the segment files
+     */
+    public EventSegmentCache(Path directory, String identity, int segmentSize, long maxSize) {
+        this.directory = directory;
+        this.identity = fingerprint(identity);
+        this.segmentSize = segmentSize;
+        this.maxSize = maxSize;
+        try {
+            Files.createDirectories(directory);
+            lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                                           StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new EventStoreClientException("AXONIQ-9102", "Failed to create event cache directory " + directory, e);
+        }
+        lock = tryLock();
+        if (lock == null) {
+            logger.warn("Event cache directory {} is in use by another process, event cache disabled", directory);
+            writeFailed = true;
+            writer = null;
+            return;
+        }
+        writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                                        new ArrayBlockingQueue<>(WRITE_QUEUE_SIZE), r -> {
+            Thread thread = new Thread(r, "EventCacheWriter");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+        loadSegments();
+    }
+
+    /**
+     * Schedules given {@code event} to be {@link #append(long, EventWithToken) appended} on the writer thread of the
+     * cache, so that the calling thread does not wait for serialization and disk I/O. When the writer falls behind too
+     * far, events are dropped; events following a dropped event are then rejected, as they no longer directly follow
+     * the last cached event.
+     *
+     * @param previousToken the token of the event preceding the event in its stream
+     * @param event         the event to append
+     */
+    public void offer(long previousToken, EventWithToken event) {
+        if (writer != null) {
+            writer.execute(() -> append(previousToken, event));
+        }
+    }
+
+    /**
+     * Appends given {@code event} to the cache, provided that {@code previousToken}, the token of the event preceding
+     * it in the stream it was received from, is the token of the last cached event. Any event is accepted as the first
+     * event of an empty cache.
+     *
+     * @param previousToken the token of the event preceding the event in its stream
+     * @param event         the event to append
+     * @return {@code true} if the event was appended, otherwise {@code false}
+     */
+    public boolean append(long previousToken, EventWithToken event) {
+        byte[] data = event.getEvent().toByteArray();
+        int recordSize = RECORD_HEADER_SIZE + data.length;
+        synchronized (writeLock) {
+            Segment active = activeSegment();
+            if (writeFailed || (active != null && previousToken != highWaterMark)) {
+                return false;
+            }
+            if (HEADER_SIZE + recordSize > segmentSize) {
+                logger.warn("Event with token {} exceeds the event cache segment size, no longer caching events",
+                            event.getToken());
+                writeFailed = true;
+                return false;
+            }
+            if (active == null || !active.fits(recordSize)) {
+                try {
+                    active = addSegment(active, createSegment(previousToken));
+                } catch (IOException e) {
+                    logger.warn("Failed to create event cache segment, no longer caching events", e);
+                    writeFailed = true;
+                    return false;
+                }
+            }
+            active.write(event.getToken(), data);
+            highWaterMark = event.getToken();
+            return true;
+        }
+    }
+
+    /**
+     * Stops writing events, writes pending changes to disk and releases the lock on the cache directory.
+     */
+    public void close() {
+        if (writer != null) {
+            writer.shutdown();
+            try {
+                writer.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (writeLock) {
+            writeFailed = true;
+            flush();
+        }
+        try {
+            if (lock != null) {
+                lock.release();
+            }
+            lockChannel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to release the lock on event cache directory {}", directory, e);
+        }
+    }
+
+    /**
+     * Indicates whether the cache holds the event following given {@code token}.
+     *
+     * @param token the token of the last event before the requested events
+     * @return {@code true} if the event following the token is cached, otherwise {@code false}
+     */
+    public synchronized boolean covers(long token) {
+        return !segments.isEmpty() && segments.get(0).previousToken <= token && token < highWaterMark;
+    }
+
+    /**
+     * Returns an iterator over the cached events following given {@code token}. The iterator ends at the last event in
+     * the cache, including events appended while iterating, or at the first record that fails checksum validation.
+     *
+     * @param token the token of the last event before the requested events
+     * @return an iterator over the cached events following the token
+     */
+    public synchronized Iterator<EventWithToken> read(long token) {
+        for (Segment segment : segments) {
+            if (segment.previousToken <= token && token < segment.lastToken) {
+                return new SegmentIterator(segment, segment.positionAfter(token));
+            }
+        }
+        return Collections.emptyIterator();
+    }
+
+    /**
+     * Returns the token of the last cached event, or -1 if the cache is empty.
+     *
+     * @return the token of the last cached event
+     */
+    public synchronized long getHighWaterMark() {
+        return segments.isEmpty() ? -1 : highWaterMark;
+    }
+
+    /**
+     * Returns the token of the event preceding the first cached event, or -1 if the cache is empty.
+     *
+     * @return the token of the event preceding the first cached event
+     */
+    public synchronized long getLowWaterMark() {
+        return segments.isEmpty() ? -1 : segments.get(0).previousToken;
+    }
+
+    /**
+     * Returns the number of segment files in the cache.
+     *
+     * @return the number of segment files
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Writes the pending changes of the active segment to disk.
+     */
+    public synchronized void flush() {
+        if (!segments.isEmpty()) {
+            segments.get(segments.size() - 1).buffer.force();
+        }
+    }
+
+    private synchronized Segment activeSegment() {
+        return segments.isEmpty() ? null : segments.get(segments.size() - 1);
+    }
+
+    private Segment addSegment(Segment active, Segment created) {
+        List<Segment> evicted;
+        synchronized (this) {
+            if (active != null) {
+                active.sealed = true;
+            }
+            segments.add(created);
+            evicted = evictSegments();
+        }
+        evicted.forEach(segment -> deleteFile(segment.file));
+        return created;
+    }
+
+    private synchronized Segment nextSegment(Segment segment) {
+        int index = segments.indexOf(segment);
+        return index >= 0 && index < segments.size() - 1 ? segments.get(index + 1) : null;
+    }
+
+    private Segment createSegment(long previousToken) throws IOException {
+        Path file = directory.resolve(String.format("%020d%s", previousToken + 1, SUFFIX));
+        MappedByteBuffer buffer = map(file, segmentSize);
+        buffer.put(0, MAGIC_NUMBER[0]).put(1, MAGIC_NUMBER[1]).put(2, MAGIC_NUMBER[2]).put(3, MAGIC_NUMBER[3]);
+        buffer.putLong(MAGIC_NUMBER.length, previousToken);
+        for (int i = 0; i < identity.length; i++) {
+            buffer.put(IDENTITY_OFFSET + i, identity[i]);
+        }
+        buffer.putInt(HEADER_SIZE, 0);
+        return new Segment(file, buffer, previousToken);
+    }
+
+    private List<Segment> evictSegments() {
+        List<Segment> evicted = new ArrayList<>();
+        long totalSize = segments.stream().mapToLong(segment -> segment.buffer.capacity()).sum();
+        while (segments.size() > 1 && totalSize > maxSize) {
+            Segment segment = segments.remove(0);
+            totalSize -= segment.buffer.capacity();
+            evicted.add(segment);
+        }
+        return evicted;
+    }
+
+    private FileLock tryLock() {
+        try {
+            return lockChannel.tryLock();
+        } catch (OverlappingFileLockException | IOException e) {
+            return null;
+        }
+    }
+
+    private void loadSegments() {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            throw new EventStoreClientException("AXONIQ-9000", "Failed to list event cache directory " + directory, e);
+        }
+        Collections.sort(files);
+        Segment previous = null;
+        boolean discard = false;
+        for (Path file : files) {
+            Segment segment = discard ? null : loadSegment(file);
+            if (segment == null || (previous != null && segment.previousToken != previous.lastToken)) {
+                // segments following an invalid segment are no longer contiguous with the cached range
+                logger.info("Discarding event cache segment {}", file);
+                deleteFile(file);
+                discard = true;
+                continue;
+            }
+            if (previous != null) {
+                previous.sealed = true;
+            }
+            segments.add(segment);
+            previous = segment;
+        }
+        if (previous != null) {
+            highWaterMark = previous.lastToken;
+        }
+        evictSegments().forEach(segment -> deleteFile(segment.file));
+    }
+
+    private Segment loadSegment(Path file) {
+        try {
+            MappedByteBuffer buffer = map(file, 0);
+            if (buffer.capacity() < HEADER_SIZE + 4) {
+                return null;
+            }
+            for (int i = 0; i < MAGIC_NUMBER.length; i++) {
+                if (buffer.get(i) != MAGIC_NUMBER[i]) {
+                    return null;
+                }
+            }
+            for (int i = 0; i < identity.length; i++) {
+                if (buffer.get(IDENTITY_OFFSET + i) != identity[i]) {
+                    logger.info("Event cache segment {} holds events of another event store", file);
+                    return null;
+                }
+            }
+            Segment segment = new Segment(file, buffer, buffer.getLong(MAGIC_NUMBER.length));
+            segment.recover();
+            return segment;
+        } catch (IOException e) {
+            logger.warn("Failed to read event cache segment {}", file, e);
+            return null;
+        }
+    }
+
+    private static MappedByteBuffer map(Path file, int size) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "rw")) {
+            if (size > 0) {
+                randomAccessFile.setLength(size);
+            }
+            return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, randomAccessFile.length());
+        }
+    }
+
+    private static byte[] fingerprint(String identity) {
+        UUID uuid = UUID.nameUUIDFromBytes(identity.getBytes(StandardCharsets.UTF_8));
+        return ByteBuffer.allocate(16)
+                         .putLong(uuid.getMostSignificantBits())
+                         .putLong(uuid.getLeastSignificantBits())
+                         .array();
+    }
+
+    private static void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Failed to delete event cache segment {}", file, e);
+        }
+    }
+
+    private static int checksum(ByteBuffer buffer, int position, long token, int length) {
+        CRC32 crc = new CRC32();
+        ByteBuffer data = buffer.duplicate();
+        data.limit(position + RECORD_HEADER_SIZE + length).position(position + RECORD_HEADER_SIZE);
+        crc.update(data);
+        ByteBuffer tokenBytes = ByteBuffer.allocate(8).putLong(0, token);
+        crc.update(tokenBytes);
+        return (int) crc.getValue();
+    }
+
+    private static class Segment {
+
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private final long previousToken;
+        private long[] indexTokens = new long[16];
+        private int[] indexPositions = new int[16];
+        private volatile int indexSize;
+        private int records;
+        private volatile int limit = HEADER_SIZE;
+        private volatile long lastToken;
+        private volatile boolean sealed;
+
+        private Segment(Path file, MappedByteBuffer buffer, long previousToken) {
+            this.file = file;
+            this.buffer = buffer;
+            this.previousToken = previousToken;
+            this.lastToken = previousToken;
+        }
+
+        private boolean fits(int recordSize) {
+            return limit + recordSize <= buffer.capacity();
+        }
+
+        private void write(long token, byte[] data) {
+            int position = limit;
+            ByteBuffer target = buffer.duplicate();
+            target.position(position + RECORD_HEADER_SIZE);
+            target.put(data);
+            buffer.putInt(position, data.length);
+            buffer.putLong(position + 4, token);
+            buffer.putInt(position + 12, checksum(buffer, position, token, data.length));
+            int end = position + RECORD_HEADER_SIZE + data.length;
+            if (end + 4 <= buffer.capacity()) {
+                buffer.putInt(end, 0);
+            }
+            indexRecord(token, position);
+            lastToken = token;
+            limit = end;
+        }
+
+        private void recover() {
+            int position = HEADER_SIZE;
+            while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || position + RECORD_HEADER_SIZE + length > buffer.capacity()) {
+                    break;
+                }
+                long token = buffer.getLong(position + 4);
+                if (token <= lastToken || buffer.getInt(position + 12) != checksum(buffer, position, token, length)) {
+                    logger.warn("Invalid record in event cache segment {} at position {}, truncating", file, position);
+                    break;
+                }
+                indexRecord(token, position);
+                lastToken = token;
+                position += RECORD_HEADER_SIZE + length;
+            }
+            limit = position;
+        }
+
+        private void indexRecord(long token, int position) {
+            if (records++ % INDEX_INTERVAL != 0) {
+                return;
+            }
+            int size = indexSize;
+            if (size == indexTokens.length) {
+                indexTokens = Arrays.copyOf(indexTokens, size * 2);
+                indexPositions = Arrays.copyOf(indexPositions, size * 2);
+            }
+            indexTokens[size] = token;
+            indexPositions[size] = position;
+            indexSize = size + 1;
+        }
+
+        /**
+         * Returns the position of the first record with a token after given {@code token}.
+         */
+        private int positionAfter(long token) {
+            int size = indexSize;
+            int index = Arrays.binarySearch(indexTokens, 0, size, token);
+            int entry = index >= 0 ? index : -index - 2;
+            int position = entry < 0 ? HEADER_SIZE : indexPositions[entry];
+            int end = limit;
+            while (position < end && buffer.getLong(position + 4) <= token) {
+                position += RECORD_HEADER_SIZE + buffer.getInt(position);
+            }
+            return position;
+        }
+    }
+
+    private class SegmentIterator implements Iterator<EventWithToken> {
+
+        private Segment segment;
+        private int position;
+        private EventWithToken next;
+        private boolean failed;
+
+        private SegmentIterator(Segment segment, int position) {
+            this.segment = segment;
+            this.position = position;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !failed) {
+                next = readNext();
+            }
+            return next != null;
+        }
+
+        @Override
+        public EventWithToken next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            EventWithToken result = next;
+            next = null;
+            return result;
+        }
+
+        private EventWithToken readNext() {
+            while (true) {
+                boolean sealed = segment.sealed;
+                if (position < segment.limit) {
+                    return readRecord();
+                }
+                Segment following = sealed ? nextSegment(segment) : null;
+                if (following == null) {
+                    return null;
+                }
+                segment = following;
+                position = HEADER_SIZE;
+            }
+        }
+
+        private EventWithToken readRecord() {
+            ByteBuffer buffer = segment.buffer;
+            int length = buffer.getInt(position);
+            long token = buffer.getLong(position + 4);
+            if (buffer.getInt(position + 12) != checksum(buffer, position, token, length)) {
+                logger.warn("Invalid checksum in event cache segment {} at position {}", segment.file, position);
+                failed = true;
+                return null;
+            }
+            ByteBuffer data = buffer.duplicate();
+            data.limit(position + RECORD_HEADER_SIZE + length).position(position + RECORD_HEADER_SIZE);
+            try {
+                EventWithToken event = EventWithToken.newBuilder()
+                                                     .setToken(token)
+                                                     .setEvent(Event.parseFrom(CodedInputStream.newInstance(data)))
+                                                     .build();
+                position += RECORD_HEADER_SIZE + length;
+                return event;
+            } catch (IOException e) {
+                logger.warn("Invalid event in event cache segment {} at position {}", segment.file, position, e);
+                failed = true;
+                return null;
+            }
+        }
+    }
+}
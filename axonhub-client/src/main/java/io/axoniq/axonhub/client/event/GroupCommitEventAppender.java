@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event;
+
+import io.axoniq.axondb.Event;
+import io.axoniq.axondb.grpc.Confirmation;
+import io.axoniq.axonhub.client.event.util.EventStoreClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Combines the events appended by concurrent callers into shared append transactions. Events appended within the
+ * linger window after the first pending append, or until the pending events exceed the byte budget, are sent to
+ * AxonHub in a single transaction. Each caller receives a future that completes with the confirmation of the shared
+ * transaction.
+ * <p>
+ * The events of one caller are always sent as a contiguous block in a single transaction. When the shared transaction
+ * fails with an invalid sequence number and contains the events of more than one caller, the events of each caller are
+ * retried in a transaction of their own, one caller after the other in the order of appending. This way only the
+ * callers that are actually in conflict fail. Any other failure fails the futures of all callers in the group.
+ * <p>
+ * This feature is experimental. Grouping only pays off when committing a transaction on the server is expensive
+ * compared to the linger time, for instance when the server flushes each transaction to disk, and many callers append
+ * concurrently. With a fast commit, the linger time adds latency without improving throughput.
+ */
+public class GroupCommitEventAppender {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitEventAppender.class);
+    private static final String INVALID_SEQUENCE = "AXONIQ-2000";
+
+    private final Supplier<AppendEventTransaction> transactionFactory;
+    private final long lingerMillis;
+    private final int maxBytes;
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1, r -> {
+        Thread thread = new Thread(r, "GroupCommitEventAppender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private List<PendingAppend> group = new ArrayList<>();
+    private int groupBytes;
+    private ScheduledFuture<?> lingerTask;
+    private boolean shutdown;
+
+    /**
+     * @param transactionFactory supplier for new append transactions
+     * @param lingerMillis       time (in ms) to wait for other appends after the first append in a group
+     * @param maxBytes           number of bytes at which a group is sent without waiting for the linger time
+     */
+    public GroupCommitEventAppender(Supplier<AppendEventTransaction> transactionFactory, long lingerMillis, int maxBytes) {
+        this.transactionFactory = transactionFactory;
+        this.lingerMillis = lingerMillis;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Adds given {@code events} to the current group. After {@link #shutdown()}, the events are sent in a transaction
+     * of their own.
+     *
+     * @param events the events to append, in order
+     * @return future for the confirmation of the transaction containing the events
+     */
+    public CompletableFuture<Confirmation> append(List<Event> events) {
+        PendingAppend pendingAppend = new PendingAppend(events);
+        List<PendingAppend> ready = null;
+        synchronized (this) {
+            if (shutdown) {
+                ready = pendingAppend.asGroup();
+            } else {
+                group.add(pendingAppend);
+                groupBytes += pendingAppend.bytes;
+                if (groupBytes >= maxBytes) {
+                    ready = takeGroup();
+                } else if (group.size() == 1) {
+                    List<PendingAppend> lingering = group;
+                    lingerTask = scheduler.schedule(() -> flush(lingering), lingerMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+        if (ready != null) {
+            send(ready);
+        }
+        return pendingAppend.result;
+    }
+
+    /**
+     * Sends the pending appends, if any, without waiting for the linger time to expire.
+     */
+    public void flush() {
+        List<PendingAppend> ready;
+        synchronized (this) {
+            ready = takeGroup();
+        }
+        send(ready);
+    }
+
+    /**
+     * Sends the pending appends and stops the scheduler. Appends following the shutdown are sent immediately.
+     */
+    public void shutdown() {
+        List<PendingAppend> ready;
+        synchronized (this) {
+            shutdown = true;
+            ready = takeGroup();
+        }
+        send(ready);
+        scheduler.shutdown();
+    }
+
+    private void flush(List<PendingAppend> lingering) {
+        List<PendingAppend> ready;
+        synchronized (this) {
+            // a linger task that was already running when its group was taken must not take the next group
+            if (group != lingering) {
+                return;
+            }
+            ready = takeGroup();
+        }
+        send(ready);
+    }
+
+    private List<PendingAppend> takeGroup() {
+        if (lingerTask != null) {
+            lingerTask.cancel(false);
+            lingerTask = null;
+        }
+        List<PendingAppend> taken = group;
+        group = new ArrayList<>();
+        groupBytes = 0;
+        return taken;
+    }
+
+    private void send(List<PendingAppend> appends) {
+        if (appends.isEmpty()) {
+            return;
+        }
+        try {
+            AppendEventTransaction transaction = transactionFactory.get();
+            appends.forEach(pendingAppend -> pendingAppend.events.forEach(transaction::append));
+            transaction.commitAsync().whenComplete((confirmation, error) -> {
+                if (error == null) {
+                    appends.forEach(pendingAppend -> pendingAppend.result.complete(confirmation));
+                } else if (appends.size() > 1 && isInvalidSequence(error)) {
+                    logger.debug("Group of {} appends failed on invalid sequence, retrying individually", appends.size());
+                    retryIndividually(appends.iterator());
+                } else {
+                    appends.forEach(pendingAppend -> pendingAppend.result.completeExceptionally(error));
+                }
+            });
+        } catch (RuntimeException e) {
+            appends.forEach(pendingAppend -> pendingAppend.result.completeExceptionally(e));
+        }
+    }
+
+    private void retryIndividually(Iterator<PendingAppend> appends) {
+        if (!appends.hasNext()) {
+            return;
+        }
+        PendingAppend pendingAppend = appends.next();
+        send(pendingAppend.asGroup());
+        pendingAppend.result.whenComplete((confirmation, error) -> retryIndividually(appends));
+    }
+
+    private static boolean isInvalidSequence(Throwable error) {
+        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+        return cause instanceof EventStoreClientException
+                && INVALID_SEQUENCE.equals(((EventStoreClientException) cause).getCode());
+    }
+
+    private static class PendingAppend {
+
+        private final List<Event> events;
+        private final int bytes;
+        private final CompletableFuture<Confirmation> result = new CompletableFuture<>();
+
+        private PendingAppend(List<Event> events) {
+            this.events = events;
+            this.bytes = events.stream().mapToInt(Event::getSerializedSize).sum();
+        }
+
+        private List<PendingAppend> asGroup() {
+            List<PendingAppend> single = new ArrayList<>(1);
+            single.add(this);
+            return single;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event.axon;
+
+import org.axonframework.eventsourcing.DomainEventMessage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of the deserialized events of aggregates, keyed by aggregate identifier. When an aggregate is found in
+ * the cache, only the events following the last cached sequence number need to be read from the event store.
+ * <p>
+ * The cache is bounded by the number of aggregates and by the total estimated size of the events held. The size of an
+ * event is estimated by its serialized size, as received from the server. When either bound is exceeded, the least
+ * recently used aggregates are evicted. Cached event messages are shared between readers, so their payloads and meta
+ * data should be immutable.
+ * <p>
+ * Snapshots are not cached. When an aggregate is loaded from a snapshot, the aggregate factory may use the payload of
+ * the snapshot as the aggregate root itself, which would then be modified by every reader of the cached events.
+ */
+public class AggregateEventCache {
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private long cachedEvents;
+    private long cachedBytes;
+
+    /**
+     * @param maxEntries maximum number of aggregates in the cache
+     * @param maxBytes   maximum estimated size in bytes of the events in the cache, over all aggregates
+     */
+    public AggregateEventCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cached events for given {@code aggregateIdentifier}, or {@code null} when the aggregate is not in the
+     * cache.
+     *
+     * @param aggregateIdentifier the identifier of the aggregate
+     * @return the cached events of the aggregate, or {@code null}
+     */
+    public synchronized Entry get(String aggregateIdentifier) {
+        Entry entry = entries.get(aggregateIdentifier);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry;
+    }
+
+    /**
+     * Stores the events of an aggregate, replacing any events previously cached for it. Events are expected to be
+     * complete, that is starting with the first event of the aggregate, and ordered by sequence number. Aggregates
+     * without events, or with events exceeding the maximum size of the cache, are not cached.
+     *
+     * @param aggregateIdentifier the identifier of the aggregate
+     * @param events              the events of the aggregate
+     * @param size                the estimated size of the events in bytes
+     */
+    public synchronized void put(String aggregateIdentifier, List<DomainEventMessage<?>> events, long size) {
+        remove(aggregateIdentifier);
+        if (events.isEmpty() || !fits(size)) {
+            return;
+        }
+        entries.put(aggregateIdentifier, new Entry(new ArrayList<>(events), size));
+        cachedEvents += events.size();
+        cachedBytes += size;
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries || cachedBytes > maxBytes) {
+            Entry evicted = eldest.next();
+            cachedEvents -= evicted.events.size();
+            cachedBytes -= evicted.size;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Indicates whether events of given estimated {@code size} can be cached, possibly by evicting other aggregates.
+     *
+     * @param size the estimated size of the events in bytes
+     * @return {@code true} if events of given size can be cached
+     */
+    public boolean fits(long size) {
+        return size <= maxBytes;
+    }
+
+    /**
+     * Removes the events of given {@code aggregateIdentifier} from the cache.
+     *
+     * @param aggregateIdentifier the identifier of the aggregate
+     */
+    public synchronized void invalidate(String aggregateIdentifier) {
+        remove(aggregateIdentifier);
+    }
+
+    /**
+     * Removes all aggregates from the cache.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        cachedEvents = 0;
+        cachedBytes = 0;
+    }
+
+    private void remove(String aggregateIdentifier) {
+        Entry removed = entries.remove(aggregateIdentifier);
+        if (removed != null) {
+            cachedEvents -= removed.events.size();
+            cachedBytes -= removed.size;
+        }
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    public synchronized long getCachedEvents() {
+        return cachedEvents;
+    }
+
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * The cached events of an aggregate, with their estimated size.
+     */
+    public static class Entry {
+
+        private final List<DomainEventMessage<?>> events;
+        private final long size;
+
+        private Entry(List<DomainEventMessage<?>> events, long size) {
+            this.events = Collections.unmodifiableList(events);
+            this.size = size;
+        }
+
+        /**
+         * Returns the events of the aggregate, ordered by sequence number.
+         *
+         * @return the cached events
+         */
+        public List<DomainEventMessage<?>> getEvents() {
+            return events;
+        }
+
+        /**
+         * Returns the estimated size of the events in bytes.
+         *
+         * @return the estimated size of the events
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Returns the sequence number of the last cached event.
+         *
+         * @return the last cached sequence number
+         */
+        public long getLastSequenceNumber() {
+            return events.get(events.size() - 1).getSequenceNumber();
+        }
+    }
+}
@@ -17,6 +17,7 @@ package io.axoniq.axonhub.client.event.axon;
 
 import com.google.protobuf.ByteString;
 import io.axoniq.axondb.Event;
+import io.axoniq.axondb.grpc.Confirmation;
 import io.axoniq.axondb.grpc.EventWithToken;
 import io.axoniq.axondb.grpc.GetAggregateEventsRequest;
 import io.axoniq.axondb.grpc.GetEventsRequest;
@@ -28,11 +29,16 @@ import io.axoniq.axonhub.client.ErrorCode;
 import io.axoniq.axonhub.client.PlatformConnectionManager;
 import io.axoniq.axonhub.client.event.AppendEventTransaction;
 import io.axoniq.axonhub.client.event.AxonDBClient;
+import io.axoniq.axonhub.client.event.EventSegmentCache;
+import io.axoniq.axonhub.client.event.GroupCommitEventAppender;
 import io.axoniq.axonhub.client.util.FlowControllingStreamObserver;
 import io.axoniq.axonhub.client.util.GrpcMetaDataConverter;
 import io.grpc.stub.StreamObserver;
+import org.axonframework.commandhandling.model.ConcurrencyException;
 import org.axonframework.common.Assert;
+import org.axonframework.common.AxonException;
 import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.eventhandling.TrackedEventMessage;
 import org.axonframework.eventsourcing.DomainEventMessage;
 import org.axonframework.eventsourcing.GenericDomainEventMessage;
 import org.axonframework.eventsourcing.eventstore.AbstractEventStorageEngine;
@@ -45,6 +51,7 @@ import org.axonframework.eventsourcing.eventstore.GlobalSequenceTrackingToken;
 import org.axonframework.eventsourcing.eventstore.TrackedEventData;
 import org.axonframework.eventsourcing.eventstore.TrackingEventStream;
 import org.axonframework.eventsourcing.eventstore.TrackingToken;
+import org.axonframework.messaging.StreamableMessageSource;
 import org.axonframework.messaging.unitofwork.CurrentUnitOfWork;
 import org.axonframework.serialization.MessageSerializer;
 import org.axonframework.serialization.SerializedObject;
@@ -54,13 +61,28 @@ import org.axonframework.serialization.upcasting.event.NoOpEventUpcaster;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Paths;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.axonframework.common.ObjectUtils.getOrDefault;
 
@@ -121,10 +143,187 @@ public class AxonHubEventStore extends AbstractEventStore {
     public TrackingEventStream openStream(TrackingToken trackingToken) {
         return storageEngine().openStream(trackingToken);
     }
+
+    /**
+     * Opens an event stream that only decodes the events with a payload type accepted by given
+     * {@code payloadTypeFilter}. Other events are skipped without being decrypted, upcast or deserialized. The filter
+     * is tested against the payload type as stored, before upcasting.
+     * <p>
+     * Skipped events are handed out as placeholder messages with a {@link SkippedEvent} payload, carrying the tracking
+     * token of the skipped event. This way, the tracking token of a processor using this stream advances past skipped
+     * events, even when no matching event follows.
+     *
+     * @param trackingToken     the token of the last processed event, or {@code null} to start at the beginning
+     * @param payloadTypeFilter predicate on the serialized payload type of events
+     * @return a stream of the events with an accepted payload type, and placeholders for the others
+     * @see PayloadTypeFilter
+     */
+    public TrackingEventStream openStream(TrackingToken trackingToken, Predicate<String> payloadTypeFilter) {
+        return storageEngine().openStream(trackingToken, payloadTypeFilter);
+    }
+
+    /**
+     * Returns a message source for tracking event processors that only decodes the events with a payload type accepted
+     * by given {@code payloadTypeFilter}, handing out placeholders for the others. See
+     * {@link #openStream(TrackingToken, Predicate)}.
+     *
+     * @param payloadTypeFilter predicate on the serialized payload type of events
+     * @return a message source streaming the events with an accepted payload type
+     */
+    public StreamableMessageSource<TrackedEventMessage<?>> withPayloadTypeFilter(Predicate<String> payloadTypeFilter) {
+        return new StreamableMessageSource<TrackedEventMessage<?>>() {
+            @Override
+            public TrackingEventStream openStream(TrackingToken trackingToken) {
+                return AxonHubEventStore.this.openStream(trackingToken, payloadTypeFilter);
+            }
+
+            @Override
+            public TrackingToken createTailToken() {
+                return AxonHubEventStore.this.createTailToken();
+            }
+
+            @Override
+            public TrackingToken createHeadToken() {
+                return AxonHubEventStore.this.createHeadToken();
+            }
+
+            @Override
+            public TrackingToken createTokenAt(Instant dateTime) {
+                return AxonHubEventStore.this.createTokenAt(dateTime);
+            }
+        };
+    }
+
+    /**
+     * Opens an event stream that replays the events between given {@code trackingToken} and the current head of the
+     * event store through {@code segments} parallel streams. The token range is split into contiguous ranges, each
+     * read through its own stream and flow control window. Events are handed out in token order: the stream reads the
+     * ranges one after the other, while the following ranges are fetched ahead. After the head, the stream continues
+     * with the events appended since.
+     *
+     * @param trackingToken the token of the last processed event, or {@code null} to start at the beginning
+     * @param segments      the number of parallel streams to read the events with
+     * @return a stream of the events following the given token
+     */
+    public TrackingEventStream openParallelStream(TrackingToken trackingToken, int segments) {
+        return storageEngine().openParallelStream(trackingToken, createHeadToken(), segments);
+    }
+
+    /**
+     * Opens {@code segments} streams, each reading a contiguous range of the events following token {@code from} up to
+     * and including the event with token {@code to}. The streams can be processed concurrently, each by its own
+     * thread, by projections that do not depend on the order of events across ranges. A stream is exhausted once it
+     * has handed out the last event of its range.
+     * <p>
+     * Ranges contain at least one event, so fewer streams are opened when the range holds fewer events than
+     * {@code segments}, and none when {@code to} does not follow {@code from}.
+     *
+     * @param from     the token of the last event before the range, or {@code null} to start at the beginning
+     * @param to       the token of the last event in the range
+     * @param segments the number of ranges to split the events into
+     * @return the streams of the ranges, in token order, or an empty list if the range holds no events
+     */
+    public List<TokenRangeEventStream> openRangeStreams(TrackingToken from, TrackingToken to, int segments) {
+        return storageEngine().openRangeStreams(from, to, segments, false);
+    }
+
+    /**
+     * Returns a message source for tracking event processors that replays the events between the token of the
+     * processor and the head of the event store through up to {@code segments} parallel streams, see
+     * {@link #openParallelStream(TrackingToken, int)}. Segments contain at least {@code minSegmentSize} events, so
+     * that processors close to the head open a single stream.
+     *
+     * @param segments       the maximum number of parallel streams
+     * @param minSegmentSize the minimum number of events read by a stream
+     * @return a message source replaying events through parallel streams
+     */
+    public StreamableMessageSource<TrackedEventMessage<?>> withParallelReplay(int segments, long minSegmentSize) {
+        return new StreamableMessageSource<TrackedEventMessage<?>>() {
+            @Override
+            public TrackingEventStream openStream(TrackingToken trackingToken) {
+                TrackingToken headToken = createHeadToken();
+                long events = storageEngine().index(headToken) - storageEngine().index(trackingToken);
+                int effectiveSegments = (int) Math.min(segments, events / Math.max(1, minSegmentSize));
+                if (effectiveSegments <= 1) {
+                    return AxonHubEventStore.this.openStream(trackingToken);
+                }
+                return storageEngine().openParallelStream(trackingToken, headToken, effectiveSegments);
+            }
+
+            @Override
+            public TrackingToken createTailToken() {
+                return AxonHubEventStore.this.createTailToken();
+            }
+
+            @Override
+            public TrackingToken createHeadToken() {
+                return AxonHubEventStore.this.createHeadToken();
+            }
+
+            @Override
+            public TrackingToken createTokenAt(Instant dateTime) {
+                return AxonHubEventStore.this.createTokenAt(dateTime);
+            }
+        };
+    }
+
+    /**
+     * Prepares a stream of the events following given {@code trackingToken} with a payload type accepted by given
+     * {@code payloadTypeFilter}, to be started with a reactive sink. Used by {@link ReactiveEventStore}, which keeps
+     * the optional dependency on reactor-core out of this class.
+     *
+     * @param trackingToken     the token of the last processed event, or {@code null} to start at the beginning
+     * @param payloadTypeFilter predicate on the serialized payload type of events
+     * @return the stream, not yet connected to AxonHub
+     */
+    ReactiveEventStream createReactiveStream(TrackingToken trackingToken, Predicate<String> payloadTypeFilter) {
+        return storageEngine().createReactiveStream(trackingToken, payloadTypeFilter);
+    }
+
     public QueryResultStream query(String query, boolean liveUpdates) {
         return storageEngine().query(query, liveUpdates);
     }
 
+    /**
+     * Returns the catch-up trackers of the event streams currently open, reporting the phase of each stream and its
+     * distance to the head of the event store. Returns an empty list when catch-up detection is not enabled in the
+     * configuration.
+     *
+     * @return the catch-up trackers of the open event streams
+     */
+    public List<CatchUpTracker> getCatchUpTrackers() {
+        return new ArrayList<>(storageEngine().catchUpTrackers);
+    }
+
+    /**
+     * Returns the local cache of the global event stream, or {@code null} when the event cache is not enabled in the
+     * configuration.
+     *
+     * @return the event cache, or {@code null}
+     */
+    public EventSegmentCache getEventCache() {
+        return storageEngine().eventCache;
+    }
+
+    /**
+     * Returns the cache holding the events of recently read aggregates, or {@code null} when the aggregate event cache
+     * is not enabled in the configuration.
+     *
+     * @return the aggregate event cache, or {@code null}
+     */
+    public AggregateEventCache getAggregateEventCache() {
+        return storageEngine().aggregateEventCache;
+    }
+
+    /**
+     * Releases the resources held by this event store, such as the lock on the event cache directory and the threads
+     * processing received events. Pending group commits are sent. Events can no longer be cached or appended in groups
+     * after shutdown, and streams with parallel event processing can no longer be opened.
+     */
+    public void shutdown() {
+        storageEngine().shutdown();
+    }
+
     @Override
     protected AxonIQEventStorageEngine storageEngine() {
         return (AxonIQEventStorageEngine) super.storageEngine();
@@ -134,21 +333,38 @@ public class AxonHubEventStore extends AbstractEventStore {
 
         private static final int ALLOW_SNAPSHOTS_MAGIC_VALUE = -42;
         private final String APPEND_EVENT_TRANSACTION = this + "/APPEND_EVENT_TRANSACTION";
+        private final String APPENDED_AGGREGATES = this + "/APPENDED_AGGREGATES";
+        private final String GROUPED_EVENTS = this + "/GROUPED_EVENTS";
 
         private final EventUpcaster upcasterChain;
         private final AxonHubConfiguration configuration;
         private final AxonDBClient eventStoreClient;
         private final GrpcMetaDataConverter converter;
+        private final AggregateEventCache aggregateEventCache;
+        private final GroupCommitEventAppender groupCommitEventAppender;
+        private final ExecutorService eventProcessingExecutor;
+        private final SharedEventStreamSource sharedEventStreamSource;
+        private final Set<CatchUpTracker> catchUpTrackers = ConcurrentHashMap.newKeySet();
+        private final EventSegmentCache eventCache;
+        private final GrpcMetaDataAwareSerializer snapshotSerializer;
+        private final GrpcMetaDataAwareSerializer eventSerializer;
 
         private AxonIQEventStorageEngine(Serializer serializer,
                                          EventUpcaster upcasterChain,
                                          AxonHubConfiguration configuration,
                                          AxonDBClient eventStoreClient) {
             super(serializer, upcasterChain, null);
-            this.upcasterChain = getOrDefault(upcasterChain, NoOpEventUpcaster.INSTANCE);
+            this.upcasterChain = createUpcasterChain(upcasterChain, configuration);
             this.configuration = configuration;
             this.eventStoreClient = eventStoreClient;
             this.converter = new GrpcMetaDataConverter(serializer);
+            this.aggregateEventCache = createAggregateEventCache(configuration);
+            this.groupCommitEventAppender = createGroupCommitEventAppender(configuration, eventStoreClient);
+            this.eventProcessingExecutor = createEventProcessingExecutor(configuration);
+            this.sharedEventStreamSource = createSharedEventStreamSource(configuration);
+            this.eventCache = createEventCache(configuration);
+            this.snapshotSerializer = new GrpcMetaDataAwareSerializer(getSerializer());
+            this.eventSerializer = new GrpcMetaDataAwareSerializer(getEventSerializer());
         }
 
         private AxonIQEventStorageEngine(Serializer snapshotSerializer,
@@ -157,43 +373,155 @@ public class AxonHubEventStore extends AbstractEventStore {
                                          AxonHubConfiguration configuration,
                                          AxonDBClient eventStoreClient) {
             super(snapshotSerializer, upcasterChain, null, serializer, null);
-            this.upcasterChain = getOrDefault(upcasterChain, NoOpEventUpcaster.INSTANCE);
+            this.upcasterChain = createUpcasterChain(upcasterChain, configuration);
             this.configuration = configuration;
             this.eventStoreClient = eventStoreClient;
             this.converter = new GrpcMetaDataConverter(serializer);
+            this.aggregateEventCache = createAggregateEventCache(configuration);
+            this.groupCommitEventAppender = createGroupCommitEventAppender(configuration, eventStoreClient);
+            this.eventProcessingExecutor = createEventProcessingExecutor(configuration);
+            this.sharedEventStreamSource = createSharedEventStreamSource(configuration);
+            this.eventCache = createEventCache(configuration);
+            this.snapshotSerializer = new GrpcMetaDataAwareSerializer(getSerializer());
+            this.eventSerializer = new GrpcMetaDataAwareSerializer(getEventSerializer());
+        }
+
+        private static EventUpcaster createUpcasterChain(EventUpcaster upcasterChain,
+                                                         AxonHubConfiguration configuration) {
+            if (upcasterChain == null || upcasterChain == NoOpEventUpcaster.INSTANCE) {
+                return NoOpEventUpcaster.INSTANCE;
+            }
+            return configuration.isUpcasterShortCircuit() ? new ShortCircuitEventUpcaster(upcasterChain) : upcasterChain;
+        }
+
+        private static AggregateEventCache createAggregateEventCache(AxonHubConfiguration configuration) {
+            if (configuration.getAggregateCacheMaxEntries() <= 0) {
+                return null;
+            }
+            return new AggregateEventCache(configuration.getAggregateCacheMaxEntries(),
+                                           configuration.getAggregateCacheMaxBytes());
+        }
+
+        private static GroupCommitEventAppender createGroupCommitEventAppender(AxonHubConfiguration configuration,
+                                                                               AxonDBClient eventStoreClient) {
+            if (!configuration.isGroupCommit()) {
+                return null;
+            }
+            return new GroupCommitEventAppender(eventStoreClient::createAppendEventConnection,
+                                                configuration.getGroupCommitLingerTime(),
+                                                configuration.getGroupCommitMaxBytes());
+        }
+
+        private SharedEventStreamSource createSharedEventStreamSource(AxonHubConfiguration configuration) {
+            if (!configuration.isSharedEventStream()) {
+                return null;
+            }
+            return new SharedEventStreamSource(trackingToken -> openStream(trackingToken, payloadType -> true),
+                                               configuration.getSharedEventStreamWindow());
+        }
+
+        private static EventSegmentCache createEventCache(AxonHubConfiguration configuration) {
+            if (configuration.getEventCacheDirectory() == null) {
+                return null;
+            }
+            return new EventSegmentCache(Paths.get(configuration.getEventCacheDirectory()),
+                                         configuration.getServers() + "/" + configuration.getContext(),
+                                         configuration.getEventCacheSegmentSize(),
+                                         configuration.getEventCacheMaxSize());
+        }
+
+        private static ExecutorService createEventProcessingExecutor(AxonHubConfiguration configuration) {
+            if (configuration.getEventProcessingThreads() <= 0) {
+                return null;
+            }
+            AtomicInteger threadNumber = new AtomicInteger();
+            return Executors.newFixedThreadPool(configuration.getEventProcessingThreads(), r -> {
+                Thread thread = new Thread(r, "EventProcessing-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
         }
 
         @Override
         protected void appendEvents(List<? extends EventMessage<?>> events, Serializer serializer) {
+            if (groupCommitEventAppender != null) {
+                appendGroupedEvents(events, serializer);
+                return;
+            }
             AppendEventTransaction sender;
+            Set<String> aggregateIdentifiers;
             if (CurrentUnitOfWork.isStarted()) {
+                aggregateIdentifiers = CurrentUnitOfWork.get().root().getOrComputeResource(APPENDED_AGGREGATES, k -> new HashSet<>());
                 sender = CurrentUnitOfWork.get().root().getOrComputeResource(APPEND_EVENT_TRANSACTION, k -> {
                     AppendEventTransaction appendEventTransaction = eventStoreClient.createAppendEventConnection();
                     CurrentUnitOfWork.get().root().onRollback(u -> appendEventTransaction.rollback(u.getExecutionResult().getExceptionResult()));
-                    CurrentUnitOfWork.get().root().onCommit(u -> commit(appendEventTransaction));
+                    CurrentUnitOfWork.get().root().onCommit(u -> commit(appendEventTransaction, aggregateIdentifiers));
                     return appendEventTransaction;
                 });
             } else {
+                aggregateIdentifiers = new HashSet<>();
                 sender = eventStoreClient.createAppendEventConnection();
             }
             for (EventMessage<?> eventMessage : events) {
+                addAggregateIdentifier(eventMessage, aggregateIdentifiers);
                 sender.append(map(eventMessage, serializer));
             }
             if (!CurrentUnitOfWork.isStarted()) {
-                commit(sender);
+                commit(sender, aggregateIdentifiers);
             }
         }
 
-        private void commit(AppendEventTransaction appendEventTransaction) {
+        private void appendGroupedEvents(List<? extends EventMessage<?>> events, Serializer serializer) {
+            List<Event> groupedEvents;
+            Set<String> aggregateIdentifiers;
+            if (CurrentUnitOfWork.isStarted()) {
+                aggregateIdentifiers = CurrentUnitOfWork.get().root().getOrComputeResource(APPENDED_AGGREGATES, k -> new HashSet<>());
+                groupedEvents = CurrentUnitOfWork.get().root().getOrComputeResource(GROUPED_EVENTS, k -> {
+                    List<Event> eventsInUnitOfWork = new ArrayList<>();
+                    CurrentUnitOfWork.get().root().onCommit(u -> awaitConfirmation(
+                            groupCommitEventAppender.append(eventsInUnitOfWork), aggregateIdentifiers));
+                    return eventsInUnitOfWork;
+                });
+            } else {
+                aggregateIdentifiers = new HashSet<>();
+                groupedEvents = new ArrayList<>();
+            }
+            for (EventMessage<?> eventMessage : events) {
+                addAggregateIdentifier(eventMessage, aggregateIdentifiers);
+                groupedEvents.add(map(eventMessage, serializer));
+            }
+            if (!CurrentUnitOfWork.isStarted()) {
+                awaitConfirmation(groupCommitEventAppender.append(groupedEvents), aggregateIdentifiers);
+            }
+        }
+
+        private void addAggregateIdentifier(EventMessage<?> eventMessage, Set<String> aggregateIdentifiers) {
+            if (eventMessage instanceof DomainEventMessage) {
+                aggregateIdentifiers.add(((DomainEventMessage<?>) eventMessage).getAggregateIdentifier());
+            }
+        }
+
+        private void commit(AppendEventTransaction appendEventTransaction, Set<String> aggregateIdentifiers) {
+            awaitConfirmation(appendEventTransaction.commitAsync(), aggregateIdentifiers);
+        }
+
+        private void awaitConfirmation(CompletableFuture<Confirmation> confirmation, Set<String> aggregateIdentifiers) {
             try {
-                appendEventTransaction.commit();
+                confirmation.get(10, TimeUnit.SECONDS);
             } catch (ExecutionException e) {
-                throw ErrorCode.convert(e.getCause());
+                throw invalidateOnConcurrencyException(ErrorCode.convert(e.getCause()), aggregateIdentifiers);
             } catch (TimeoutException | InterruptedException e) {
                 throw ErrorCode.convert(e);
             }
         }
 
+        private AxonException invalidateOnConcurrencyException(AxonException exception, Set<String> aggregateIdentifiers) {
+            if (exception instanceof ConcurrencyException && aggregateEventCache != null) {
+                aggregateIdentifiers.forEach(aggregateEventCache::invalidate);
+            }
+            return exception;
+        }
+
         public Event map(EventMessage eventMessage, Serializer serializer) {
             Event.Builder builder = Event.newBuilder();
             if (eventMessage instanceof GenericDomainEventMessage) {
@@ -208,7 +536,7 @@ public class AxonHubEventStore extends AbstractEventStore {
                                                                     .setRevision(getOrDefault(serializedPayload.getType().getRevision(), ""))
                                                                     .setData(ByteString.copyFrom(serializedPayload.getData())))
                    .setTimestamp(eventMessage.getTimestamp().toEpochMilli());
-            eventMessage.getMetaData().forEach((k, v) -> builder.putMetaData(k, converter.convertToMetaDataValue(v)));
+            builder.putAllMetaData(converter.convertToMetaDataValues(eventMessage.getMetaData()));
             return builder.build();
         }
 
@@ -242,22 +570,87 @@ public class AxonHubEventStore extends AbstractEventStore {
             } else if (firstSequenceNumber == ALLOW_SNAPSHOTS_MAGIC_VALUE) {
                 request.setAllowSnapshots(true);
             }
+            if (configuration.isStreamAggregateEvents() && CurrentUnitOfWork.isStarted()) {
+                return streamEventData(request.build());
+            }
             try {
-                return eventStoreClient.listAggregateEvents(request.build()).map(GrpcBackedDomainEventData::new);
+                return eventStoreClient.listAggregateEvents(request.build(), false)
+                                       .map(event -> new ByteStringDomainEventData(event, eventStoreClient::decode));
             } catch (Exception e) {
                 throw ErrorCode.convert(e);
             }
         }
 
+        /**
+         * Reads the events of an aggregate as they are received from the server. The returned stream holds on to a
+         * server call until all events have been read, or until the stream is closed. As it is also closed when the
+         * current unit of work is cleaned up, streaming is only used while a unit of work is active.
+         */
+        private Stream<? extends DomainEventData<?>> streamEventData(GetAggregateEventsRequest request) {
+            Stream<Event> events;
+            try {
+                events = eventStoreClient.streamAggregateEvents(request, configuration.getAggregateEventsPrefetch(), false);
+            } catch (Exception e) {
+                throw ErrorCode.convert(e);
+            }
+            CurrentUnitOfWork.get().onCleanup(u -> events.close());
+            Iterator<Event> iterator = events.iterator();
+            Iterator<Event> converting = new Iterator<Event>() {
+                @Override
+                public boolean hasNext() {
+                    try {
+                        if (iterator.hasNext()) {
+                            return true;
+                        }
+                    } catch (Exception e) {
+                        events.close();
+                        throw ErrorCode.convert(e);
+                    }
+                    events.close();
+                    return false;
+                }
+
+                @Override
+                public Event next() {
+                    return iterator.next();
+                }
+            };
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(converting, Spliterator.ORDERED), false)
+                                .onClose(events::close)
+                                .map(event -> new ByteStringDomainEventData(event, eventStoreClient::decode));
+        }
+
         public TrackingEventStream openStream(TrackingToken trackingToken) {
-            Assert.isTrue(trackingToken == null || trackingToken instanceof GlobalSequenceTrackingToken,
-                          () -> "Invalid tracking token type. Must be GlobalSequenceTrackingToken.");
-            long nextToken = trackingToken == null ? 0 : ((GlobalSequenceTrackingToken) trackingToken).getGlobalIndex() + 1;
-            EventBuffer consumer = new EventBuffer(upcasterChain, getEventSerializer(), configuration.getHeartbeatInterval());
+            if (sharedEventStreamSource != null) {
+                return sharedEventStreamSource.openStream(trackingToken);
+            }
+            return openStream(trackingToken, payloadType -> true);
+        }
+
+        public TrackingEventStream openStream(TrackingToken trackingToken, Predicate<String> payloadTypeFilter) {
+            long nextToken = nextToken(trackingToken);
+            if (eventCache != null && eventCache.covers(nextToken - 1)) {
+                logger.info("open stream from event cache: {}", nextToken);
+                return new CachedEventStream(eventCache.read(nextToken - 1), nextToken - 1,
+                                             lastToken -> openServerStream(lastToken + 1, payloadTypeFilter),
+                                             payloadTypeFilter, eventStoreClient::decode, getEventSerializer(),
+                                             upcasterChain);
+            }
+            return openServerStream(nextToken, payloadTypeFilter);
+        }
+
+        private TrackingEventStream openServerStream(long nextToken, Predicate<String> payloadTypeFilter) {
+            EventBuffer consumer = new EventBuffer(upcasterChain, getEventSerializer(), configuration.getHeartbeatInterval(),
+                                                   configuration.getEventBufferMaxBytes(), eventProcessingExecutor,
+                                                   configuration.getEventProcessingPipelineSize(), eventStoreClient::decode);
+            consumer.registerPayloadTypeFilter(payloadTypeFilter);
+            CatchUpTracker catchUpTracker = createCatchUpTracker(nextToken);
 
             logger.info("open stream: {}", nextToken);
 
             StreamObserver<GetEventsRequest> requestStream = eventStoreClient.listEvents(new StreamObserver<EventWithToken>() {
+                private long previousToken = nextToken - 1;
+
                 @Override
                 public void onNext(EventWithToken eventWithToken) {
                     if (Event.getDefaultInstance().equals(eventWithToken.getEvent())) {
@@ -266,6 +659,13 @@ public class AxonHubEventStore extends AbstractEventStore {
                         consumer.touch();
                     } else {
                         logger.debug("Received event with token: {}", eventWithToken.getToken());
+                        if (catchUpTracker != null) {
+                            catchUpTracker.received(eventWithToken.getToken());
+                        }
+                        if (eventCache != null) {
+                            eventCache.offer(previousToken, eventWithToken);
+                            previousToken = eventWithToken.getToken();
+                        }
                         consumer.push(eventWithToken);
                     }
                 }
@@ -279,24 +679,100 @@ public class AxonHubEventStore extends AbstractEventStore {
                 public void onCompleted() {
                     consumer.fail(new EventStoreException("Error while reading events from the server", new RuntimeException("Connection closed by server")));
                 }
-            });
+            }, false);
             FlowControllingStreamObserver<GetEventsRequest> observer = new FlowControllingStreamObserver<>(
-                    requestStream, configuration, t-> GetEventsRequest.newBuilder().setNumberOfPermits(t.getPermits()).build(), t-> false);
+                    requestStream, configuration, t-> GetEventsRequest.newBuilder().setNumberOfPermits(t.getPermits()).build(), t-> false,
+                    catchUpTracker == null ? consumer::permitsWithinBudget : (requested, outstanding) ->
+                            catchUpTracker.limitPermits(consumer.permitsWithinBudget(requested, outstanding), outstanding));
+            consumer.registerCloseListener((eventConsumer) -> {
+                if (catchUpTracker != null) {
+                    catchUpTrackers.remove(catchUpTracker);
+                }
+                observer.onCompleted();
+            });
+            consumer.registerConsumeListener(observer::markConsumed);
 
             GetEventsRequest request = GetEventsRequest.newBuilder()
                                                        .setTrackingToken(nextToken)
                                                         .setClient(configuration.getClientName())
                                                         .setComponent(configuration.getComponentName())
                                                        .setHeartbeatInterval(configuration.getHeartbeatInterval())
-                                                       .setNumberOfPermits(configuration.getInitialNrOfPermits())
+                                                       .setNumberOfPermits(observer.getInitialPermits())
                                                        .build();
             observer.onNext(request);
-
-            consumer.registerCloseListener((eventConsumer) -> observer.onCompleted());
-            consumer.registerConsumeListener(observer::markConsumed);
             return consumer;
         }
 
+        private CatchUpTracker createCatchUpTracker(long nextToken) {
+            if (configuration.getLiveThreshold() <= 0) {
+                return null;
+            }
+            CatchUpTracker catchUpTracker = new CatchUpTracker(
+                    () -> eventStoreClient.getLastToken().thenApply(io.axoniq.axondb.grpc.TrackingToken::getToken),
+                    nextToken - 1, configuration.getLiveThreshold(), configuration.getLivePermits(),
+                    configuration.getHeadTokenRefreshInterval());
+            catchUpTrackers.add(catchUpTracker);
+            return catchUpTracker;
+        }
+
+        public void shutdown() {
+            if (groupCommitEventAppender != null) {
+                groupCommitEventAppender.shutdown();
+            }
+            if (eventProcessingExecutor != null) {
+                eventProcessingExecutor.shutdown();
+            }
+            if (eventCache != null) {
+                eventCache.close();
+            }
+        }
+
+        public ReactiveEventStream createReactiveStream(TrackingToken trackingToken,
+                                                        Predicate<String> payloadTypeFilter) {
+            return new ReactiveEventStream(eventStoreClient, configuration, upcasterChain, getEventSerializer(),
+                                           payloadTypeFilter, nextToken(trackingToken));
+        }
+
+        public TrackingEventStream openParallelStream(TrackingToken trackingToken, TrackingToken headToken,
+                                                      int segments) {
+            return new ParallelReplayStream(openRangeStreams(trackingToken, headToken, segments, true));
+        }
+
+        public List<TokenRangeEventStream> openRangeStreams(TrackingToken from, TrackingToken to, int segments,
+                                                            boolean openEnded) {
+            long first = index(from);
+            long last = index(to);
+            if (!openEnded && last <= first) {
+                return Collections.emptyList();
+            }
+            int rangeCount = (int) Math.max(1, Math.min(segments, last - first));
+            List<TokenRangeEventStream> ranges = new ArrayList<>(rangeCount);
+            try {
+                for (int i = 0; i < rangeCount; i++) {
+                    long start = first + (last - first) * i / rangeCount;
+                    long end = first + (last - first) * (i + 1) / rangeCount;
+                    TrackingToken startToken = start < 0 ? null : new GlobalSequenceTrackingToken(start);
+                    ranges.add(new TokenRangeEventStream(openStream(startToken, payloadType -> true),
+                                                         openEnded && i == rangeCount - 1 ? Long.MAX_VALUE : end));
+                }
+            } catch (RuntimeException e) {
+                ranges.forEach(TokenRangeEventStream::close);
+                throw e;
+            }
+            logger.info("open {} range streams: {} - {}", rangeCount, first + 1, last);
+            return ranges;
+        }
+
+        private long index(TrackingToken trackingToken) {
+            return nextToken(trackingToken) - 1;
+        }
+
+        private long nextToken(TrackingToken trackingToken) {
+            Assert.isTrue(trackingToken == null || trackingToken instanceof GlobalSequenceTrackingToken,
+                          () -> "Invalid tracking token type. Must be GlobalSequenceTrackingToken.");
+            return trackingToken == null ? 0 : ((GlobalSequenceTrackingToken) trackingToken).getGlobalIndex() + 1;
+        }
+
         public QueryResultStream query(String query, boolean liveUpdates) {
             QueryResultBuffer consumer = new QueryResultBuffer();
 
@@ -335,23 +811,48 @@ public class AxonHubEventStore extends AbstractEventStore {
 
         @Override
         public DomainEventStream readEvents(String aggregateIdentifier) {
+            if (aggregateEventCache != null) {
+                return readCachedEvents(aggregateIdentifier);
+            }
             Stream<? extends DomainEventData<?>> input = this.readEventData(aggregateIdentifier, ALLOW_SNAPSHOTS_MAGIC_VALUE);
-            return DomainEventStream.of(input.map(this::upcastAndDeserializeDomainEvent).filter(Objects::nonNull));
+            return upcastAndDeserializeDomainEvents(input);
+        }
+
+        private DomainEventStream readCachedEvents(String aggregateIdentifier) {
+            AggregateEventCache.Entry cached = aggregateEventCache.get(aggregateIdentifier);
+            List<DomainEventMessage<?>> cachedEvents = cached == null ? Collections.emptyList() : cached.getEvents();
+            CachingDomainEventStream.CacheableEvents cacheableEvents = new CachingDomainEventStream.CacheableEvents(
+                    cachedEvents, cached == null ? 0 : cached.getSize(), aggregateEventCache::fits);
+            long firstSequenceNumber = cached == null ? ALLOW_SNAPSHOTS_MAGIC_VALUE
+                    : cached.getLastSequenceNumber() + 1;
+            Stream<? extends DomainEventData<?>> input =
+                    this.readEventData(aggregateIdentifier, firstSequenceNumber)
+                        .peek(eventData -> cacheableEvents.read(estimateSize(eventData), isSnapshot(eventData)));
+            return new CachingDomainEventStream(cachedEvents, upcastAndDeserializeDomainEvents(input), cacheableEvents,
+                                                events -> aggregateEventCache.put(aggregateIdentifier,
+                                                                                  events.getEvents(),
+                                                                                  events.getSize()));
+        }
+
+        private long estimateSize(DomainEventData<?> domainEventData) {
+            if (domainEventData instanceof ByteStringDomainEventData) {
+                return ((ByteStringDomainEventData) domainEventData).getSerializedSize();
+            }
+            Object data = domainEventData.getPayload().getData();
+            return data instanceof byte[] ? ((byte[]) data).length : 0;
         }
 
-        private  DomainEventMessage<?> upcastAndDeserializeDomainEvent(DomainEventData<?> domainEventData) {
-            DomainEventStream upcastedStream = EventUtils.upcastAndDeserializeDomainEvents(Stream.of(domainEventData),
-                                                                                           new GrpcMetaDataAwareSerializer(
-                                                                                                   isSnapshot(
-                                                                                                           domainEventData) ? getSerializer() : getEventSerializer()),
-                                                                                           upcasterChain,
-                                                                                           false);
-            return upcastedStream.hasNext() ? upcastedStream.next() : null;
+        private DomainEventStream upcastAndDeserializeDomainEvents(Stream<? extends DomainEventData<?>> input) {
+            return new SegmentedDomainEventStream(input, this::isSnapshot, (segment, snapshots) ->
+                    EventUtils.upcastAndDeserializeDomainEvents(segment,
+                                                                snapshots ? snapshotSerializer : eventSerializer,
+                                                                upcasterChain,
+                                                                false));
         }
 
         private boolean isSnapshot(DomainEventData<?> domainEventData) {
-            if( domainEventData instanceof GrpcBackedDomainEventData) {
-                GrpcBackedDomainEventData grpcBackedDomainEventData = (GrpcBackedDomainEventData)domainEventData;
+            if( domainEventData instanceof ByteStringDomainEventData) {
+                ByteStringDomainEventData grpcBackedDomainEventData = (ByteStringDomainEventData)domainEventData;
                 return grpcBackedDomainEventData.isSnapshot();
             }
             return false;
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event.axon;
+
+import com.google.protobuf.ByteString;
+import io.axoniq.axondb.Event;
+import io.axoniq.axonhub.client.util.ByteStringSerializedObjects;
+import org.axonframework.eventsourcing.eventstore.DomainEventData;
+import org.axonframework.serialization.SerializedMetaData;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.SerializedType;
+import org.axonframework.serialization.SimpleSerializedType;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * DomainEventData implementation that provides the payload of a protobuf {@link Event} message as the
+ * {@link ByteString} contained in the message, without copying the data. Used by the event store for the events it
+ * reads; its {@link GrpcMetaDataAwareSerializer} passes the ByteString to serializers able to read from it through
+ * their converter, and copies it to a byte array for others.
+ * <p>
+ * Like {@link GrpcBackedDomainEventData}, the SerializedObject for MetaData contains the
+ * {@link Event#getMetaDataMap() MetaDataMap} defined in the protobuf message. When a payload decryptor is given, the
+ * payload data is decrypted on first access of the data. The payload type and all other properties of the event are
+ * available without decrypting.
+ */
+class ByteStringDomainEventData implements DomainEventData<ByteString> {
+
+    private final Event event;
+    private final UnaryOperator<Event> payloadDecryptor;
+    private volatile ByteString decryptedData;
+
+    /**
+     * Initialize using the given {@code event} as the source of raw data.
+     *
+     * @param event The protobuf Event message containing the raw data
+     */
+    ByteStringDomainEventData(Event event) {
+        this(event, null);
+    }
+
+    /**
+     * Initialize using the given {@code event} as the source of raw data, decrypting the payload data using given
+     * {@code payloadDecryptor} when it is first accessed.
+     *
+     * @param event            The protobuf Event message containing the raw data, with encrypted payload data
+     * @param payloadDecryptor The function decrypting the event, or {@code null} if the event is not encrypted
+     */
+    ByteStringDomainEventData(Event event, UnaryOperator<Event> payloadDecryptor) {
+        this.event = event;
+        this.payloadDecryptor = payloadDecryptor;
+    }
+
+    @Override
+    public String getType() {
+        String aggregateType = event.getAggregateType();
+        return "".equals(aggregateType) ? null : aggregateType;
+    }
+
+    @Override
+    public String getAggregateIdentifier() {
+        String aggregateIdentifier = event.getAggregateIdentifier();
+        return "".equals(aggregateIdentifier) ? null : aggregateIdentifier;
+    }
+
+    @Override
+    public long getSequenceNumber() {
+        return event.getAggregateSequenceNumber();
+    }
+
+    @Override
+    public String getEventIdentifier() {
+        return event.getMessageIdentifier();
+    }
+
+    @Override
+    public Instant getTimestamp() {
+        return Instant.ofEpochMilli(event.getTimestamp());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Note that this implementation breaks the contract of {@link DomainEventData#getMetaData()}, in that it doesn't
+     * return the serialized data as a byte array, but as a {@link Event#getMetaDataMap() MetaDataMap}
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public SerializedObject getMetaData() {
+        return new SerializedMetaData(event.getMetaDataMap(), Map.class);
+    }
+
+    @Override
+    public SerializedObject<ByteString> getPayload() {
+        if (payloadDecryptor == null) {
+            return ByteStringSerializedObjects.of(event.getPayload());
+        }
+        return new DecryptingSerializedObject();
+    }
+
+    private ByteString decryptedData() {
+        ByteString data = decryptedData;
+        if (data == null) {
+            data = payloadDecryptor.apply(event).getPayload().getData();
+            decryptedData = data;
+        }
+        return data;
+    }
+
+    public boolean isSnapshot() {
+        return event.getSnapshot();
+    }
+
+    /**
+     * Returns the size of the event as received from the server, including its (possibly encrypted) payload.
+     *
+     * @return the serialized size of the event in bytes
+     */
+    public int getSerializedSize() {
+        return event.getSerializedSize();
+    }
+
+    private class DecryptingSerializedObject implements SerializedObject<ByteString> {
+
+        @Override
+        public Class<ByteString> getContentType() {
+            return ByteString.class;
+        }
+
+        @Override
+        public SerializedType getType() {
+            String revision = event.getPayload().getRevision();
+            return new SimpleSerializedType(event.getPayload().getType(), "".equals(revision) ? null : revision);
+        }
+
+        @Override
+        public ByteString getData() {
+            return decryptedData();
+        }
+    }
+
+}
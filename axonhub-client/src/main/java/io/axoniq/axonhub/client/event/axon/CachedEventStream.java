@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.axoniq.axonhub.client.event.axon;
+
+import io.axoniq.axondb.Event;
+import io.axoniq.axondb.grpc.EventWithToken;
+import org.axonframework.eventhandling.TrackedEventMessage;
+import org.axonframework.eventsourcing.eventstore.EventUtils;
+import org.axonframework.eventsourcing.eventstore.GlobalSequenceTrackingToken;
+import org.axonframework.eventsourcing.eventstore.TrackedDomainEventData;
+import org.axonframework.eventsourcing.eventstore.TrackingEventStream;
+import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.upcasting.event.EventUpcaster;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Event stream that reads events from the local event cache, and switches to a stream from the server once all cached
+ * events have been read. The server stream is opened at the token of the last cached event read, so that the
+ * consumer sees a single gapless stream.
+ */
+class CachedEventStream implements TrackingEventStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachedEventStream.class);
+
+    private final Iterator<TrackedEventMessage<?>> cachedMessages;
+    private final LongFunction<TrackingEventStream> serverStreamFactory;
+    private long lastToken;
+    private TrackedEventMessage<?> peekEvent;
+    private TrackingEventStream serverStream;
+    private boolean closed;
+
+    /**
+     * @param cachedEvents        the cached events following the token of the stream
+     * @param lastToken           the token of the last event before the stream
+     * @param serverStreamFactory function opening a server stream following given token
+     * @param payloadTypeFilter   predicate on the serialized payload type of events to hand out, other events are
+     *                            handed out as {@link SkippedEvent} placeholders
+     * @param payloadDecoder      the function decoding the payloads of cached events
+     * @param serializer          the serializer to deserialize events with
+     * @param upcasterChain       the upcasters to apply to events
+     */
+    CachedEventStream(Iterator<EventWithToken> cachedEvents, long lastToken,
+                      LongFunction<TrackingEventStream> serverStreamFactory, Predicate<String> payloadTypeFilter,
+                      UnaryOperator<Event> payloadDecoder, Serializer serializer,
+                      EventUpcaster upcasterChain) {
+        this.lastToken = lastToken;
+        this.serverStreamFactory = serverStreamFactory;
+        this.cachedMessages = new SkippingEventIterator<EventWithToken>(
+                () -> {
+                    if (!cachedEvents.hasNext()) {
+                        return null;
+                    }
+                    EventWithToken event = cachedEvents.next();
+                    this.lastToken = event.getToken();
+                    return event;
+                },
+                event -> payloadTypeFilter.test(event.getEvent().getPayload().getType()) ? null
+                        : SkippedEvent.asMessage(event.getToken(), event.getEvent()),
+                event -> new TrackedDomainEventData<>(new GlobalSequenceTrackingToken(event.getToken()),
+                                                      new ByteStringDomainEventData(event.getEvent(), payloadDecoder)),
+                eventData -> EventUtils.upcastAndDeserializeTrackedEvents(eventData, serializer, upcasterChain, true));
+    }
+
+    @Override
+    public Optional<TrackedEventMessage<?>> peek() {
+        if (serverStream != null) {
+            return serverStream.peek();
+        }
+        if (peekEvent == null && cachedMessages.hasNext()) {
+            peekEvent = cachedMessages.next();
+        }
+        return Optional.ofNullable(peekEvent);
+    }
+
+    @Override
+    public boolean hasNextAvailable(int timeout, TimeUnit unit) throws InterruptedException {
+        if (serverStream == null && (peekEvent != null || cachedMessages.hasNext())) {
+            return true;
+        }
+        TrackingEventStream server = serverStream();
+        return server != null && server.hasNextAvailable(timeout, unit);
+    }
+
+    @Override
+    public TrackedEventMessage<?> nextAvailable() throws InterruptedException {
+        if (peekEvent != null) {
+            TrackedEventMessage<?> event = peekEvent;
+            peekEvent = null;
+            return event;
+        }
+        if (serverStream == null && cachedMessages.hasNext()) {
+            return cachedMessages.next();
+        }
+        TrackingEventStream server = serverStream();
+        return server == null ? null : server.nextAvailable();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (serverStream != null) {
+            serverStream.close();
+        }
+    }
+
+    private TrackingEventStream serverStream() {
+        if (serverStream == null && !closed) {
+            logger.info("Read cached events up to token {}, switching to server", lastToken);
+            serverStream = serverStreamFactory.apply(lastToken);
+        }
+        return serverStream;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.axoniq.axonhub.client.event.axon;
+
+import org.axonframework.eventsourcing.DomainEventMessage;
+import org.axonframework.eventsourcing.eventstore.DomainEventStream;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+/**
+ * DomainEventStream that hands out the cached events of an aggregate, followed by the events read from the event
+ * store. The events read are collected while they are handed out, and passed to a callback together with the cached
+ * events once the stream is exhausted, so that the cache can be updated without reading the aggregate into memory
+ * first.
+ * <p>
+ * Collecting stops as soon as the events read can no longer be cached, because their estimated size exceeds the
+ * maximum size of the cache, or because they contain a snapshot. The callback is not invoked in that case.
+ */
+class CachingDomainEventStream implements DomainEventStream {
+
+    private final List<DomainEventMessage<?>> cached;
+    private final DomainEventStream delegate;
+    private final CacheableEvents cacheableEvents;
+    private final Consumer<CacheableEvents> onExhausted;
+    private int cachedIndex;
+    private DomainEventMessage<?> lastEvent;
+    private boolean exhausted;
+
+    /**
+     * @param cachedEvents    the cached events of the aggregate, possibly empty
+     * @param delegate        the events following the cached events, read from the event store
+     * @param cacheableEvents the events to cache, starting with the cached events, updated by the source of the
+     *                        delegate as events are read from the event store
+     * @param onExhausted     callback receiving the events to cache once the stream is exhausted
+     */
+    CachingDomainEventStream(List<DomainEventMessage<?>> cachedEvents, DomainEventStream delegate,
+                             CacheableEvents cacheableEvents, Consumer<CacheableEvents> onExhausted) {
+        this.cached = cachedEvents;
+        this.delegate = delegate;
+        this.cacheableEvents = cacheableEvents;
+        this.onExhausted = onExhausted;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (cachedIndex < cached.size() || delegate.hasNext()) {
+            return true;
+        }
+        if (!exhausted) {
+            exhausted = true;
+            if (cacheableEvents.isCacheable()) {
+                onExhausted.accept(cacheableEvents);
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public DomainEventMessage<?> next() {
+        if (cachedIndex < cached.size()) {
+            lastEvent = cached.get(cachedIndex++);
+            return lastEvent;
+        }
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        lastEvent = delegate.next();
+        cacheableEvents.add(lastEvent);
+        return lastEvent;
+    }
+
+    @Override
+    public DomainEventMessage<?> peek() {
+        if (cachedIndex < cached.size()) {
+            return cached.get(cachedIndex);
+        }
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return delegate.peek();
+    }
+
+    @Override
+    public Long getLastSequenceNumber() {
+        return lastEvent == null ? null : lastEvent.getSequenceNumber();
+    }
+
+    /**
+     * The events of an aggregate that are collected for caching, with their estimated size.
+     */
+    static class CacheableEvents {
+
+        private final LongPredicate fitsInCache;
+        private List<DomainEventMessage<?>> events;
+        private long size;
+
+        /**
+         * @param cachedEvents the cached events of the aggregate, possibly empty
+         * @param cachedSize   the estimated size of the cached events in bytes
+         * @param fitsInCache  predicate on the estimated size of the events, indicating whether they can be cached
+         */
+        CacheableEvents(List<DomainEventMessage<?>> cachedEvents, long cachedSize, LongPredicate fitsInCache) {
+            this.fitsInCache = fitsInCache;
+            this.events = new ArrayList<>(cachedEvents);
+            this.size = cachedSize;
+        }
+
+        /**
+         * Adds the estimated size of an event read from the event store, and whether it is a snapshot.
+         *
+         * @param eventSize the estimated size of the event in bytes
+         * @param snapshot  whether the event is a snapshot
+         */
+        void read(long eventSize, boolean snapshot) {
+            size += eventSize;
+            if (snapshot || !fitsInCache.test(size)) {
+                events = null;
+            }
+        }
+
+        private void add(DomainEventMessage<?> event) {
+            if (events != null) {
+                events.add(event);
+            }
+        }
+
+        boolean isCacheable() {
+            return events != null && !events.isEmpty();
+        }
+
+        List<DomainEventMessage<?>> getEvents() {
+            return events == null ? Collections.emptyList() : events;
+        }
+
+        long getSize() {
+            return size;
+        }
+    }
+}
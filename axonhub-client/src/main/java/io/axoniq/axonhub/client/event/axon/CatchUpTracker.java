@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.axoniq.axonhub.client.event.axon;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Tracks whether an event stream is catching up with the head of the event store or is live, by comparing the token of
+ * the last received event with the token of the last event in the event store. The head token is refreshed from the
+ * server periodically while events are received. When the head token is not given when the stream is opened, it is
+ * requested asynchronously, and the stream is considered to be catching up until it is known.
+ * <p>
+ * While catching up, the stream uses the permit windows of the flow control configuration, so that large batches of
+ * events are fetched. When the distance to the head drops to the live threshold, the stream switches to the live phase,
+ * in which the number of outstanding permits is limited to a small window, keeping the number of events buffered ahead
+ * of the consumer, and therefore the latency of new events, low. The stream switches back to catching up when it falls
+ * behind more than twice the live threshold.
+ */
+public class CatchUpTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatchUpTracker.class);
+
+    /**
+     * The phases of an event stream.
+     */
+    public enum Phase {
+        /**
+         * The stream is reading events that were stored before it was opened, far from the head.
+         */
+        CATCHING_UP,
+        /**
+         * The stream is at or near the head of the event store.
+         */
+        LIVE
+    }
+
+    private final Supplier<CompletableFuture<Long>> headTokenSource;
+    private final long liveThreshold;
+    private final long livePermits;
+    private final long refreshInterval;
+    private final LongSupplier clock;
+    private final AtomicLong position;
+    private final AtomicLong head;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile long lastRefresh;
+    private volatile boolean headKnown;
+    private volatile Phase phase = Phase.CATCHING_UP;
+
+    /**
+     * Creates a tracker for a stream for which the head token is not known yet. The head token is requested from the
+     * {@code headTokenSource} immediately, without waiting for the response.
+     *
+     * @param headTokenSource supplier of the token of the last event in the event store
+     * @param position        the token of the last event before the stream
+     * @param liveThreshold   the distance to the head (in events) at which the stream is considered live
+     * @param livePermits     the maximum number of outstanding permits in the live phase
+     * @param refreshInterval the minimum time (in ms) between requests for the head token
+     */
+    public CatchUpTracker(Supplier<CompletableFuture<Long>> headTokenSource, long position, long liveThreshold,
+                          long livePermits, long refreshInterval) {
+        this(headTokenSource, position, liveThreshold, livePermits, refreshInterval, System::currentTimeMillis);
+    }
+
+    /**
+     * @param headTokenSource supplier of the token of the last event in the event store
+     * @param position        the token of the last event before the stream
+     * @param head            the token of the last event in the event store when the stream is opened
+     * @param liveThreshold   the distance to the head (in events) at which the stream is considered live
+     * @param livePermits     the maximum number of outstanding permits in the live phase
+     * @param refreshInterval the minimum time (in ms) between requests for the head token
+     */
+    public CatchUpTracker(Supplier<CompletableFuture<Long>> headTokenSource, long position, long head,
+                          long liveThreshold, long livePermits, long refreshInterval) {
+        this(headTokenSource, position, head, liveThreshold, livePermits, refreshInterval, System::currentTimeMillis);
+    }
+
+    CatchUpTracker(Supplier<CompletableFuture<Long>> headTokenSource, long position, long liveThreshold,
+                   long livePermits, long refreshInterval, LongSupplier clock) {
+        this(headTokenSource, position, position, false, liveThreshold, livePermits, refreshInterval, clock);
+        refreshHead(clock.getAsLong());
+    }
+
+    CatchUpTracker(Supplier<CompletableFuture<Long>> headTokenSource, long position, long head, long liveThreshold,
+                   long livePermits, long refreshInterval, LongSupplier clock) {
+        this(headTokenSource, position, head, true, liveThreshold, livePermits, refreshInterval, clock);
+    }
+
+    private CatchUpTracker(Supplier<CompletableFuture<Long>> headTokenSource, long position, long head,
+                           boolean headKnown, long liveThreshold, long livePermits, long refreshInterval,
+                           LongSupplier clock) {
+        this.headTokenSource = headTokenSource;
+        this.liveThreshold = liveThreshold;
+        this.livePermits = Math.max(1, livePermits);
+        this.refreshInterval = refreshInterval;
+        this.clock = clock;
+        this.position = new AtomicLong(position);
+        this.head = new AtomicLong(Math.max(position, head));
+        this.headKnown = headKnown;
+        this.lastRefresh = clock.getAsLong();
+        updatePhase();
+    }
+
+    /**
+     * Registers the receipt of the event with given {@code token}, refreshing the head token when the refresh interval
+     * has expired.
+     *
+     * @param token the token of the received event
+     */
+    public void received(long token) {
+        position.set(token);
+        head.accumulateAndGet(token, Math::max);
+        long now = clock.getAsLong();
+        if (now - lastRefresh >= refreshInterval) {
+            refreshHead(now);
+        }
+        updatePhase();
+    }
+
+    private void refreshHead(long now) {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        lastRefresh = now;
+        headTokenSource.get().whenComplete((headToken, error) -> {
+            if (error != null) {
+                logger.debug("Failed to refresh head token: {}", error.getMessage());
+            } else {
+                head.accumulateAndGet(headToken, Math::max);
+                headKnown = true;
+            }
+            refreshing.set(false);
+            updatePhase();
+        });
+    }
+
+    /**
+     * Limits the number of permits to grant according to the current phase. While catching up, the requested permits
+     * are granted. In the live phase, permits are limited to the live window, and granted in chunks of at least half
+     * of it, except when nothing is outstanding.
+     *
+     * @param requested   the number of permits requested by flow control
+     * @param outstanding the number of permits granted and not consumed yet
+     * @return the number of permits to grant
+     */
+    public long limitPermits(long requested, long outstanding) {
+        if (phase == Phase.CATCHING_UP) {
+            return requested;
+        }
+        long available = livePermits - outstanding;
+        if (outstanding > 0 && available < livePermits / 2) {
+            return 0;
+        }
+        return Math.max(0, Math.min(requested, available));
+    }
+
+    private void updatePhase() {
+        if (!headKnown) {
+            return;
+        }
+        long distance = getDistanceToHead();
+        Phase current = phase;
+        if (current == Phase.CATCHING_UP && distance <= liveThreshold) {
+            phase = Phase.LIVE;
+            logger.info("Event stream at token {} is live", position.get());
+        } else if (current == Phase.LIVE && distance > 2 * liveThreshold) {
+            phase = Phase.CATCHING_UP;
+            logger.info("Event stream at token {} is catching up, {} events behind", position.get(), distance);
+        }
+    }
+
+    /**
+     * Returns the current phase of the stream.
+     *
+     * @return the current phase of the stream
+     */
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * Returns the number of events between the last received event and the last known head of the event store. While
+     * the head is not known yet, this is the distance to the last received event, which is 0.
+     *
+     * @return the distance to the head, in events
+     */
+    public long getDistanceToHead() {
+        return Math.max(0, head.get() - position.get());
+    }
+
+    /**
+     * Returns the token of the last received event.
+     *
+     * @return the token of the last received event
+     */
+    public long getPosition() {
+        return position.get();
+    }
+}
@@ -15,13 +15,14 @@
 
 package io.axoniq.axonhub.client.event.axon;
 
+import com.google.protobuf.ByteString;
+import io.axoniq.axondb.Event;
 import io.axoniq.axondb.grpc.EventWithToken;
 import io.axoniq.axonhub.client.event.ClientConnectionException;
 import org.axonframework.eventhandling.TrackedEventMessage;
 import org.axonframework.eventsourcing.eventstore.EventUtils;
 import org.axonframework.eventsourcing.eventstore.GlobalSequenceTrackingToken;
 import org.axonframework.eventsourcing.eventstore.TrackedDomainEventData;
-import org.axonframework.eventsourcing.eventstore.TrackedEventData;
 import org.axonframework.eventsourcing.eventstore.TrackingEventStream;
 import org.axonframework.eventsourcing.eventstore.TrackingToken;
 import org.axonframework.serialization.Serializer;
@@ -30,16 +31,21 @@ import org.axonframework.serialization.upcasting.event.NoOpEventUpcaster;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.Spliterator;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
-import java.util.function.Supplier;
-import java.util.stream.StreamSupport;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.lang.Math.min;
 import static org.axonframework.common.ObjectUtils.getOrDefault;
@@ -48,6 +54,23 @@ import static org.axonframework.common.ObjectUtils.getOrDefault;
  * Client-side buffer of messages received from the server. Once consumed from this buffer, the client is notified
  * of a permit being consumed, potentially triggering a permit refresh, if flow control is enabled.
  * <p>
+ * The number of buffered messages is bounded by the permits granted to the server. When a maximum number of bytes is
+ * given, {@link #permitsWithinBudget(long, long)} stops granting permits while the buffered messages exceed that
+ * number of bytes, and otherwise limits the permits so that the messages in transit are expected to fit in the
+ * remaining bytes, based on the average size of the messages received. As the server sends the messages it was
+ * granted permits for, the buffer may exceed the maximum by the messages that were in transit.
+ * <p>
+ * Encrypted payloads are decrypted when the payload of a message is first accessed, so that messages that are skipped
+ * or only inspected for their meta data and token are never decrypted.
+ * <p>
+ * Optionally, received messages are decrypted, upcast and deserialized on an executor, ahead of the consumer. Messages
+ * are still handed out in the order they were received. As each message is upcast separately in this mode, upcasters
+ * must not depend on other messages in the stream.
+ * <p>
+ * A payload type filter may be registered to skip messages before they are decrypted, upcast or deserialized. Skipped
+ * messages are handed out as {@link SkippedEvent} placeholders, which carry their tracking token, so that the token of
+ * the consumer still advances past them.
+ * <p>
  * This class is intended for internal use. Be cautious.
  *
  * @author Marc Gathier
@@ -56,19 +79,30 @@ import static org.axonframework.common.ObjectUtils.getOrDefault;
 public class EventBuffer implements TrackingEventStream {
     final Logger logger = LoggerFactory.getLogger(EventBuffer.class);
 
-    private final BlockingQueue<TrackedEventData<byte[]>> events;
+    private static final long PROBE_PERMITS = 100;
+    private static final int AVERAGE_WEIGHT = 16;
+
+    private final BlockingQueue<BufferedEventData> events;
+    private final long maxBufferedBytes;
+    private final AtomicLong bufferedBytes = new AtomicLong();
+    private volatile long averageEventSize;
 
     private final Iterator<TrackedEventMessage<?>> eventStream;
+    private final ParallelEventPipeline pipeline;
+    private final UnaryOperator<Event> payloadDecryptor;
+    private final GrpcMetaDataAwareSerializer serializer;
+    private final EventUpcaster upcasterChain;
     private final int heartbeatInterval;
     private final AtomicLong lastServerInteraction = new AtomicLong(System.currentTimeMillis());
 
-    private TrackedEventData<byte[]> peekData;
+    private BufferedEventData peekData;
     private TrackedEventMessage<?> peekEvent;
     private Consumer<EventBuffer> closeCallback;
     private volatile RuntimeException exception;
     private volatile boolean closed;
     private Consumer<Integer> consumeListener = i -> {
     };
+    private volatile Predicate<String> payloadTypeFilter = payloadType -> true;
 
     /**
      * Initializes an Event Buffer, passing messages through given {@code upcasterChain} and deserializing events using
@@ -78,17 +112,78 @@ public class EventBuffer implements TrackingEventStream {
      * @param serializer    The serializer capable of deserializing incoming messages
      */
     public EventBuffer(EventUpcaster upcasterChain, Serializer serializer, int heartbeatInterval) {
+        this(upcasterChain, serializer, heartbeatInterval, 0);
+    }
+
+    /**
+     * Initializes an Event Buffer, passing messages through given {@code upcasterChain} and deserializing events using
+     * given {@code serializer}. The permits granted to the server are limited to keep the buffered messages within
+     * {@code maxBufferedBytes}.
+     *
+     * @param upcasterChain    The upcasterChain to translate serialized representations before deserializing
+     * @param serializer       The serializer capable of deserializing incoming messages
+     * @param heartbeatInterval The interval (in ms) at which the server sends heartbeats
+     * @param maxBufferedBytes The maximum number of bytes to buffer, 0 for no limit
+     */
+    public EventBuffer(EventUpcaster upcasterChain, Serializer serializer, int heartbeatInterval, long maxBufferedBytes) {
+        this(upcasterChain, serializer, heartbeatInterval, maxBufferedBytes, null, 0, null);
+    }
+
+    /**
+     * Initializes an Event Buffer that decrypts, upcasts and deserializes up to {@code pipelineSize} messages on given
+     * {@code executor}, ahead of the consumer. When {@code executor} is {@code null}, messages are upcast and
+     * deserialized by the consumer, and decrypted when their payload is accessed.
+     *
+     * @param upcasterChain     The upcasterChain to translate serialized representations before deserializing
+     * @param serializer        The serializer capable of deserializing incoming messages
+     * @param heartbeatInterval The interval (in ms) at which the server sends heartbeats
+     * @param maxBufferedBytes  The maximum number of bytes to buffer, 0 for no limit
+     * @param executor          The executor to process messages on, or {@code null}
+     * @param pipelineSize      The maximum number of messages processed ahead of the consumer
+     * @param payloadDecryptor  The function to decrypt messages with, or {@code null} if messages are not encrypted
+     */
+    public EventBuffer(EventUpcaster upcasterChain, Serializer serializer, int heartbeatInterval, long maxBufferedBytes,
+                       Executor executor, int pipelineSize, UnaryOperator<Event> payloadDecryptor) {
         this.heartbeatInterval = heartbeatInterval;
+        this.maxBufferedBytes = maxBufferedBytes;
         this.events = new LinkedBlockingQueue<>();
-        eventStream = EventUtils.upcastAndDeserializeTrackedEvents(StreamSupport.stream(new SimpleSpliterator<>(this::poll), false),
-                                                                   new GrpcMetaDataAwareSerializer(serializer),
-                                                                   getOrDefault(upcasterChain, NoOpEventUpcaster.INSTANCE),
-                                                                   true)
-                                .iterator();
+        this.payloadDecryptor = payloadDecryptor;
+        this.serializer = new GrpcMetaDataAwareSerializer(serializer);
+        this.upcasterChain = getOrDefault(upcasterChain, NoOpEventUpcaster.INSTANCE);
+        if (executor == null) {
+            this.pipeline = null;
+            eventStream = new SkippingEventIterator<>(this::poll, eventData -> eventData.placeholder, eventData -> eventData,
+                                                      eventData -> EventUtils.upcastAndDeserializeTrackedEvents(eventData,
+                                                                                                                this.serializer,
+                                                                                                                this.upcasterChain,
+                                                                                                                true));
+        } else {
+            this.pipeline = new ParallelEventPipeline(executor, pipelineSize, this::process);
+            eventStream = new PipelineIterator();
+        }
+    }
+
+    private List<TrackedEventMessage<?>> process(EventWithToken event) {
+        TrackedEventMessage<?> placeholder = placeholder(event);
+        if (placeholder != null) {
+            return Collections.singletonList(placeholder);
+        }
+        TrackingToken trackingToken = new GlobalSequenceTrackingToken(event.getToken());
+        Stream<TrackedDomainEventData<ByteString>> eventData =
+                Stream.of(new TrackedDomainEventData<>(trackingToken, eventData(event)));
+        List<TrackedEventMessage<?>> messages =
+                EventUtils.upcastAndDeserializeTrackedEvents(eventData, serializer, upcasterChain, true)
+                          .collect(Collectors.toList());
+        messages.forEach(message -> {
+            // forces deserialization
+            message.getPayload();
+            message.getMetaData();
+        });
+        return messages;
     }
 
-    private TrackedEventData<byte[]> poll() {
-        TrackedEventData<byte[]> nextItem;
+    private BufferedEventData poll() {
+        BufferedEventData nextItem;
         if (peekData != null) {
             nextItem = peekData;
             peekData = null;
@@ -96,24 +191,38 @@ public class EventBuffer implements TrackingEventStream {
         }
         nextItem = events.poll();
         if (nextItem != null) {
-            consumeListener.accept(1);
+            consumed(nextItem);
         }
         return nextItem;
     }
 
+    private void consumed(BufferedEventData eventData) {
+        bufferedBytes.addAndGet(-eventData.size);
+        consumeListener.accept(1);
+    }
+
     private void waitForData(long deadline) throws InterruptedException {
         long now = System.currentTimeMillis();
         long timeLeft = deadline - now;
-        if (peekData == null && timeLeft > 0) {
-            peekData = events.poll(heartbeatInterval > 0 ? min(heartbeatInterval, timeLeft) : timeLeft, TimeUnit.MILLISECONDS);
-            if (peekData != null) {
-                consumeListener.accept(1);
-            } else if (heartbeatInterval > 0) {
-                // no data. Check last time
-                if (lastServerInteraction.get() < System.currentTimeMillis() - (2 * heartbeatInterval)) {
-                    fail(new ClientConnectionException("Connection timed out"));
-                    close();
-                }
+        if (timeLeft <= 0 || (pipeline == null && peekData != null)) {
+            return;
+        }
+        long waitTime = heartbeatInterval > 0 ? min(heartbeatInterval, timeLeft) : timeLeft;
+        boolean received;
+        if (pipeline != null) {
+            received = pipeline.await(waitTime);
+        } else {
+            peekData = events.poll(waitTime, TimeUnit.MILLISECONDS);
+            received = peekData != null;
+            if (received) {
+                consumed(peekData);
+            }
+        }
+        if (!received && heartbeatInterval > 0) {
+            // no data. Check last time
+            if (lastServerInteraction.get() < System.currentTimeMillis() - (2 * heartbeatInterval)) {
+                fail(new ClientConnectionException("Connection timed out"));
+                close();
             }
         }
     }
@@ -136,6 +245,19 @@ public class EventBuffer implements TrackingEventStream {
         this.consumeListener = consumeListener;
     }
 
+    /**
+     * Registers the predicate on the serialized payload type of received messages. Messages whose payload type does not
+     * match are not decrypted, upcast or deserialized, and are handed out as {@link SkippedEvent} placeholders. The
+     * predicate is tested against the payload type as stored, before upcasting.
+     * <p>
+     * The filter should be registered before messages are pushed into this buffer.
+     *
+     * @param payloadTypeFilter the predicate deciding which payload types to pass to the consumer
+     */
+    public void registerPayloadTypeFilter(Predicate<String> payloadTypeFilter) {
+        this.payloadTypeFilter = payloadTypeFilter;
+    }
+
     @Override
     public Optional<TrackedEventMessage<?>> peek() {
         if (peekEvent == null && eventStream.hasNext()) {
@@ -183,6 +305,73 @@ public class EventBuffer implements TrackingEventStream {
         closed = true;
         if (closeCallback != null) closeCallback.accept(this);
         events.clear();
+        if (pipeline != null) {
+            pipeline.clear();
+        }
+        bufferedBytes.set(0);
+    }
+
+    /**
+     * Returns the number of permits to grant to the server, given the {@code requested} number of permits and the
+     * number of {@code outstanding} permits, which have been granted but not consumed from this buffer yet.
+     * <p>
+     * No permits are granted while the messages in the buffer take up the maximum number of buffered bytes or more.
+     * Otherwise, permits are limited so that the messages in transit are expected to fit in the remaining bytes, based
+     * on the average size of the messages received. Until the first message has been received, the number of permits
+     * is limited to a small probe. Permits are granted in chunks of at least half of the messages fitting in the
+     * buffer, except when nothing is outstanding, in which case at least one permit is granted so that a single
+     * message larger than the maximum number of bytes does not stall the stream.
+     *
+     * @param requested   the number of permits requested by flow control
+     * @param outstanding the number of permits granted and not consumed yet
+     * @return the number of permits to grant
+     */
+    public long permitsWithinBudget(long requested, long outstanding) {
+        if (maxBufferedBytes <= 0) {
+            return requested;
+        }
+        long remainingBytes = maxBufferedBytes - bufferedBytes.get();
+        if (outstanding > 0 && remainingBytes <= 0) {
+            return 0;
+        }
+        long averageSize = averageEventSize;
+        if (averageSize == 0) {
+            return Math.max(0, Math.min(requested, PROBE_PERMITS - outstanding));
+        }
+        long window = Math.max(1, maxBufferedBytes / averageSize);
+        long inTransit = Math.max(0, outstanding - getBufferedEvents());
+        long available = remainingBytes / averageSize - inTransit;
+        if (outstanding > 0) {
+            return available < window / 2 ? 0 : Math.min(requested, available);
+        }
+        return Math.min(requested, Math.max(1, available));
+    }
+
+    /**
+     * Returns the number of messages currently in the buffer.
+     *
+     * @return the number of buffered messages
+     */
+    public int getBufferedEvents() {
+        return pipeline == null ? events.size() : pipeline.size();
+    }
+
+    /**
+     * Returns the total serialized size of the messages currently in the buffer.
+     *
+     * @return the number of buffered bytes
+     */
+    public long getBufferedBytes() {
+        return bufferedBytes.get();
+    }
+
+    /**
+     * Returns the moving average of the serialized size of received messages, or 0 if no messages have been received.
+     *
+     * @return the average message size in bytes
+     */
+    public long getAverageEventSize() {
+        return averageEventSize;
     }
 
     public boolean push(EventWithToken event) {
@@ -193,7 +382,15 @@ public class EventBuffer implements TrackingEventStream {
         try {
             touch();
             TrackingToken trackingToken = new GlobalSequenceTrackingToken(event.getToken());
-            events.put(new TrackedDomainEventData<>(trackingToken, new GrpcBackedDomainEventData(event.getEvent())));
+            int size = event.getEvent().getSerializedSize();
+            long averageSize = averageEventSize;
+            averageEventSize = averageSize == 0 ? size : averageSize + (size - averageSize) / AVERAGE_WEIGHT;
+            bufferedBytes.addAndGet(size);
+            if (pipeline != null) {
+                pipeline.add(event);
+                return true;
+            }
+            events.put(new BufferedEventData(trackingToken, eventData(event), size, placeholder(event)));
         } catch (InterruptedException e) {
             closeCallback.accept(this);
             return false;
@@ -201,6 +398,18 @@ public class EventBuffer implements TrackingEventStream {
         return true;
     }
 
+    private TrackedEventMessage<?> placeholder(EventWithToken event) {
+        if (payloadTypeFilter.test(event.getEvent().getPayload().getType())) {
+            return null;
+        }
+        logger.debug("Skipping event with token {} of filtered payload type", event.getToken());
+        return SkippedEvent.asMessage(event.getToken(), event.getEvent());
+    }
+
+    private ByteStringDomainEventData eventData(EventWithToken event) {
+        return new ByteStringDomainEventData(event.getEvent(), payloadDecryptor);
+    }
+
     public void fail(RuntimeException e) {
         this.exception = e;
     }
@@ -209,36 +418,43 @@ public class EventBuffer implements TrackingEventStream {
         this.lastServerInteraction.set(System.currentTimeMillis());
     }
 
-    private static class SimpleSpliterator<T> implements Spliterator<T> {
+    private class PipelineIterator implements Iterator<TrackedEventMessage<?>> {
 
-        private final Supplier<T> supplier;
-
-        protected SimpleSpliterator(Supplier<T> supplier) {
-            this.supplier = supplier;
-        }
+        private Iterator<TrackedEventMessage<?>> current = Collections.emptyIterator();
 
         @Override
-        public boolean tryAdvance(Consumer<? super T> action) {
-            T nextValue = supplier.get();
-            if (nextValue != null) {
-                action.accept(nextValue);
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                ParallelEventPipeline.Stage stage = pipeline.pollCompleted();
+                if (stage == null) {
+                    return false;
+                }
+                bufferedBytes.addAndGet(-stage.getEvent().getEvent().getSerializedSize());
+                consumeListener.accept(1);
+                current = stage.getMessages().iterator();
             }
-            return nextValue != null;
+            return true;
         }
 
         @Override
-        public Spliterator<T> trySplit() {
-            return null;
+        public TrackedEventMessage<?> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
         }
+    }
 
-        @Override
-        public long estimateSize() {
-            return Long.MAX_VALUE;
-        }
+    private static class BufferedEventData extends TrackedDomainEventData<ByteString> {
 
-        @Override
-        public int characteristics() {
-            return ORDERED | NONNULL | IMMUTABLE;
+        private final int size;
+        private final TrackedEventMessage<?> placeholder;
+
+        private BufferedEventData(TrackingToken trackingToken, ByteStringDomainEventData eventData, int size,
+                                  TrackedEventMessage<?> placeholder) {
+            super(trackingToken, eventData);
+            this.size = size;
+            this.placeholder = placeholder;
         }
     }
 }
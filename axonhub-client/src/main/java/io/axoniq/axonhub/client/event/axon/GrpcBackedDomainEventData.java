@@ -16,13 +16,12 @@
 package io.axoniq.axonhub.client.event.axon;
 
 import io.axoniq.axondb.Event;
+import io.axoniq.axonhub.client.util.ByteStringSerializedObjects;
 import org.axonframework.eventsourcing.eventstore.DomainEventData;
-import org.axonframework.serialization.SerializedMetaData;
 import org.axonframework.serialization.SerializedObject;
-import org.axonframework.serialization.SimpleSerializedObject;
 
 import java.time.Instant;
-import java.util.Map;
+import java.util.function.UnaryOperator;
 
 /**
  * DomainEventData implementation that retrieves its raw data from a protobuf {@link Event} message.
@@ -30,10 +29,13 @@ import java.util.Map;
  * This implementation strictly breaks the contract of DomainEventData, in that the returned SerializedObject for
  * MetaData does not contain the byte array representation of the metadata, but the
  * {@link Event#getMetaDataMap() MetaDataMap} defined in the protobuf message.
+ * <p>
+ * When a payload decryptor is given, the payload data is decrypted on first access of the data. The payload type and
+ * all other properties of the event are available without decrypting.
  */
 public class GrpcBackedDomainEventData implements DomainEventData<byte[]> {
 
-    private final Event event;
+    private final ByteStringDomainEventData delegate;
 
     /**
      * Initialize using the given {@code event} as the source of raw data.
@@ -41,34 +43,43 @@ public class GrpcBackedDomainEventData implements DomainEventData<byte[]> {
      * @param event The protobuf Event message containing the raw data
      */
     public GrpcBackedDomainEventData(Event event) {
-        this.event = event;
+        this(event, null);
+    }
+
+    /**
+     * Initialize using the given {@code event} as the source of raw data, decrypting the payload data using given
+     * {@code payloadDecryptor} when it is first accessed.
+     *
+     * @param event            The protobuf Event message containing the raw data, with encrypted payload data
+     * @param payloadDecryptor The function decrypting the event, or {@code null} if the event is not encrypted
+     */
+    public GrpcBackedDomainEventData(Event event, UnaryOperator<Event> payloadDecryptor) {
+        this.delegate = new ByteStringDomainEventData(event, payloadDecryptor);
     }
 
     @Override
     public String getType() {
-        String aggregateType = event.getAggregateType();
-        return "".equals(aggregateType) ? null : aggregateType;
+        return delegate.getType();
     }
 
     @Override
     public String getAggregateIdentifier() {
-        String aggregateIdentifier = event.getAggregateIdentifier();
-        return "".equals(aggregateIdentifier) ? null : aggregateIdentifier;
+        return delegate.getAggregateIdentifier();
     }
 
     @Override
     public long getSequenceNumber() {
-        return event.getAggregateSequenceNumber();
+        return delegate.getSequenceNumber();
     }
 
     @Override
     public String getEventIdentifier() {
-        return event.getMessageIdentifier();
+        return delegate.getEventIdentifier();
     }
 
     @Override
     public Instant getTimestamp() {
-        return Instant.ofEpochMilli(event.getTimestamp());
+        return delegate.getTimestamp();
     }
 
     /**
@@ -80,19 +91,15 @@ public class GrpcBackedDomainEventData implements DomainEventData<byte[]> {
     @SuppressWarnings("unchecked")
     @Override
     public SerializedObject getMetaData() {
-        return new SerializedMetaData(event.getMetaDataMap(), Map.class);
+        return delegate.getMetaData();
     }
 
     @Override
     public SerializedObject<byte[]> getPayload() {
-        String revision = event.getPayload().getRevision();
-        return new SimpleSerializedObject<>(event.getPayload().getData().toByteArray(),
-                                            byte[].class, event.getPayload().getType(),
-                                            "".equals(revision) ? null : revision);
+        return ByteStringSerializedObjects.toByteArray(delegate.getPayload());
     }
 
     public boolean isSnapshot() {
-        return event.getSnapshot();
+        return delegate.isSnapshot();
     }
-
 }
@@ -14,6 +14,8 @@
  */
 package io.axoniq.axonhub.client.event.axon;
 
+import com.google.protobuf.ByteString;
+import io.axoniq.axonhub.client.util.ByteStringSerializedObjects;
 import io.axoniq.axonhub.client.util.GrpcMetaDataConverter;
 import io.axoniq.platform.MetaDataValue;
 import org.axonframework.serialization.Converter;
@@ -26,15 +28,24 @@ import java.util.Map;
 
 /**
  * Wrapper around standard Axon Framework serializer that can deserialize Metadata from AxonDB events.
+ * <p>
+ * Payloads of AxonDB events are provided as {@link ByteString}. When the converter of the delegate serializer is not
+ * able to convert from ByteString, the data is copied to a byte array before it is passed to the delegate.
  */
 class GrpcMetaDataAwareSerializer implements Serializer {
 
     private final Serializer delegate;
     private final GrpcMetaDataConverter metaDataConverter;
+    private final boolean byteStringSupported;
+    private final Converter converter;
 
     public GrpcMetaDataAwareSerializer(Serializer delegate) {
         this.metaDataConverter = new GrpcMetaDataConverter(delegate);
         this.delegate = delegate;
+        this.byteStringSupported = ByteStringSerializedObjects.supportsByteString(delegate);
+        this.converter = byteStringSupported
+                ? delegate.getConverter()
+                : new ByteStringConverter(delegate.getConverter());
     }
 
     @Override
@@ -55,6 +66,9 @@ class GrpcMetaDataAwareSerializer implements Serializer {
 
             return (T) metaDataConverter.convert(metaDataMap);
         }
+        if (ByteString.class.equals(serializedObject.getContentType()) && !byteStringSupported) {
+            return delegate.deserialize(ByteStringSerializedObjects.toByteArray((SerializedObject<ByteString>) serializedObject));
+        }
         return delegate.deserialize(serializedObject);
     }
 
@@ -70,6 +84,34 @@ class GrpcMetaDataAwareSerializer implements Serializer {
 
     @Override
     public Converter getConverter() {
-        return delegate.getConverter();
+        return converter;
+    }
+
+    /**
+     * Converter that copies ByteString data to a byte array, before passing it on to the delegate converter.
+     */
+    private static class ByteStringConverter implements Converter {
+
+        private final Converter delegate;
+
+        private ByteStringConverter(Converter delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean canConvert(Class<?> sourceType, Class<?> targetType) {
+            if (ByteString.class.equals(sourceType)) {
+                return ByteString.class.equals(targetType) || delegate.canConvert(byte[].class, targetType);
+            }
+            return delegate.canConvert(sourceType, targetType);
+        }
+
+        @Override
+        public <T> T convert(Object original, Class<?> sourceType, Class<T> targetType) {
+            if (ByteString.class.equals(sourceType) && !ByteString.class.equals(targetType)) {
+                return delegate.convert(((ByteString) original).toByteArray(), byte[].class, targetType);
+            }
+            return delegate.convert(original, sourceType, targetType);
+        }
     }
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event.axon;
+
+import io.axoniq.axondb.grpc.EventWithToken;
+import org.axonframework.eventhandling.TrackedEventMessage;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Processes received events on an executor, ahead of the consumer of an {@link EventBuffer}. At most
+ * {@code maxInProgress} events are processed concurrently; results are handed out in the order the events were
+ * received.
+ */
+class ParallelEventPipeline {
+
+    private final Executor executor;
+    private final int maxInProgress;
+    private final Function<EventWithToken, List<TrackedEventMessage<?>>> processor;
+    private final Queue<EventWithToken> pending = new ArrayDeque<>();
+    private final Deque<Stage> inProgress = new ArrayDeque<>();
+
+    ParallelEventPipeline(Executor executor, int maxInProgress,
+                          Function<EventWithToken, List<TrackedEventMessage<?>>> processor) {
+        this.executor = executor;
+        this.maxInProgress = Math.max(1, maxInProgress);
+        this.processor = processor;
+    }
+
+    synchronized void add(EventWithToken event) {
+        pending.add(event);
+        schedule();
+        notifyAll();
+    }
+
+    private void schedule() {
+        while (inProgress.size() < maxInProgress && !pending.isEmpty()) {
+            EventWithToken event = pending.poll();
+            inProgress.add(new Stage(event, CompletableFuture.supplyAsync(() -> processor.apply(event), executor)));
+        }
+    }
+
+    /**
+     * Removes and returns the oldest event, if its processing has completed.
+     *
+     * @return the oldest event when processed, otherwise {@code null}
+     */
+    synchronized Stage pollCompleted() {
+        Stage head = inProgress.peek();
+        if (head == null || !head.result.isDone()) {
+            return null;
+        }
+        inProgress.poll();
+        schedule();
+        return head;
+    }
+
+    /**
+     * Waits until the processing of the oldest event has completed, or the given timeout expires.
+     *
+     * @param timeout the maximum time to wait, in milliseconds
+     * @return {@code true} if the oldest event has been processed, otherwise {@code false}
+     * @throws InterruptedException when interrupted while waiting
+     */
+    boolean await(long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        Stage head;
+        synchronized (this) {
+            head = inProgress.peek();
+            if (head == null) {
+                wait(timeout);
+                head = inProgress.peek();
+            }
+        }
+        if (head == null) {
+            return false;
+        }
+        try {
+            head.result.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (ExecutionException e) {
+            // the failure is reported when the result is retrieved
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    synchronized int size() {
+        return pending.size() + inProgress.size();
+    }
+
+    synchronized void clear() {
+        pending.clear();
+        inProgress.forEach(stage -> stage.result.cancel(false));
+        inProgress.clear();
+    }
+
+    static class Stage {
+
+        private final EventWithToken event;
+        private final CompletableFuture<List<TrackedEventMessage<?>>> result;
+
+        private Stage(EventWithToken event, CompletableFuture<List<TrackedEventMessage<?>>> result) {
+            this.event = event;
+            this.result = result;
+        }
+
+        EventWithToken getEvent() {
+            return event;
+        }
+
+        /**
+         * Returns the messages resulting from processing the event. Failures during processing are rethrown.
+         *
+         * @return the upcast and deserialized messages
+         */
+        List<TrackedEventMessage<?>> getMessages() {
+            try {
+                return result.join();
+            } catch (RuntimeException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.axoniq.axonhub.client.event.axon;
+
+import org.axonframework.eventhandling.TrackedEventMessage;
+import org.axonframework.eventsourcing.eventstore.TrackingEventStream;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event stream that reads a sequence of contiguous token ranges, one after the other. Events are handed out in token
+ * order, while each range reads ahead on its own stream, so that the ranges following the current one are fetched in
+ * parallel. The last range is expected to have no end.
+ */
+class ParallelReplayStream implements TrackingEventStream {
+
+    private final List<TokenRangeEventStream> ranges;
+    private int current;
+
+    /**
+     * @param ranges the contiguous ranges to read, in token order
+     */
+    ParallelReplayStream(List<TokenRangeEventStream> ranges) {
+        this.ranges = ranges;
+    }
+
+    @Override
+    public Optional<TrackedEventMessage<?>> peek() {
+        return currentRange().peek();
+    }
+
+    @Override
+    public boolean hasNextAvailable(int timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        TokenRangeEventStream range = currentRange();
+        while (!range.hasNextAvailable((int) Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())),
+                                       TimeUnit.MILLISECONDS)) {
+            if (!range.isExhausted() || current == ranges.size() - 1) {
+                return false;
+            }
+            range = currentRange();
+        }
+        return true;
+    }
+
+    @Override
+    public TrackedEventMessage<?> nextAvailable() throws InterruptedException {
+        if (!hasNextAvailable(Integer.MAX_VALUE, TimeUnit.MILLISECONDS)) {
+            // interrupted while waiting
+            return null;
+        }
+        return currentRange().nextAvailable();
+    }
+
+    @Override
+    public void close() {
+        ranges.forEach(TokenRangeEventStream::close);
+    }
+
+    private TokenRangeEventStream currentRange() {
+        while (current < ranges.size() - 1 && ranges.get(current).isExhausted()) {
+            current++;
+        }
+        return ranges.get(current);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event.axon;
+
+import org.axonframework.eventhandling.EventHandler;
+import org.axonframework.messaging.annotation.AnnotatedHandlerInspector;
+import org.axonframework.messaging.annotation.MessageHandlingMember;
+import org.axonframework.serialization.SerializationException;
+import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.SimpleSerializedType;
+import org.axonframework.serialization.UnknownSerializedTypeException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Predicate on the serialized payload type of events, used to skip events in a tracking event stream before they are
+ * decrypted, upcast and deserialized. A type matches when the class it names can be assigned to one of the accepted
+ * types. Results are cached per type name.
+ * <p>
+ * Type names are resolved to classes using the serializer the events were serialized with, as serializers may use
+ * aliases for type names. When no serializer is given, type names are expected to be fully qualified class names.
+ * <p>
+ * Note that the predicate is tested against the payload type as stored in the event store, before upcasting. When
+ * upcasters change the payload type of events, the stored types must be accepted as well.
+ */
+public class PayloadTypeFilter implements Predicate<String> {
+
+    private final List<Class<?>> acceptedTypes;
+    private final Function<String, Class<?>> typeResolver;
+    private final Map<String, Boolean> matches = new ConcurrentHashMap<>();
+
+    private PayloadTypeFilter(Collection<Class<?>> acceptedTypes, Function<String, Class<?>> typeResolver) {
+        this.acceptedTypes = new ArrayList<>(acceptedTypes);
+        this.typeResolver = typeResolver;
+    }
+
+    /**
+     * Creates a filter that accepts events with a payload of any of the given {@code types}, or a subtype thereof.
+     * Payload type names are expected to be fully qualified class names.
+     *
+     * @param types the accepted payload types
+     * @return a filter accepting the given types
+     */
+    public static PayloadTypeFilter forTypes(Class<?>... types) {
+        return new PayloadTypeFilter(Arrays.asList(types), PayloadTypeFilter::loadClass);
+    }
+
+    /**
+     * Creates a filter that accepts events with a payload of any of the given {@code types}, or a subtype thereof.
+     * Payload type names are resolved using given {@code serializer}.
+     *
+     * @param serializer the serializer used to serialize event payloads
+     * @param types      the accepted payload types
+     * @return a filter accepting the given types
+     */
+    public static PayloadTypeFilter forTypes(Serializer serializer, Class<?>... types) {
+        return new PayloadTypeFilter(Arrays.asList(types), typeResolver(serializer));
+    }
+
+    /**
+     * Creates a filter that accepts events with a payload that can be handled by one of the {@link EventHandler}
+     * annotated methods of given {@code eventHandlers}. Payload type names are expected to be fully qualified class
+     * names.
+     *
+     * @param eventHandlers the event handler beans to accept payload types for
+     * @return a filter accepting the payload types handled by the given event handlers
+     */
+    public static PayloadTypeFilter forEventHandlers(Object... eventHandlers) {
+        return new PayloadTypeFilter(handledTypes(eventHandlers), PayloadTypeFilter::loadClass);
+    }
+
+    /**
+     * Creates a filter that accepts events with a payload that can be handled by one of the {@link EventHandler}
+     * annotated methods of given {@code eventHandlers}. Payload type names are resolved using given
+     * {@code serializer}.
+     *
+     * @param serializer    the serializer used to serialize event payloads
+     * @param eventHandlers the event handler beans to accept payload types for
+     * @return a filter accepting the payload types handled by the given event handlers
+     */
+    public static PayloadTypeFilter forEventHandlers(Serializer serializer, Object... eventHandlers) {
+        return new PayloadTypeFilter(handledTypes(eventHandlers), typeResolver(serializer));
+    }
+
+    private static List<Class<?>> handledTypes(Object... eventHandlers) {
+        List<Class<?>> handledTypes = new ArrayList<>();
+        for (Object eventHandler : eventHandlers) {
+            AnnotatedHandlerInspector<Object> inspector = AnnotatedHandlerInspector.inspectType(eventHandler.getClass());
+            for (MessageHandlingMember<?> handler : inspector.getHandlers()) {
+                if (handler.hasAnnotation(EventHandler.class)) {
+                    handledTypes.add(handler.payloadType());
+                }
+            }
+        }
+        return handledTypes;
+    }
+
+    private static Function<String, Class<?>> typeResolver(Serializer serializer) {
+        return payloadType -> serializer.classForType(new SimpleSerializedType(payloadType, null));
+    }
+
+    private static Class<?> loadClass(String payloadType) {
+        try {
+            return Class.forName(payloadType, false, Thread.currentThread().getContextClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new SerializationException("Unknown payload type: " + payloadType, e);
+        }
+    }
+
+    @Override
+    public boolean test(String payloadType) {
+        return matches.computeIfAbsent(payloadType, this::isAccepted);
+    }
+
+    private boolean isAccepted(String payloadType) {
+        Class<?> payloadClass;
+        try {
+            payloadClass = typeResolver.apply(payloadType);
+        } catch (SerializationException | UnknownSerializedTypeException | LinkageError e) {
+            // unknown types are skipped when deserializing
+            return false;
+        }
+        return acceptedTypes.stream().anyMatch(type -> type.isAssignableFrom(payloadClass));
+    }
+}
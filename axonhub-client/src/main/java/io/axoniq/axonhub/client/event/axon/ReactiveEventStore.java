@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.axoniq.axonhub.client.event.axon;
+
+import org.axonframework.eventhandling.TrackedEventMessage;
+import org.axonframework.eventsourcing.eventstore.TrackingToken;
+import reactor.core.publisher.Flux;
+
+import java.util.function.Predicate;
+
+/**
+ * Reactive access to the events in an {@link AxonHubEventStore}. Requires reactor-core on the classpath; the event
+ * store itself does not depend on it.
+ */
+public final class ReactiveEventStore {
+
+    private ReactiveEventStore() {
+    }
+
+    /**
+     * Opens a reactive stream of the events following given {@code trackingToken}. Each subscription opens a separate
+     * stream to AxonHub. Demand signalled by the subscriber is forwarded to AxonHub as permits, so no thread is blocked
+     * waiting for events and no more events are read than the subscriber requested. Events are emitted on gRPC threads.
+     * <p>
+     * The stream does not complete; it fails when the connection to AxonHub is lost.
+     *
+     * @param eventStore    the event store to read events from
+     * @param trackingToken the token of the last processed event, or {@code null} to start at the beginning
+     * @return a Flux of the events following the given token
+     */
+    public static Flux<TrackedEventMessage<?>> openFlux(AxonHubEventStore eventStore, TrackingToken trackingToken) {
+        return openFlux(eventStore, trackingToken, payloadType -> true);
+    }
+
+    /**
+     * Opens a reactive stream of the events following given {@code trackingToken} with a payload type accepted by
+     * given {@code payloadTypeFilter}. See {@link #openFlux(AxonHubEventStore, TrackingToken)} and
+     * {@link AxonHubEventStore#openStream(TrackingToken, Predicate)}.
+     *
+     * @param eventStore        the event store to read events from
+     * @param trackingToken     the token of the last processed event, or {@code null} to start at the beginning
+     * @param payloadTypeFilter predicate on the serialized payload type of events
+     * @return a Flux of the events following the given token with an accepted payload type
+     */
+    public static Flux<TrackedEventMessage<?>> openFlux(AxonHubEventStore eventStore, TrackingToken trackingToken,
+                                                        Predicate<String> payloadTypeFilter) {
+        return Flux.create(sink -> eventStore.createReactiveStream(trackingToken, payloadTypeFilter).start(sink));
+    }
+}
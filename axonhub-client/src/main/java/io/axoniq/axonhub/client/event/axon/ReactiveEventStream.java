@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.axoniq.axonhub.client.event.axon;
+
+import io.axoniq.axondb.Event;
+import io.axoniq.axondb.grpc.EventWithToken;
+import io.axoniq.axondb.grpc.GetEventsRequest;
+import io.axoniq.axonhub.client.AxonHubConfiguration;
+import io.axoniq.axonhub.client.event.AxonDBClient;
+import io.grpc.stub.StreamObserver;
+import org.axonframework.eventhandling.TrackedEventMessage;
+import org.axonframework.eventsourcing.eventstore.EventStoreException;
+import org.axonframework.eventsourcing.eventstore.EventUtils;
+import org.axonframework.eventsourcing.eventstore.GlobalSequenceTrackingToken;
+import org.axonframework.eventsourcing.eventstore.TrackedDomainEventData;
+import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.upcasting.event.EventUpcaster;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.FluxSink;
+
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Event stream that emits the events read from AxonHub to a {@link FluxSink}. Demand signalled by the subscriber is
+ * sent to AxonHub as permits, so the server never sends more events than the subscriber requested, and events are
+ * handed to the subscriber on the gRPC thread that received them, without an intermediate queue.
+ * <p>
+ * Events that do not match the payload type filter, and events that are dropped by upcasters, do not reach the
+ * subscriber. A replacement permit is requested for each of them. An upcaster that converts one event into several
+ * may emit more events than requested, in which case the sink buffers the surplus.
+ * <p>
+ * Payloads are decoded, upcast and deserialized when the subscriber accesses them.
+ */
+class ReactiveEventStream implements StreamObserver<EventWithToken> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveEventStream.class);
+
+    private final AxonDBClient eventStoreClient;
+    private final AxonHubConfiguration configuration;
+    private final EventUpcaster upcasterChain;
+    private final Serializer serializer;
+    private final Predicate<String> payloadTypeFilter;
+    private final long nextToken;
+
+    private FluxSink<TrackedEventMessage<?>> sink;
+    private StreamObserver<GetEventsRequest> requestStream;
+    private boolean started;
+    private boolean unbounded;
+    private boolean closed;
+
+    /**
+     * @param eventStoreClient  the client to read events with
+     * @param configuration     the configuration providing the client name and heartbeat interval
+     * @param upcasterChain     the upcasters to apply to events
+     * @param serializer        the serializer to deserialize events with
+     * @param payloadTypeFilter predicate on the serialized payload type of events to emit
+     * @param nextToken         the token of the first event to read
+     */
+    ReactiveEventStream(AxonDBClient eventStoreClient, AxonHubConfiguration configuration,
+                        EventUpcaster upcasterChain, Serializer serializer, Predicate<String> payloadTypeFilter,
+                        long nextToken) {
+        this.eventStoreClient = eventStoreClient;
+        this.configuration = configuration;
+        this.upcasterChain = upcasterChain;
+        this.serializer = serializer;
+        this.payloadTypeFilter = payloadTypeFilter;
+        this.nextToken = nextToken;
+    }
+
+    /**
+     * Opens the stream to AxonHub, emitting events to given {@code sink}. The request for events is sent once the
+     * subscriber signals demand.
+     *
+     * @param sink the sink to emit events to
+     */
+    void start(FluxSink<TrackedEventMessage<?>> sink) {
+        this.sink = sink;
+        requestStream = eventStoreClient.listEvents(this, false);
+        sink.onDispose(this::close);
+        sink.onRequest(this::requestPermits);
+    }
+
+    @Override
+    public void onNext(EventWithToken eventWithToken) {
+        if (Event.getDefaultInstance().equals(eventWithToken.getEvent())) {
+            logger.debug("Heartbeat received...");
+            return;
+        }
+        if (!payloadTypeFilter.test(eventWithToken.getEvent().getPayload().getType())) {
+            requestPermits(1);
+            return;
+        }
+        List<TrackedEventMessage<?>> messages;
+        try {
+            messages = upcast(eventWithToken);
+        } catch (RuntimeException e) {
+            sink.error(e);
+            return;
+        }
+        if (messages.isEmpty()) {
+            requestPermits(1);
+        }
+        messages.forEach(sink::next);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        sink.error(new EventStoreException("Error while reading events from the server", throwable));
+    }
+
+    @Override
+    public void onCompleted() {
+        sink.error(new EventStoreException("Error while reading events from the server",
+                                           new RuntimeException("Connection closed by server")));
+    }
+
+    private List<TrackedEventMessage<?>> upcast(EventWithToken eventWithToken) {
+        Stream<TrackedDomainEventData<?>> eventData = Stream.of(new TrackedDomainEventData<>(
+                new GlobalSequenceTrackingToken(eventWithToken.getToken()),
+                new ByteStringDomainEventData(eventWithToken.getEvent(), eventStoreClient::decode)));
+        return EventUtils.upcastAndDeserializeTrackedEvents(eventData, serializer, upcasterChain, true)
+                         .collect(Collectors.toList());
+    }
+
+    private synchronized void requestPermits(long permits) {
+        if (closed || unbounded || permits <= 0) {
+            return;
+        }
+        unbounded = permits == Long.MAX_VALUE;
+        if (started) {
+            requestStream.onNext(GetEventsRequest.newBuilder().setNumberOfPermits(permits).build());
+            return;
+        }
+        started = true;
+        logger.info("open stream: {}", nextToken);
+        requestStream.onNext(GetEventsRequest.newBuilder()
+                                             .setTrackingToken(nextToken)
+                                             .setClient(configuration.getClientName())
+                                             .setComponent(configuration.getComponentName())
+                                             .setHeartbeatInterval(configuration.getHeartbeatInterval())
+                                             .setNumberOfPermits(permits)
+                                             .build());
+    }
+
+    private synchronized void close() {
+        if (!closed) {
+            closed = true;
+            requestStream.onCompleted();
+        }
+    }
+}
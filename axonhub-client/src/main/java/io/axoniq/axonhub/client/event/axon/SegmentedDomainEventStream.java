@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event.axon;
+
+import org.axonframework.eventsourcing.DomainEventMessage;
+import org.axonframework.eventsourcing.eventstore.DomainEventData;
+import org.axonframework.eventsourcing.eventstore.DomainEventStream;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * DomainEventStream that upcasts and deserializes the event data of an aggregate in segments rather than one event at a
+ * time. A segment is a run of consecutive entries of the same kind, either snapshots or regular events, so the
+ * serializer is chosen once per segment and each segment passes through the upcaster chain as a single stream.
+ * <p>
+ * Segments are read lazily from the source: the next segment is only started when the events of the previous one
+ * have been consumed. The source stream is closed when it is exhausted, or when reading or deserializing an event
+ * fails, releasing resources such as the server call providing the events.
+ */
+class SegmentedDomainEventStream implements DomainEventStream {
+
+    private final Stream<? extends DomainEventData<?>> sourceStream;
+    private final Iterator<? extends DomainEventData<?>> source;
+    private final Predicate<DomainEventData<?>> snapshotPredicate;
+    private final BiFunction<Stream<DomainEventData<?>>, Boolean, DomainEventStream> segmentDeserializer;
+
+    private DomainEventData<?> lookAhead;
+    private DomainEventStream segment = DomainEventStream.empty();
+    private Long previousLastSequenceNumber;
+
+    /**
+     * @param source              the event data of the aggregate, in order
+     * @param snapshotPredicate   predicate indicating whether an entry is a snapshot
+     * @param segmentDeserializer function that upcasts and deserializes a segment, given whether it contains snapshots
+     */
+    SegmentedDomainEventStream(Stream<? extends DomainEventData<?>> source,
+                               Predicate<DomainEventData<?>> snapshotPredicate,
+                               BiFunction<Stream<DomainEventData<?>>, Boolean, DomainEventStream> segmentDeserializer) {
+        this.sourceStream = source;
+        this.source = source.iterator();
+        this.snapshotPredicate = snapshotPredicate;
+        this.segmentDeserializer = segmentDeserializer;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            return advance();
+        } catch (RuntimeException e) {
+            sourceStream.close();
+            throw e;
+        }
+    }
+
+    private boolean advance() {
+        while (!segment.hasNext()) {
+            if (!fillLookAhead()) {
+                return false;
+            }
+            Long lastSequenceNumber = segment.getLastSequenceNumber();
+            if (lastSequenceNumber != null) {
+                previousLastSequenceNumber = lastSequenceNumber;
+            }
+            boolean snapshots = snapshotPredicate.test(lookAhead);
+            segment = segmentDeserializer.apply(StreamSupport.stream(new SegmentSpliterator(snapshots), false),
+                                                snapshots);
+        }
+        return true;
+    }
+
+    @Override
+    public DomainEventMessage<?> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            return segment.next();
+        } catch (RuntimeException e) {
+            sourceStream.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public DomainEventMessage<?> peek() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return segment.peek();
+    }
+
+    @Override
+    public Long getLastSequenceNumber() {
+        Long lastSequenceNumber = segment.getLastSequenceNumber();
+        return lastSequenceNumber != null ? lastSequenceNumber : previousLastSequenceNumber;
+    }
+
+    private boolean fillLookAhead() {
+        if (lookAhead == null) {
+            if (!source.hasNext()) {
+                sourceStream.close();
+                return false;
+            }
+            lookAhead = source.next();
+        }
+        return true;
+    }
+
+    private class SegmentSpliterator extends Spliterators.AbstractSpliterator<DomainEventData<?>> {
+
+        private final boolean snapshots;
+
+        private SegmentSpliterator(boolean snapshots) {
+            super(Long.MAX_VALUE, ORDERED | NONNULL);
+            this.snapshots = snapshots;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super DomainEventData<?>> action) {
+            if (!fillLookAhead() || snapshotPredicate.test(lookAhead) != snapshots) {
+                return false;
+            }
+            DomainEventData<?> next = lookAhead;
+            lookAhead = null;
+            action.accept(next);
+            return true;
+        }
+    }
+}
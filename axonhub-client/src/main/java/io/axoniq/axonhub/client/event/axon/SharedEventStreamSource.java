@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.axoniq.axonhub.client.event.axon;
+
+import org.axonframework.eventhandling.TrackedEventMessage;
+import org.axonframework.eventsourcing.eventstore.TrackingEventStream;
+import org.axonframework.eventsourcing.eventstore.TrackingToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Serves multiple tracking event streams from a single upstream event stream. A stream opened with a token that is
+ * within the window of recent events of the shared upstream is attached to it as a cursor, instead of opening another
+ * stream to AxonHub. Events are read from the upstream once, by the cursor that is at the head, and kept in a window
+ * of recent events that the other cursors read from. As the messages are shared between cursors, payloads are
+ * decrypted and deserialized only once.
+ * <p>
+ * Each cursor has its own position in the window. A cursor that falls more than the window size behind the head splits
+ * off to a dedicated stream starting at its own position, so that a slow consumer never holds back the others. Streams
+ * opened with a token outside the window get a dedicated stream as well. The upstream is closed when its last cursor
+ * is closed.
+ */
+public class SharedEventStreamSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedEventStreamSource.class);
+
+    private final Function<TrackingToken, TrackingEventStream> streamFactory;
+    private final int windowSize;
+    private SharedStream current;
+
+    /**
+     * @param streamFactory function opening an event stream starting after given token
+     * @param windowSize    number of recent events kept for the cursors of the shared stream
+     */
+    public SharedEventStreamSource(Function<TrackingToken, TrackingEventStream> streamFactory, int windowSize) {
+        this.streamFactory = streamFactory;
+        this.windowSize = Math.max(1, windowSize);
+    }
+
+    /**
+     * Opens a stream of the events following given {@code trackingToken}. The stream shares the upstream when the
+     * token is within its window, and uses a dedicated stream otherwise.
+     *
+     * @param trackingToken the token of the last processed event, or {@code null} to start at the beginning
+     * @return a stream of the events following the given token
+     */
+    public synchronized TrackingEventStream openStream(TrackingToken trackingToken) {
+        if (current == null) {
+            current = new SharedStream(trackingToken, streamFactory.apply(trackingToken));
+        }
+        TrackingEventStream cursor = current.attach(trackingToken);
+        if (cursor == null) {
+            logger.debug("Token {} not within window of shared stream, opening dedicated stream", trackingToken);
+            return streamFactory.apply(trackingToken);
+        }
+        return cursor;
+    }
+
+    /**
+     * Returns the number of streams attached to the shared upstream.
+     *
+     * @return the number of streams attached to the shared upstream
+     */
+    public synchronized int getSharedStreams() {
+        return current == null ? 0 : current.cursors.size();
+    }
+
+    private synchronized void detach(SharedStream stream, Cursor cursor) {
+        stream.cursors.remove(cursor);
+        if (stream.cursors.isEmpty()) {
+            release(stream);
+            stream.upstream.close();
+        }
+    }
+
+    private synchronized void release(SharedStream stream) {
+        if (current == stream) {
+            current = null;
+        }
+    }
+
+    private class SharedStream {
+
+        private final TrackingToken startToken;
+        private final TrackingEventStream upstream;
+        private final AtomicReferenceArray<Slot> window = new AtomicReferenceArray<>(windowSize);
+        private final ReentrantLock fetchLock = new ReentrantLock();
+        private final Set<Cursor> cursors = new HashSet<>();
+        private volatile long head;
+        private volatile RuntimeException failure;
+
+        private SharedStream(TrackingToken startToken, TrackingEventStream upstream) {
+            this.startToken = startToken;
+            this.upstream = upstream;
+        }
+
+        private Cursor attach(TrackingToken trackingToken) {
+            long position = positionOf(trackingToken);
+            if (position < 0 || failure != null) {
+                return null;
+            }
+            Cursor cursor = new Cursor(this, position, trackingToken);
+            cursors.add(cursor);
+            return cursor;
+        }
+
+        private long positionOf(TrackingToken trackingToken) {
+            long end = head;
+            long first = first(end);
+            if (first == 0 && Objects.equals(trackingToken, startToken)) {
+                return 0;
+            }
+            for (long position = end - 1; position >= first && trackingToken != null; position--) {
+                TrackedEventMessage<?> message = read(position);
+                if (message != null && trackingToken.equals(message.trackingToken())) {
+                    return position + 1;
+                }
+            }
+            return -1;
+        }
+
+        private long first(long end) {
+            return Math.max(0, end - windowSize);
+        }
+
+        /**
+         * Returns the message at given {@code position}, or {@code null} if it has been evicted from the window. The
+         * position must be below the head.
+         */
+        private TrackedEventMessage<?> read(long position) {
+            Slot slot = window.get((int) (position % windowSize));
+            // the slot holds a later position once the message has been evicted
+            return slot.position == position ? slot.message : null;
+        }
+
+        /**
+         * Reads the event at given {@code position} from the upstream, unless another cursor already did. Returns
+         * {@code true} if the event is available in the window.
+         */
+        private boolean fetch(long position, long deadline) throws InterruptedException {
+            if (!fetchLock.tryLock(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+            try {
+                if (head > position) {
+                    return true;
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+                long timeout = TimeUnit.NANOSECONDS.toMillis(Math.max(0, deadline - System.nanoTime()));
+                TrackedEventMessage<?> message = null;
+                if (upstream.hasNextAvailable((int) Math.min(Integer.MAX_VALUE, timeout), TimeUnit.MILLISECONDS)) {
+                    message = upstream.nextAvailable();
+                }
+                if (message == null) {
+                    return false;
+                }
+                window.set((int) (head % windowSize), new Slot(head, message));
+                head++;
+                return true;
+            } catch (RuntimeException e) {
+                failure = e;
+                release(this);
+                throw e;
+            } finally {
+                fetchLock.unlock();
+            }
+        }
+    }
+
+    private static class Slot {
+
+        private final long position;
+        private final TrackedEventMessage<?> message;
+
+        private Slot(long position, TrackedEventMessage<?> message) {
+            this.position = position;
+            this.message = message;
+        }
+    }
+
+    private class Cursor implements TrackingEventStream {
+
+        private final SharedStream stream;
+        private long position;
+        private TrackingToken lastToken;
+        private TrackingEventStream dedicated;
+        private boolean closed;
+
+        private Cursor(SharedStream stream, long position, TrackingToken lastToken) {
+            this.stream = stream;
+            this.position = position;
+            this.lastToken = lastToken;
+        }
+
+        @Override
+        public Optional<TrackedEventMessage<?>> peek() {
+            if (dedicated != null) {
+                return dedicated.peek();
+            }
+            try {
+                if (position >= stream.head && !stream.fetch(position, System.nanoTime())) {
+                    return Optional.empty();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Optional.empty();
+            }
+            TrackedEventMessage<?> message = stream.read(position);
+            if (message == null) {
+                return splitOff().peek();
+            }
+            return Optional.of(message);
+        }
+
+        @Override
+        public boolean hasNextAvailable(int timeout, TimeUnit unit) throws InterruptedException {
+            if (dedicated != null) {
+                return dedicated.hasNextAvailable(timeout, unit);
+            }
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (position >= stream.head) {
+                if (!stream.fetch(position, deadline)) {
+                    return false;
+                }
+            }
+            if (position < stream.first(stream.head)) {
+                return splitOff().hasNextAvailable((int) Math.max(0, unit.convert(deadline - System.nanoTime(),
+                                                                                  TimeUnit.NANOSECONDS)), unit);
+            }
+            return true;
+        }
+
+        @Override
+        public TrackedEventMessage<?> nextAvailable() throws InterruptedException {
+            if (dedicated == null && !hasNextAvailable(Integer.MAX_VALUE, TimeUnit.MILLISECONDS)) {
+                // interrupted while waiting, like the upstream
+                return null;
+            }
+            if (dedicated != null) {
+                return dedicated.nextAvailable();
+            }
+            TrackedEventMessage<?> message = stream.read(position);
+            if (message == null) {
+                return splitOff().nextAvailable();
+            }
+            position++;
+            lastToken = message.trackingToken();
+            return message;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (dedicated != null) {
+                dedicated.close();
+            } else {
+                detach(stream, this);
+            }
+        }
+
+        private TrackingEventStream splitOff() {
+            logger.debug("Stream at token {} fell behind shared stream, opening dedicated stream", lastToken);
+            detach(stream, this);
+            dedicated = streamFactory.apply(lastToken);
+            return dedicated;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event.axon;
+
+import org.axonframework.serialization.SerializedType;
+import org.axonframework.serialization.SimpleSerializedType;
+import org.axonframework.serialization.upcasting.event.EventUpcaster;
+import org.axonframework.serialization.upcasting.event.IntermediateEventRepresentation;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * EventUpcaster that learns, per payload type and revision, whether the wrapped upcaster chain leaves events unchanged.
+ * The first event of each type and revision is passed through the chain. When the chain returns that same event
+ * representation, and nothing else, events of that type and revision are passed by the chain from then on.
+ * <p>
+ * Events are passed to the chain one at a time, so this is only suitable for upcasters that decide on the type and
+ * revision of an event alone, and that do not depend on other events in the stream.
+ */
+public class ShortCircuitEventUpcaster implements EventUpcaster {
+
+    private final EventUpcaster delegate;
+    private final ConcurrentMap<SerializedType, Boolean> noOpTypes = new ConcurrentHashMap<>();
+
+    /**
+     * @param delegate the upcaster chain to short-circuit
+     */
+    public ShortCircuitEventUpcaster(EventUpcaster delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Stream<IntermediateEventRepresentation> upcast(Stream<IntermediateEventRepresentation> intermediateRepresentations) {
+        return intermediateRepresentations.flatMap(this::upcast);
+    }
+
+    private Stream<IntermediateEventRepresentation> upcast(IntermediateEventRepresentation representation) {
+        SerializedType type = new SimpleSerializedType(representation.getType().getName(),
+                                                       representation.getType().getRevision());
+        Boolean noOp = noOpTypes.get(type);
+        if (Boolean.TRUE.equals(noOp)) {
+            return Stream.of(representation);
+        }
+        if (noOp != null) {
+            return delegate.upcast(Stream.of(representation));
+        }
+        List<IntermediateEventRepresentation> upcast = delegate.upcast(Stream.of(representation))
+                                                               .collect(Collectors.toList());
+        noOpTypes.putIfAbsent(type, upcast.size() == 1 && upcast.get(0) == representation);
+        return upcast.stream();
+    }
+
+    /**
+     * Returns the number of payload types and revisions for which the wrapped chain is known to be a no-op.
+     *
+     * @return the number of types passed by the wrapped chain
+     */
+    public long getNoOpTypeCount() {
+        return noOpTypes.values().stream().filter(Boolean::booleanValue).count();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event.axon;
+
+import io.axoniq.axondb.Event;
+import org.axonframework.eventhandling.GenericEventMessage;
+import org.axonframework.eventhandling.GenericTrackedEventMessage;
+import org.axonframework.eventhandling.TrackedEventMessage;
+import org.axonframework.eventsourcing.eventstore.GlobalSequenceTrackingToken;
+import org.axonframework.messaging.MetaData;
+
+import java.time.Instant;
+
+/**
+ * Payload of the placeholder messages that event streams with a payload type filter hand out in place of the events
+ * they skip. A placeholder carries the tracking token, identifier and timestamp of the skipped event, so that tracking
+ * processors advance their token past skipped events. The skipped event itself is never decoded, upcast or
+ * deserialized.
+ * <p>
+ * Event handlers of a specific payload type never receive placeholders. Handlers accepting any payload, such as
+ * handlers of {@code Object}, do receive them, and should ignore payloads of this type.
+ */
+public final class SkippedEvent {
+
+    private final String payloadType;
+
+    private SkippedEvent(String payloadType) {
+        this.payloadType = payloadType;
+    }
+
+    /**
+     * Creates the placeholder message for given {@code event}, skipped at given {@code token}.
+     *
+     * @param token the global token of the skipped event
+     * @param event the skipped event
+     * @return a tracked message with a {@link SkippedEvent} payload
+     */
+    static TrackedEventMessage<SkippedEvent> asMessage(long token, Event event) {
+        return new GenericTrackedEventMessage<>(new GlobalSequenceTrackingToken(token),
+                                                new GenericEventMessage<>(event.getMessageIdentifier(),
+                                                                          new SkippedEvent(event.getPayload().getType()),
+                                                                          MetaData.emptyInstance(),
+                                                                          Instant.ofEpochMilli(event.getTimestamp())));
+    }
+
+    /**
+     * Returns the payload type of the skipped event, as stored.
+     *
+     * @return the serialized payload type of the skipped event
+     */
+    public String getPayloadType() {
+        return payloadType;
+    }
+
+    @Override
+    public String toString() {
+        return "SkippedEvent{payloadType='" + payloadType + "'}";
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event.axon;
+
+import org.axonframework.eventhandling.TrackedEventMessage;
+import org.axonframework.eventsourcing.eventstore.TrackedEventData;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterator over the messages of a tracking event stream in which some events are skipped. The events that are not
+ * skipped are upcast and deserialized as a single stream, so that upcasters see them in order. Skipped events are
+ * handed out as placeholder messages in their position in the stream, without passing the upcasters.
+ * <p>
+ * The source returns {@code null} when no item is available. The iterator then reports that it has no next message,
+ * and polls the source again on the next call.
+ *
+ * @param <S> the type of the items read from the source
+ * @see SkippedEvent
+ */
+class SkippingEventIterator<S> implements Iterator<TrackedEventMessage<?>> {
+
+    private final Supplier<S> source;
+    private final Function<S, TrackedEventMessage<?>> placeholders;
+    private final Function<S, TrackedEventData<?>> eventData;
+    private final Iterator<TrackedEventMessage<?>> messages;
+    private TrackedEventMessage<?> placeholder;
+
+    /**
+     * @param source       supplier of the next item, or {@code null} if none is available
+     * @param placeholders function returning the placeholder for a skipped item, or {@code null} for other items
+     * @param eventData    function returning the event data of an item that is not skipped
+     * @param upcaster     function upcasting and deserializing a stream of event data
+     */
+    SkippingEventIterator(Supplier<S> source, Function<S, TrackedEventMessage<?>> placeholders,
+                          Function<S, TrackedEventData<?>> eventData,
+                          Function<Stream<TrackedEventData<?>>, Stream<TrackedEventMessage<?>>> upcaster) {
+        this.source = source;
+        this.placeholders = placeholders;
+        this.eventData = eventData;
+        this.messages = upcaster.apply(StreamSupport.stream(new SourceSpliterator(), false)).iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+        // messages.hasNext() may set a placeholder while advancing the source, even when it returns false
+        return placeholder != null || messages.hasNext() || placeholder != null;
+    }
+
+    @Override
+    public TrackedEventMessage<?> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (placeholder != null) {
+            TrackedEventMessage<?> next = placeholder;
+            placeholder = null;
+            return next;
+        }
+        return messages.next();
+    }
+
+    private class SourceSpliterator extends Spliterators.AbstractSpliterator<TrackedEventData<?>> {
+
+        private SourceSpliterator() {
+            super(Long.MAX_VALUE, ORDERED | NONNULL);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super TrackedEventData<?>> action) {
+            if (placeholder != null) {
+                // streams may retry a read that returned nothing, which must not read past the placeholder
+                return false;
+            }
+            S item = source.get();
+            if (item == null) {
+                return false;
+            }
+            TrackedEventMessage<?> skipped = placeholders.apply(item);
+            if (skipped != null) {
+                // ends the current read, so that the placeholder is handed out before the next event
+                placeholder = skipped;
+                return false;
+            }
+            action.accept(eventData.apply(item));
+            return true;
+        }
+    }
+}
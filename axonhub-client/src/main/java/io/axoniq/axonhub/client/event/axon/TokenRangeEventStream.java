@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.axoniq.axonhub.client.event.axon;
+
+import org.axonframework.eventhandling.TrackedEventMessage;
+import org.axonframework.eventsourcing.eventstore.GlobalSequenceTrackingToken;
+import org.axonframework.eventsourcing.eventstore.TrackingEventStream;
+import org.axonframework.eventsourcing.eventstore.TrackingToken;
+
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event stream that ends at a given token. The stream reads the events following its start token from a delegate
+ * stream, up to and including the event with the end token, after which the delegate stream is closed and the stream
+ * is exhausted.
+ * <p>
+ * As the server streams events beyond the end of the range until the stream is closed, up to the number of permits
+ * granted, events following the range may be read and discarded.
+ */
+public class TokenRangeEventStream implements TrackingEventStream {
+
+    private final TrackingEventStream delegate;
+    private final long lastIndex;
+    private boolean exhausted;
+
+    /**
+     * @param delegate  the stream to read events from
+     * @param lastIndex the global index of the last event in the range, or {@link Long#MAX_VALUE} for a stream without
+     *                  end
+     */
+    public TokenRangeEventStream(TrackingEventStream delegate, long lastIndex) {
+        this.delegate = delegate;
+        this.lastIndex = lastIndex;
+    }
+
+    /**
+     * Indicates whether all events in the range have been read.
+     *
+     * @return {@code true} if all events in the range have been read, otherwise {@code false}
+     */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    @Override
+    public Optional<TrackedEventMessage<?>> peek() {
+        if (exhausted) {
+            return Optional.empty();
+        }
+        Optional<TrackedEventMessage<?>> next = delegate.peek();
+        if (next.isPresent() && !inRange(next.get())) {
+            exhaust();
+            return Optional.empty();
+        }
+        return next;
+    }
+
+    @Override
+    public boolean hasNextAvailable(int timeout, TimeUnit unit) throws InterruptedException {
+        if (exhausted || !delegate.hasNextAvailable(timeout, unit)) {
+            return false;
+        }
+        return peek().isPresent();
+    }
+
+    @Override
+    public TrackedEventMessage<?> nextAvailable() throws InterruptedException {
+        if (!hasNextAvailable(Integer.MAX_VALUE, TimeUnit.MILLISECONDS)) {
+            if (exhausted) {
+                throw new NoSuchElementException("All events in the token range have been read");
+            }
+            // interrupted while waiting
+            return null;
+        }
+        TrackedEventMessage<?> message = delegate.nextAvailable();
+        if (index(message.trackingToken()) >= lastIndex) {
+            exhaust();
+        }
+        return message;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private boolean inRange(TrackedEventMessage<?> message) {
+        return index(message.trackingToken()) <= lastIndex;
+    }
+
+    private void exhaust() {
+        exhausted = true;
+        delegate.close();
+    }
+
+    private static long index(TrackingToken trackingToken) {
+        return ((GlobalSequenceTrackingToken) trackingToken).getGlobalIndex();
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event.util;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import io.axoniq.axondb.Event;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses event payloads using Deflate. Compressed payloads start with a header consisting of a magic number and
+ * the uncompressed length, followed by the zlib stream. Payloads smaller than the minimum size, payloads no larger than
+ * that header, and payloads that do not get smaller are stored uncompressed, behind a header consisting of a different
+ * magic number. As every encoded payload has a header, any payload can be told apart from a compressed one, including
+ * payloads that happen to start with the magic number.
+ * <p>
+ * Payloads without either header are returned unchanged when decoding, so data stored before compression was enabled
+ * remains readable, unless such a payload starts with one of the magic numbers.
+ * <p>
+ * The uncompressed length in the header of a payload is checked against the maximum payload size before memory is
+ * allocated for it, so that a corrupt header does not cause an excessive allocation.
+ * <p>
+ * Small payloads of the same type tend to share most of their structure, such as JSON field names. A preset dictionary
+ * per payload type, containing a typical payload, improves their compression considerably. The zlib stream identifies
+ * the dictionary it was compressed with by its checksum, so a dictionary for a payload type must remain available for as
+ * long as events compressed with it are read. Dictionaries may be added for payload types that were compressed without
+ * one.
+ */
+public class DeflatePayloadCodec implements PayloadCodec {
+
+    private static final byte[] MAGIC_NUMBER = "AxZ1".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] STORED_MAGIC_NUMBER = "AxZ0".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_LENGTH = MAGIC_NUMBER.length + 4;
+    private static final int DEFAULT_MIN_SIZE = 256;
+    private static final int DEFAULT_MAX_SIZE = 64 * 1024 * 1024;
+
+    private final int minSize;
+    private final int maxSize;
+    private final Map<String, byte[]> dictionaries;
+    private final ThreadLocal<Deflater> deflater;
+    private final ThreadLocal<Inflater> inflater = ThreadLocal.withInitial(Inflater::new);
+
+    /**
+     * Initializes a codec compressing payloads of at least 256 bytes, using the default compression level and no
+     * dictionaries. Payloads of up to 64MB can be decompressed.
+     */
+    public DeflatePayloadCodec() {
+        this(Deflater.DEFAULT_COMPRESSION, DEFAULT_MIN_SIZE, Collections.emptyMap());
+    }
+
+    /**
+     * Initializes a codec that can decompress payloads of up to 64MB.
+     *
+     * @param level        the Deflate compression level (0-9), or {@link Deflater#DEFAULT_COMPRESSION}
+     * @param minSize      the minimum size (in bytes) of payloads to compress
+     * @param dictionaries preset dictionaries, by payload type
+     */
+    public DeflatePayloadCodec(int level, int minSize, Map<String, byte[]> dictionaries) {
+        this(level, minSize, DEFAULT_MAX_SIZE, dictionaries);
+    }
+
+    /**
+     * @param level        the Deflate compression level (0-9), or {@link Deflater#DEFAULT_COMPRESSION}
+     * @param minSize      the minimum size (in bytes) of payloads to compress
+     * @param maxSize      the maximum size (in bytes) of decompressed payloads
+     * @param dictionaries preset dictionaries, by payload type
+     */
+    public DeflatePayloadCodec(int level, int minSize, int maxSize, Map<String, byte[]> dictionaries) {
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.dictionaries = new HashMap<>(dictionaries);
+        this.deflater = ThreadLocal.withInitial(() -> new Deflater(level));
+    }
+
+    @Override
+    public Event encode(Event event) {
+        ByteString data = event.getPayload().getData();
+        // a compressed payload is never smaller than its header
+        if (data.size() < minSize || data.size() <= HEADER_LENGTH) {
+            return stored(event);
+        }
+        Deflater compressor = deflater.get();
+        compressor.reset();
+        byte[] dictionary = dictionaries.get(event.getPayload().getType());
+        if (dictionary != null) {
+            compressor.setDictionary(dictionary);
+        }
+        compressor.setInput(data.toByteArray());
+        compressor.finish();
+        // storing uncompressed is preferred when compression doesn't save anything
+        byte[] compressed = new byte[data.size()];
+        System.arraycopy(MAGIC_NUMBER, 0, compressed, 0, MAGIC_NUMBER.length);
+        writeInt(compressed, MAGIC_NUMBER.length, data.size());
+        int length = HEADER_LENGTH;
+        while (!compressor.finished() && length < compressed.length) {
+            length += compressor.deflate(compressed, length, compressed.length - length);
+        }
+        if (!compressor.finished()) {
+            return stored(event);
+        }
+        return withPayloadData(event, UnsafeByteOperations.unsafeWrap(compressed, 0, length));
+    }
+
+    @Override
+    public Event decode(Event event) {
+        ByteString data = event.getPayload().getData();
+        if (startsWith(data, STORED_MAGIC_NUMBER)) {
+            return withPayloadData(event, data.substring(STORED_MAGIC_NUMBER.length));
+        }
+        if (data.size() < HEADER_LENGTH || !startsWith(data, MAGIC_NUMBER)) {
+            return event;
+        }
+        int expectedLength = readInt(data, MAGIC_NUMBER.length);
+        if (expectedLength < 0) {
+            throw new EventStoreClientException("AXONIQ-8003", "Compressed payload is truncated or corrupt");
+        }
+        if (expectedLength > maxSize) {
+            throw new EventStoreClientException("AXONIQ-8003", "Compressed payload of " + expectedLength
+                    + " bytes exceeds the maximum payload size of " + maxSize + " bytes");
+        }
+        // one byte of slack, so that a stream longer than expected is detected
+        byte[] decompressed = new byte[expectedLength + 1];
+        Inflater decompressor = inflater.get();
+        decompressor.reset();
+        decompressor.setInput(data.substring(HEADER_LENGTH).toByteArray());
+        int length = 0;
+        try {
+            while (!decompressor.finished()) {
+                if (decompressor.needsDictionary()) {
+                    decompressor.setDictionary(dictionary(event.getPayload().getType()));
+                }
+                int inflated = decompressor.inflate(decompressed, length, decompressed.length - length);
+                length += inflated;
+                if (inflated == 0 && !decompressor.finished() && !decompressor.needsDictionary()
+                        && (decompressor.needsInput() || length == decompressed.length)) {
+                    break;
+                }
+            }
+        } catch (DataFormatException | IllegalArgumentException ex) {
+            throw new EventStoreClientException("AXONIQ-8003", "Error decompressing payload", ex);
+        }
+        if (!decompressor.finished() || length != expectedLength) {
+            throw new EventStoreClientException("AXONIQ-8003", "Compressed payload is truncated or corrupt");
+        }
+        return withPayloadData(event, UnsafeByteOperations.unsafeWrap(decompressed, 0, length));
+    }
+
+    private byte[] dictionary(String payloadType) {
+        byte[] dictionary = dictionaries.get(payloadType);
+        if (dictionary == null) {
+            throw new EventStoreClientException("AXONIQ-8003",
+                                                "No dictionary available to decompress payload of type " + payloadType);
+        }
+        return dictionary;
+    }
+
+    private static Event stored(Event event) {
+        return withPayloadData(event, ByteString.copyFrom(STORED_MAGIC_NUMBER).concat(event.getPayload().getData()));
+    }
+
+    private static boolean startsWith(ByteString data, byte[] magicNumber) {
+        if (data.size() < magicNumber.length) {
+            return false;
+        }
+        for (int i = 0; i < magicNumber.length; i++) {
+            if (data.byteAt(i) != magicNumber[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Event withPayloadData(Event event, ByteString data) {
+        return event.toBuilder()
+                    .setPayload(event.getPayload().toBuilder().setData(data))
+                    .build();
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(ByteString data, int offset) {
+        return (data.byteAt(offset) & 0xFF) << 24
+                | (data.byteAt(offset + 1) & 0xFF) << 16
+                | (data.byteAt(offset + 2) & 0xFF) << 8
+                | (data.byteAt(offset + 3) & 0xFF);
+    }
+}
@@ -16,35 +16,83 @@
 package io.axoniq.axonhub.client.event.util;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 import io.axoniq.axondb.Event;
 import io.axoniq.platform.SerializedObject;
 import io.axoniq.axondb.grpc.EventWithToken;
 
+import javax.crypto.AEADBadTagException;
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.Function;
 
-public class EventCipher {
+/**
+ * Encrypts and decrypts the payload data of events. The key to use for an event is determined by the key selector;
+ * events for which it returns a negative index are not encrypted.
+ * <p>
+ * Payloads are encrypted in one of two formats, depending on the {@link Mode}:
+ * <ul>
+ * <li>CBC: AES/CBC with an all-zero IV over a random nonce, a magic number and the payload. This is the original
+ * format, readable by all client versions.</li>
+ * <li>GCM: a versioned header, followed by a random 12 byte IV and the AES/GCM encrypted payload with its 16 byte
+ * authentication tag. The header is authenticated as additional data. It ends with a padding length and zero or one
+ * padding bytes, chosen so that the total length is never a multiple of the AES block size.</li>
+ * </ul>
+ * CBC data always is a multiple of the AES block size, so the length of a payload identifies its format. GCM payloads
+ * that fail authentication are rejected. A cipher in GCM mode rejects CBC payloads, as these are not authenticated,
+ * unless accepting them is enabled explicitly to read the events stored before switching to GCM. A cipher in CBC mode
+ * reads both formats. Note that clients that do not support GCM cannot read events encrypted with it.
+ */
+public class EventCipher implements PayloadCodec {
 
     private final static String ALGORITHM = "AES/CBC/PKCS5Padding";
+    private final static String GCM_ALGORITHM = "AES/GCM/NoPadding";
     private final static String MAGIC_NUMBER_STRING = "AxIQ";
     private final static int NONCE_LENGTH = 6;
+    private final static byte[] GCM_HEADER = "AxG1".getBytes(StandardCharsets.US_ASCII);
+    private final static int GCM_IV_LENGTH = 12;
+    private final static int GCM_TAG_BITS = 128;
+    private final static int GCM_MIN_HEADER_LENGTH = GCM_HEADER.length + 1;
+    private final static int GCM_OVERHEAD = GCM_MIN_HEADER_LENGTH + GCM_IV_LENGTH + GCM_TAG_BITS / 8;
+    private final static int BLOCK_SIZE = 16;
+    private final static int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Format used to encrypt event payloads.
+     */
+    public enum Mode {
+        /**
+         * AES/CBC, the original format
+         */
+        CBC,
+        /**
+         * AES/GCM, authenticated and hardware-accelerated on most platforms
+         */
+        GCM
+    }
 
     private Function<Event, Integer> keySelector;
+    private Mode mode;
+    private boolean acceptCbc;
     private SecretKeySpec[] secretKeys;
     private IvParameterSpec ivParameterSpec;
     private byte[] magicNumber;
     private ThreadLocal<Cipher>[] encryptingCiphers;
     private ThreadLocal<Cipher>[] decryptingCiphers;
+    private ThreadLocal<Cipher> gcmCipher;
     private ThreadLocal<SecureRandom> nonceGenerator;
+    private ThreadLocal<byte[]> inputBuffer = ThreadLocal.withInitial(() -> new byte[1024]);
 
     public EventCipher() {
         this(event -> -1, Collections.emptyList());
@@ -55,7 +103,32 @@ public class EventCipher {
     }
 
     public EventCipher(Function<Event, Integer> keySelector, List<byte[]> secretKeys) {
+        this(keySelector, secretKeys, Mode.CBC);
+    }
+
+    /**
+     * Initializes a cipher encrypting payloads in given {@code mode}. In GCM mode, payloads in the CBC format are
+     * rejected.
+     *
+     * @param keySelector function returning the index of the key to use for an event, or -1 to not encrypt it
+     * @param secretKeys  the AES keys
+     * @param mode        the format to encrypt payloads in
+     */
+    public EventCipher(Function<Event, Integer> keySelector, List<byte[]> secretKeys, Mode mode) {
+        this(keySelector, secretKeys, mode, false);
+    }
+
+    /**
+     * @param keySelector function returning the index of the key to use for an event, or -1 to not encrypt it
+     * @param secretKeys  the AES keys
+     * @param mode        the format to encrypt payloads in
+     * @param acceptCbc   whether a cipher in GCM mode decrypts payloads in the CBC format, to migrate from CBC.
+     *                    Ignored in CBC mode
+     */
+    public EventCipher(Function<Event, Integer> keySelector, List<byte[]> secretKeys, Mode mode, boolean acceptCbc) {
         this.keySelector = keySelector;
+        this.mode = mode;
+        this.acceptCbc = mode == Mode.CBC || acceptCbc;
         this.secretKeys = new SecretKeySpec[secretKeys.size()];
         for(int i = 0; i < this.secretKeys.length; i++) {
             byte[] key = secretKeys.get(i);
@@ -81,6 +154,16 @@ public class EventCipher {
             this.decryptingCiphers[i].get(); // If we can't create the cipher, better to know it sooner than later
         }
         this.nonceGenerator = ThreadLocal.withInitial(SecureRandom::new);
+        this.gcmCipher = ThreadLocal.withInitial(() -> {
+            try {
+                return Cipher.getInstance(GCM_ALGORITHM);
+            } catch (GeneralSecurityException ex) {
+                throw new EventStoreClientException("AXONIQ-8000", "Unexpected exception initializing crypto algorithm", ex);
+            }
+        });
+        if (mode == Mode.GCM) {
+            this.gcmCipher.get(); // If we can't create the cipher, better to know it sooner than later
+        }
     }
 
     private Cipher initCipher(int mode, int keyIndex) {
@@ -103,27 +186,166 @@ public class EventCipher {
     public Event encrypt(Event clearEvent) {
         int keyIndex = keySelector.apply(clearEvent);
         if(keyIndex < 0) return clearEvent;
-        return Event
-                .newBuilder(clearEvent)
-                .setPayload(SerializedObject
-                        .newBuilder(clearEvent.getPayload())
-                        .setData(ByteString.copyFrom(encryptBytes(keyIndex, clearEvent.getPayload().getData().toByteArray())))
-                        .build())
-                .build();
+        ByteString clearData = clearEvent.getPayload().getData();
+        ByteString cryptoData = mode == Mode.GCM ? encryptGcm(keyIndex, clearData) : encryptCbc(keyIndex, clearData);
+        return withPayloadData(clearEvent, cryptoData);
     }
 
     public Event decrypt(Event cryptoEvent) {
         int keyIndex = keySelector.apply(cryptoEvent);
         if(keyIndex < 0) return cryptoEvent;
-        return Event
-                .newBuilder(cryptoEvent)
-                .setPayload(SerializedObject
-                        .newBuilder(cryptoEvent.getPayload())
-                        .setData(ByteString.copyFrom(decryptBytes(keyIndex, cryptoEvent.getPayload().getData().toByteArray())))
-                        .build())
-                .build();
+        ByteString cryptoData = cryptoEvent.getPayload().getData();
+        ByteString clearData;
+        if (cryptoData.size() % BLOCK_SIZE != 0) {
+            clearData = decryptGcm(keyIndex, cryptoData);
+        } else if (acceptCbc) {
+            clearData = decryptCbc(keyIndex, cryptoData);
+        } else {
+            throw new EventStoreClientException("AXONIQ-8002", "Payload is not in the GCM format");
+        }
+        return withPayloadData(cryptoEvent, clearData);
+    }
+
+    @Override
+    public Event encode(Event event) {
+        return encrypt(event);
+    }
+
+    @Override
+    public Event decode(Event event) {
+        return decrypt(event);
+    }
+
+    private static Event withPayloadData(Event event, ByteString data) {
+        return event.toBuilder()
+                    .setPayload(event.getPayload().toBuilder().setData(data))
+                    .build();
+    }
+
+    private ByteString encryptCbc(int keyIndex, ByteString clearData) {
+        Cipher cipher = encryptingCiphers[keyIndex].get();
+        int prefixLength = NONCE_LENGTH + magicNumber.length;
+        byte[] prefix = new byte[prefixLength];
+        nonceGenerator.get().nextBytes(prefix);
+        System.arraycopy(magicNumber, 0, prefix, NONCE_LENGTH, magicNumber.length);
+        byte[] cryptoBytes = new byte[cipher.getOutputSize(prefixLength + clearData.size())];
+        byte[] input = input(clearData);
+        try {
+            int length = cipher.update(prefix, 0, prefixLength, cryptoBytes, 0);
+            length += cipher.doFinal(input, 0, clearData.size(), cryptoBytes, length);
+            return UnsafeByteOperations.unsafeWrap(cryptoBytes, 0, length);
+        } catch (IllegalBlockSizeException | BadPaddingException | ShortBufferException ex) {
+            throw new EventStoreClientException("AXONIQ-8000", "Unexpected error encrypting cleartext", ex);
+        }
+    }
+
+    private ByteString decryptCbc(int keyIndex, ByteString cryptoData) {
+        Cipher cipher = decryptingCiphers[keyIndex].get();
+        byte[] decryptedBytes = new byte[cipher.getOutputSize(cryptoData.size())];
+        byte[] input = input(cryptoData);
+        int length;
+        try {
+            length = cipher.doFinal(input, 0, cryptoData.size(), decryptedBytes, 0);
+        } catch (IllegalBlockSizeException | BadPaddingException | ShortBufferException ex) {
+            throw new EventStoreClientException("AXONIQ-8002", "Crypto error decrypting payload", ex);
+        }
+        int prefixLength = NONCE_LENGTH + magicNumber.length;
+        if (length < prefixLength || !regionMatches(decryptedBytes, NONCE_LENGTH, magicNumber)) {
+            throw new EventStoreClientException("AXONIQ-8002", "Missing magic number after decryption");
+        }
+        return UnsafeByteOperations.unsafeWrap(decryptedBytes, prefixLength, length - prefixLength);
+    }
+
+    private ByteString encryptGcm(int keyIndex, ByteString clearData) {
+        Cipher cipher = gcmCipher.get();
+        // pad the header so that the result is never mistaken for CBC data, which is a multiple of the block size
+        int padding = (GCM_OVERHEAD + clearData.size()) % BLOCK_SIZE == 0 ? 1 : 0;
+        int headerLength = GCM_MIN_HEADER_LENGTH + padding;
+        byte[] cryptoBytes = new byte[GCM_OVERHEAD + padding + clearData.size()];
+        System.arraycopy(GCM_HEADER, 0, cryptoBytes, 0, GCM_HEADER.length);
+        cryptoBytes[GCM_HEADER.length] = (byte) padding;
+        byte[] iv = new byte[GCM_IV_LENGTH];
+        nonceGenerator.get().nextBytes(iv);
+        System.arraycopy(iv, 0, cryptoBytes, headerLength, GCM_IV_LENGTH);
+        int offset = headerLength + GCM_IV_LENGTH;
+        byte[] input = input(clearData);
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, secretKeys[keyIndex], new GCMParameterSpec(GCM_TAG_BITS, iv));
+            cipher.updateAAD(cryptoBytes, 0, headerLength);
+            int length = cipher.doFinal(input, 0, clearData.size(), cryptoBytes, offset);
+            return UnsafeByteOperations.unsafeWrap(cryptoBytes, 0, offset + length);
+        } catch (GeneralSecurityException ex) {
+            throw new EventStoreClientException("AXONIQ-8000", "Unexpected error encrypting cleartext", ex);
+        }
+    }
+
+    private ByteString decryptGcm(int keyIndex, ByteString cryptoData) {
+        int padding = gcmPadding(cryptoData);
+        int headerLength = GCM_MIN_HEADER_LENGTH + padding;
+        Cipher cipher = gcmCipher.get();
+        int offset = headerLength + GCM_IV_LENGTH;
+        byte[] input = input(cryptoData);
+        byte[] decryptedBytes = new byte[cryptoData.size() - GCM_OVERHEAD - padding];
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, secretKeys[keyIndex],
+                        new GCMParameterSpec(GCM_TAG_BITS, input, headerLength, GCM_IV_LENGTH));
+            cipher.updateAAD(input, 0, headerLength);
+            int length = cipher.doFinal(input, offset, cryptoData.size() - offset, decryptedBytes, 0);
+            return UnsafeByteOperations.unsafeWrap(decryptedBytes, 0, length);
+        } catch (AEADBadTagException ex) {
+            throw new EventStoreClientException("AXONIQ-8002", "Payload failed authentication", ex);
+        } catch (GeneralSecurityException ex) {
+            throw new EventStoreClientException("AXONIQ-8002", "Crypto error decrypting payload", ex);
+        }
+    }
+
+    /**
+     * Returns the contents of given {@code data} in a buffer that is reused by the current thread, as the ciphers
+     * process arrays considerably faster than read-only byte buffers. The buffer is only valid until the next call.
+     */
+    private byte[] input(ByteString data) {
+        byte[] buffer = inputBuffer.get();
+        if (buffer.length < data.size()) {
+            buffer = new byte[Math.max(data.size(), Math.min(buffer.length * 2, MAX_POOLED_BUFFER_SIZE))];
+            if (buffer.length <= MAX_POOLED_BUFFER_SIZE) {
+                inputBuffer.set(buffer);
+            }
+        }
+        data.copyTo(buffer, 0);
+        return buffer;
+    }
+
+    /**
+     * Returns the number of padding bytes in the header of given GCM data, after checking the header.
+     */
+    private static int gcmPadding(ByteString cryptoData) {
+        if (cryptoData.size() < GCM_OVERHEAD) {
+            throw new EventStoreClientException("AXONIQ-8002", "Payload is not in the GCM format");
+        }
+        for (int i = 0; i < GCM_HEADER.length; i++) {
+            if (cryptoData.byteAt(i) != GCM_HEADER[i]) {
+                throw new EventStoreClientException("AXONIQ-8002", "Payload is not in the GCM format");
+            }
+        }
+        int padding = cryptoData.byteAt(GCM_HEADER.length);
+        if (padding < 0 || padding > 1 || cryptoData.size() < GCM_OVERHEAD + padding) {
+            throw new EventStoreClientException("AXONIQ-8002", "Payload is not in the GCM format");
+        }
+        return padding;
+    }
+
+    private static boolean regionMatches(byte[] bytes, int offset, byte[] expected) {
+        for (int i = 0; i < expected.length; i++) {
+            if (bytes[offset + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
     }
 
+    /**
+     * Encrypts given {@code clearBytes} in the CBC format.
+     */
     protected byte[] encryptBytes(int keyIndex, byte[] clearBytes) {
         Cipher cipher = encryptingCiphers[keyIndex].get();
 
@@ -140,6 +362,9 @@ public class EventCipher {
         }
     }
 
+    /**
+     * Decrypts given {@code cryptoBytes} in the CBC format.
+     */
     protected byte[] decryptBytes(int keyIndex, byte[] cryptoBytes) {
         Cipher cipher = decryptingCiphers[keyIndex].get();
         byte[] decryptedBytes;
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event.util;
+
+import io.axoniq.axondb.Event;
+
+/**
+ * Transforms the payload data of events when they are appended to the event store, and reverses the transformation
+ * when they are read. Codecs must write a self-describing format, so that {@link #decode(Event)} recognizes data it
+ * did not encode, such as events stored before the codec was configured, and returns those unchanged.
+ * <p>
+ * Codecs only transform the payload data. The payload type and meta data of events are stored as provided.
+ *
+ * @see PayloadCodecChain
+ */
+public interface PayloadCodec {
+
+    /**
+     * Transforms the payload data of given {@code event} before it is stored.
+     *
+     * @param event the event as provided by the application
+     * @return the event with encoded payload data
+     */
+    Event encode(Event event);
+
+    /**
+     * Restores the payload data of given {@code event} as it was before encoding.
+     *
+     * @param event the event as read from the event store
+     * @return the event with decoded payload data
+     */
+    Event decode(Event event);
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event.util;
+
+import io.axoniq.axondb.Event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Applies a sequence of codecs to event payloads. Payloads are encoded by the codecs in the order given, and decoded
+ * in reverse order. Compressing codecs should therefore be placed before encrypting ones, as encrypted data does not
+ * compress.
+ */
+public class PayloadCodecChain implements PayloadCodec {
+
+    private final PayloadCodec[] codecs;
+
+    /**
+     * @param codecs the codecs to apply, in encoding order
+     */
+    public PayloadCodecChain(PayloadCodec... codecs) {
+        this(Arrays.asList(codecs));
+    }
+
+    /**
+     * @param codecs the codecs to apply, in encoding order
+     */
+    public PayloadCodecChain(List<PayloadCodec> codecs) {
+        this.codecs = codecs.toArray(new PayloadCodec[0]);
+    }
+
+    @Override
+    public Event encode(Event event) {
+        Event encoded = event;
+        for (PayloadCodec codec : codecs) {
+            encoded = codec.encode(encoded);
+        }
+        return encoded;
+    }
+
+    @Override
+    public Event decode(Event event) {
+        Event decoded = event;
+        for (int i = codecs.length - 1; i >= 0; i--) {
+            decoded = codecs[i].decode(decoded);
+        }
+        return decoded;
+    }
+
+    /**
+     * Returns the codecs in this chain, in encoding order.
+     *
+     * @return the codecs in this chain
+     */
+    public List<PayloadCodec> getCodecs() {
+        return new ArrayList<>(Arrays.asList(codecs));
+    }
+}
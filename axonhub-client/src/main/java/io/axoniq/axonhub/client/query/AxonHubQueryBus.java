@@ -24,6 +24,8 @@ import io.axoniq.axonhub.client.DispatchInterceptors;
 import io.axoniq.axonhub.client.ErrorCode;
 import io.axoniq.axonhub.client.PlatformConnectionManager;
 import io.axoniq.axonhub.client.command.AxonHubRegistration;
+import io.axoniq.axonhub.client.util.ChannelStub;
+import io.axoniq.axonhub.client.util.CompressingInterceptor;
 import io.axoniq.axonhub.client.util.ContextAddingInterceptor;
 import io.axoniq.axonhub.client.util.ExceptionSerializer;
 import io.axoniq.axonhub.client.util.FlowControllingStreamObserver;
@@ -91,6 +93,7 @@ public class AxonHubQueryBus implements QueryBus {
     private final QueryProvider queryProvider;
     private final PlatformConnectionManager platformConnectionManager;
     private final ClientInterceptor[] interceptors;
+    private final ChannelStub<QueryServiceGrpc.QueryServiceStub> queryService;
     private final DispatchInterceptors<QueryMessage<?, ?>> dispatchInterceptors = new DispatchInterceptors<>();
     private final Map<RequestCase, Collection<Consumer<QueryProviderInbound>>> queryHandlers = new EnumMap<>(RequestCase.class);
 
@@ -117,7 +120,10 @@ public class AxonHubQueryBus implements QueryBus {
         this.platformConnectionManager.addReconnectListener(queryProvider::resubscribe);
         this.platformConnectionManager.addDisconnectListener(queryProvider::unsubscribeAll);
         interceptors = new ClientInterceptor[]{new TokenAddingInterceptor(configuration.getToken()),
-                new ContextAddingInterceptor(configuration.getContext())};
+                new ContextAddingInterceptor(configuration.getContext()),
+                new CompressingInterceptor(configuration.getQueryCompression(), configuration.getCompressionThreshold())};
+        queryService = new ChannelStub<>(platformConnectionManager::getChannel,
+                                         channel -> QueryServiceGrpc.newStub(channel).withInterceptors(interceptors));
 
 
     }
@@ -173,7 +179,7 @@ public class AxonHubQueryBus implements QueryBus {
     }
 
     public QueryServiceGrpc.QueryServiceStub queryServiceStub() {
-        return QueryServiceGrpc.newStub(platformConnectionManager.getChannel()).withInterceptors(interceptors);
+        return queryService.get();
     }
 
     @Override
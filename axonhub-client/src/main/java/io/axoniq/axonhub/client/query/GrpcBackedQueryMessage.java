@@ -17,11 +17,10 @@ package io.axoniq.axonhub.client.query;
 
 import io.axoniq.axonhub.QueryRequest;
 import io.axoniq.axonhub.client.util.GrpcMetadata;
-import io.axoniq.axonhub.client.util.GrpcSerializedObject;
+import io.axoniq.axonhub.client.util.LazyGrpcObject;
 import org.axonframework.messaging.MetaData;
 import org.axonframework.queryhandling.QueryMessage;
 import org.axonframework.queryhandling.responsetypes.ResponseType;
-import org.axonframework.serialization.LazyDeserializingObject;
 import org.axonframework.serialization.Serializer;
 
 import java.util.Map;
@@ -36,21 +35,21 @@ public class GrpcBackedQueryMessage<Q, R> implements QueryMessage<Q, R> {
 
     private final QueryRequest query;
     private final Serializer messageSerializer;
-    private final LazyDeserializingObject<Q> serializedPayload;
-    private final LazyDeserializingObject<ResponseType<R>> serializedResponseType;
+    private final LazyGrpcObject<Q> serializedPayload;
+    private final LazyGrpcObject<ResponseType<R>> serializedResponseType;
     private final Supplier<MetaData> metadata;
 
     public GrpcBackedQueryMessage(QueryRequest query, Serializer messageSerializer, Serializer genericSerializer) {
         this.query = query;
         this.messageSerializer = messageSerializer;
-        this.serializedPayload = new LazyDeserializingObject<>(new GrpcSerializedObject(query.getPayload()), messageSerializer);
-        this.serializedResponseType = new LazyDeserializingObject<>(new GrpcSerializedObject(query.getResponseType()), genericSerializer);
+        this.serializedPayload = new LazyGrpcObject<>(query.getPayload(), messageSerializer);
+        this.serializedResponseType = new LazyGrpcObject<>(query.getResponseType(), genericSerializer);
         this.metadata = new GrpcMetadata(query.getMetaDataMap(), messageSerializer);
     }
 
     public GrpcBackedQueryMessage(QueryRequest query, Serializer messageSerializer,
-                                  LazyDeserializingObject<Q> serializedPayload,
-                                  LazyDeserializingObject<ResponseType<R>> serializedResponseType,
+                                  LazyGrpcObject<Q> serializedPayload,
+                                  LazyGrpcObject<ResponseType<R>> serializedResponseType,
                                   Supplier<MetaData> metadata) {
         this.query = query;
         this.messageSerializer = messageSerializer;
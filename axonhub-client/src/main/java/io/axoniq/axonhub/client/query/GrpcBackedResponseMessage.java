@@ -17,10 +17,9 @@ package io.axoniq.axonhub.client.query;
 
 import io.axoniq.axonhub.QueryResponse;
 import io.axoniq.axonhub.client.util.GrpcMetadata;
-import io.axoniq.axonhub.client.util.GrpcSerializedObject;
+import io.axoniq.axonhub.client.util.LazyGrpcObject;
 import org.axonframework.messaging.MetaData;
 import org.axonframework.queryhandling.QueryResponseMessage;
-import org.axonframework.serialization.LazyDeserializingObject;
 import org.axonframework.serialization.Serializer;
 
 import java.util.Map;
@@ -35,7 +34,7 @@ public class GrpcBackedResponseMessage<R> implements QueryResponseMessage<R> {
 
     private final QueryResponse queryResponse;
     private final Serializer messageSerializer;
-    private final LazyDeserializingObject<R> serializedPayload;
+    private final LazyGrpcObject<R> serializedPayload;
     private final Supplier<MetaData> metadata;
 
     public GrpcBackedResponseMessage(QueryResponse queryResponse, Serializer messageSerializer) {
@@ -43,14 +42,13 @@ public class GrpcBackedResponseMessage<R> implements QueryResponseMessage<R> {
         this.messageSerializer = messageSerializer;
         this.metadata = new GrpcMetadata(queryResponse.getMetaDataMap(), messageSerializer);
         if( queryResponse.hasPayload() && !"empty".equalsIgnoreCase(queryResponse.getPayload().getType())) {
-            this.serializedPayload = new LazyDeserializingObject<>(new GrpcSerializedObject(queryResponse.getPayload()),
-                                                                   messageSerializer);
+            this.serializedPayload = new LazyGrpcObject<>(queryResponse.getPayload(), messageSerializer);
         } else {
             this.serializedPayload = null;
         }
     }
 
-    private GrpcBackedResponseMessage(QueryResponse queryResponse, Serializer messageSerializer, LazyDeserializingObject<R> serializedPayload, Supplier<MetaData> metadata) {
+    private GrpcBackedResponseMessage(QueryResponse queryResponse, Serializer messageSerializer, LazyGrpcObject<R> serializedPayload, Supplier<MetaData> metadata) {
 
         this.queryResponse = queryResponse;
         this.messageSerializer = messageSerializer;
@@ -17,10 +17,9 @@ package io.axoniq.axonhub.client.query.subscription;
 
 import io.axoniq.axonhub.QueryUpdate;
 import io.axoniq.axonhub.client.util.GrpcMetadata;
-import io.axoniq.axonhub.client.util.GrpcSerializedObject;
+import io.axoniq.axonhub.client.util.LazyGrpcObject;
 import org.axonframework.messaging.MetaData;
 import org.axonframework.queryhandling.SubscriptionQueryUpdateMessage;
-import org.axonframework.serialization.LazyDeserializingObject;
 import org.axonframework.serialization.Serializer;
 
 import java.util.Map;
@@ -32,12 +31,12 @@ import java.util.Map;
 class GrpcBackedQueryUpdateMessage<U> implements SubscriptionQueryUpdateMessage<U> {
 
     private final QueryUpdate queryUpdate;
-    private final LazyDeserializingObject<U> payload;
+    private final LazyGrpcObject<U> payload;
     private final GrpcMetadata metadata;
 
     public GrpcBackedQueryUpdateMessage(QueryUpdate update, Serializer serializer) {
         this.queryUpdate = update;
-        this.payload = new LazyDeserializingObject<>(new GrpcSerializedObject(update.getPayload()), serializer) ;
+        this.payload = new LazyGrpcObject<>(update.getPayload(), serializer);
         this.metadata = new GrpcMetadata(update.getMetaDataMap(), serializer);
     }
 
@@ -18,11 +18,10 @@ package io.axoniq.axonhub.client.query.subscription;
 import io.axoniq.axonhub.QueryRequest;
 import io.axoniq.axonhub.SubscriptionQuery;
 import io.axoniq.axonhub.client.query.GrpcBackedQueryMessage;
-import io.axoniq.axonhub.client.util.GrpcSerializedObject;
+import io.axoniq.axonhub.client.util.LazyGrpcObject;
 import org.axonframework.messaging.MetaData;
 import org.axonframework.queryhandling.SubscriptionQueryMessage;
 import org.axonframework.queryhandling.responsetypes.ResponseType;
-import org.axonframework.serialization.LazyDeserializingObject;
 import org.axonframework.serialization.Serializer;
 
 import java.util.Map;
@@ -35,13 +34,13 @@ public class GrpcBackedSubscriptionQueryMessage<Q,I,U> implements SubscriptionQu
 
     private final SubscriptionQuery subscriptionQuery;
     private final GrpcBackedQueryMessage<Q, I> grpcBackedQueryMessage;
-    private final LazyDeserializingObject<ResponseType<U>> updateType;
+    private final LazyGrpcObject<ResponseType<U>> updateType;
 
 
     public GrpcBackedSubscriptionQueryMessage(SubscriptionQuery subscriptionQuery, Serializer messageSerializer, Serializer genericSerializer) {
         this.subscriptionQuery = subscriptionQuery;
         QueryRequest query = subscriptionQuery.getQueryRequest();
-        this.updateType = new LazyDeserializingObject<>(new GrpcSerializedObject(query.getResponseType()), genericSerializer);
+        this.updateType = new LazyGrpcObject<>(query.getResponseType(), genericSerializer);
         grpcBackedQueryMessage = new GrpcBackedQueryMessage<>(query, messageSerializer, genericSerializer);
     }
 
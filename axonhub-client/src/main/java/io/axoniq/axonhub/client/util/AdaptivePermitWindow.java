@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.util;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Sizes the window of outstanding permits of a message stream from the observed consumption rate and round-trip
+ * time, so that the server can keep the consumer busy without buffering more messages than it processes in a
+ * round-trip. The window is kept within configured minimum and maximum bounds.
+ * <p>
+ * The round-trip time is sampled when permits are granted while none are outstanding: it is the time until the next
+ * message is consumed. The consumption rate is sampled between grants. Both are smoothed using a moving average.
+ */
+class AdaptivePermitWindow {
+
+    private static final double SMOOTHING = 0.25;
+    private static final double HEADROOM = 2.0;
+
+    private final long minPermits;
+    private final long maxPermits;
+    private final LongSupplier clock;
+
+    private volatile boolean starved;
+    private long starvedSince;
+    private long window;
+    private long outstandingAfterGrant;
+    private long lastGrant;
+    private double roundTripTime;
+    private double consumptionRate;
+
+    AdaptivePermitWindow(long minPermits, long maxPermits) {
+        this(minPermits, maxPermits, System::nanoTime);
+    }
+
+    AdaptivePermitWindow(long minPermits, long maxPermits, LongSupplier clock) {
+        this.minPermits = Math.max(1, minPermits);
+        this.maxPermits = Math.max(this.minPermits, maxPermits);
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the number of permits to send in the initial request, given the configured number of initial permits.
+     *
+     * @param initialPermits the configured number of initial permits
+     * @return the initial window
+     */
+    synchronized long initialWindow(long initialPermits) {
+        window = clamp(initialPermits);
+        outstandingAfterGrant = window;
+        lastGrant = clock.getAsLong();
+        starvedSince = lastGrant;
+        starved = true;
+        return window;
+    }
+
+    /**
+     * Notifies the window of a consumed message. Takes a round-trip sample if this is the first message consumed after
+     * permits were granted to a starved stream.
+     */
+    void consumed() {
+        if (starved) {
+            sampleRoundTrip();
+        }
+    }
+
+    private synchronized void sampleRoundTrip() {
+        if (!starved) {
+            return;
+        }
+        double sample = clock.getAsLong() - starvedSince;
+        starved = false;
+        roundTripTime = roundTripTime == 0 ? sample : roundTripTime + SMOOTHING * (sample - roundTripTime);
+    }
+
+    /**
+     * Returns the number of permits needed to fill the window, given the number of permits that are still
+     * {@code outstanding}, after resizing the window based on the messages consumed since the previous grant.
+     *
+     * @param outstanding the number of permits granted and not consumed yet
+     * @return the number of permits to grant to fill the window
+     */
+    synchronized long permitsToFill(long outstanding) {
+        long elapsed = clock.getAsLong() - lastGrant;
+        long consumed = outstandingAfterGrant - outstanding;
+        if (elapsed > 0 && consumed > 0) {
+            double sample = (double) consumed / elapsed;
+            consumptionRate = consumptionRate == 0 ? sample : consumptionRate + SMOOTHING * (sample - consumptionRate);
+        }
+        if (roundTripTime > 0 && consumptionRate > 0) {
+            window = clamp((long) Math.ceil(consumptionRate * roundTripTime * HEADROOM));
+        }
+        return Math.max(0, window - outstanding);
+    }
+
+    /**
+     * Registers that {@code permits} have been sent to the server while {@code outstanding} permits were not consumed
+     * yet.
+     *
+     * @param outstanding the number of permits granted and not consumed before this grant
+     * @param permits     the number of permits granted
+     */
+    synchronized void granted(long outstanding, long permits) {
+        lastGrant = clock.getAsLong();
+        outstandingAfterGrant = outstanding + permits;
+        if (outstanding == 0 && permits > 0) {
+            starvedSince = lastGrant;
+            starved = true;
+        }
+    }
+
+    /**
+     * Returns the number of outstanding permits at which new permits should be granted.
+     *
+     * @return the refill threshold
+     */
+    synchronized long refillThreshold() {
+        return window / 2;
+    }
+
+    synchronized long getWindow() {
+        return window;
+    }
+
+    private long clamp(long permits) {
+        return Math.min(maxPermits, Math.max(minPermits, permits));
+    }
+}
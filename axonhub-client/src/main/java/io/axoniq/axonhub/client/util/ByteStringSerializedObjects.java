@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.util;
+
+import com.google.protobuf.ByteString;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.SimpleSerializedObject;
+
+/**
+ * Helper to provide the payload of a protobuf {@link io.axoniq.platform.SerializedObject} to a serializer, without
+ * copying the data when the serializer is able to read from a {@link ByteString}.
+ * <p>
+ * The converters for ByteString are registered as {@link org.axonframework.serialization.ContentTypeConverter}
+ * services, so they are available to serializers using a {@link org.axonframework.serialization.ChainingConverter}.
+ */
+public class ByteStringSerializedObjects {
+
+    private ByteStringSerializedObjects() {
+    }
+
+    /**
+     * Returns a SerializedObject backed by the ByteString of given {@code payload}.
+     *
+     * @param payload the protobuf representation of the serialized object
+     * @return SerializedObject containing the ByteString of the payload
+     */
+    public static SerializedObject<ByteString> of(io.axoniq.platform.SerializedObject payload) {
+        String revision = payload.getRevision();
+        return new SimpleSerializedObject<>(payload.getData(), ByteString.class, payload.getType(),
+                                            "".equals(revision) ? null : revision);
+    }
+
+    /**
+     * Returns a SerializedObject for given {@code payload} that the given {@code serializer} is able to deserialize.
+     * This is backed by the ByteString of the payload, unless the serializer cannot convert from a ByteString, in
+     * which case the data is copied to a byte array.
+     *
+     * @param payload    the protobuf representation of the serialized object
+     * @param serializer the serializer that will deserialize the object
+     * @return SerializedObject containing the payload data
+     */
+    public static SerializedObject<?> of(io.axoniq.platform.SerializedObject payload, Serializer serializer) {
+        SerializedObject<ByteString> serializedObject = of(payload);
+        return supportsByteString(serializer) ? serializedObject : toByteArray(serializedObject);
+    }
+
+    /**
+     * Indicates whether given {@code serializer} can read data from a {@link ByteString}.
+     *
+     * @param serializer the serializer to verify
+     * @return {@code true} if the serializer's converter can convert from ByteString, otherwise {@code false}
+     */
+    public static boolean supportsByteString(Serializer serializer) {
+        return serializer.getConverter().canConvert(ByteString.class, byte[].class);
+    }
+
+    /**
+     * Copies the data of given ByteString backed {@code serializedObject} to a byte array.
+     *
+     * @param serializedObject the ByteString backed serialized object
+     * @return SerializedObject with the same type, containing a copy of the data as a byte array
+     */
+    public static SerializedObject<byte[]> toByteArray(SerializedObject<ByteString> serializedObject) {
+        return new SimpleSerializedObject<>(serializedObject.getData().toByteArray(), byte[].class,
+                                            serializedObject.getType());
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.util;
+
+import com.google.protobuf.ByteString;
+import org.axonframework.serialization.ContentTypeConverter;
+
+/**
+ * Converts the {@link ByteString} representation of a payload to a byte array. Note that this copies the data.
+ */
+public class ByteStringToByteArrayConverter implements ContentTypeConverter<ByteString, byte[]> {
+
+    @Override
+    public Class<ByteString> expectedSourceType() {
+        return ByteString.class;
+    }
+
+    @Override
+    public Class<byte[]> targetType() {
+        return byte[].class;
+    }
+
+    @Override
+    public byte[] convert(ByteString original) {
+        return original.toByteArray();
+    }
+}
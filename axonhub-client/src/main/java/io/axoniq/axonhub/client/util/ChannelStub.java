@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.util;
+
+import io.grpc.Channel;
+import io.grpc.stub.AbstractStub;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Holder of a gRPC stub that is reused for as long as the channel it was created for is the current channel. Stubs are
+ * immutable and thread-safe, so one stub per channel suffices for all callers. A new stub is created when the channel
+ * supplier returns a different channel, for instance after reconnecting.
+ *
+ * @param <S> the type of stub
+ */
+public class ChannelStub<S extends AbstractStub<S>> {
+
+    private final Supplier<Channel> channelSupplier;
+    private final Function<Channel, S> stubFactory;
+    private volatile Binding<S> binding;
+
+    /**
+     * @param channelSupplier supplier of the current channel
+     * @param stubFactory     function creating a stub, including its interceptors, for a channel
+     */
+    public ChannelStub(Supplier<Channel> channelSupplier, Function<Channel, S> stubFactory) {
+        this.channelSupplier = channelSupplier;
+        this.stubFactory = stubFactory;
+    }
+
+    /**
+     * Returns the stub for the current channel, creating it if the channel changed since the last call.
+     *
+     * @return the stub for the current channel
+     */
+    public S get() {
+        Channel channel = channelSupplier.get();
+        Binding<S> current = binding;
+        if (current == null || current.channel != channel) {
+            current = new Binding<>(channel, stubFactory.apply(channel));
+            binding = current;
+        }
+        return current.stub;
+    }
+
+    private static class Binding<S> {
+
+        private final Channel channel;
+        private final S stub;
+
+        private Binding(Channel channel, S stub) {
+            this.channel = channel;
+            this.stub = stub;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.util;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.*;
+
+/**
+ * Interceptor around a GRPC request to compress the messages sent to AxonHub using the given compressor, for example
+ * "gzip". Messages smaller than the threshold are sent uncompressed, as compressing them costs more CPU than it saves
+ * on the wire. Without a compressor, or with compressor "identity", calls are passed on unchanged.
+ * <p>
+ * Compression of the messages received from AxonHub is decided by the server. The client accepts all compressors
+ * registered in the default decompressor registry, which includes gzip.
+ */
+public class CompressingInterceptor implements ClientInterceptor {
+
+    private static final String IDENTITY = "identity";
+
+    private final String compressor;
+    private final int threshold;
+
+    /**
+     * @param compressor name of the compressor to use, or {@code null} for no compression
+     * @param threshold  minimum serialized size (in bytes) of a message to compress it
+     */
+    public CompressingInterceptor(String compressor, int threshold) {
+        this.compressor = compressor == null || compressor.isEmpty() || IDENTITY.equals(compressor) ? null : compressor;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> methodDescriptor, CallOptions callOptions, Channel channel) {
+        if (compressor == null) {
+            return channel.newCall(methodDescriptor, callOptions);
+        }
+        return new ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT>(channel.newCall(methodDescriptor, callOptions.withCompression(compressor))) {
+            @Override
+            public void sendMessage(ReqT message) {
+                if (message instanceof MessageLite) {
+                    setMessageCompression(((MessageLite) message).getSerializedSize() >= threshold);
+                }
+                super.sendMessage(message);
+            }
+        };
+    }
+}
@@ -23,11 +23,16 @@ import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
+import java.util.function.LongBinaryOperator;
 import java.util.function.Predicate;
 
 /**
  * Wrapper around the standard StreamObserver that guarantees that the onNext calls are executed in a thread-safe manner.
  * Also maintains flow control sending a new message with permits to AxonHub when it is ready to handle more messages
+ * <p>
+ * With adaptive flow control enabled in the configuration, the number of outstanding permits is sized from the
+ * observed consumption rate and round-trip time, within the configured minimum and maximum, instead of granting a fixed
+ * number of new permits. New permits are then requested when half of the window has been consumed.
  *
  * @author Marc Gathier
  */
@@ -37,6 +42,10 @@ public class FlowControllingStreamObserver<T> implements StreamObserver<T> {
     private final static Logger logger = LoggerFactory.getLogger(FlowControllingStreamObserver.class);
     private final AtomicLong remainingPermits;
     private final long newPermits;
+    private final long initialPermits;
+    private final LongBinaryOperator permitLimiter;
+    private final AdaptivePermitWindow adaptiveWindow;
+    private volatile long refillThreshold;
     private final AxonHubConfiguration configuration;
     private final T newPermitsRequest;
     private final Predicate<T> isConfirmationMessage;
@@ -50,9 +59,35 @@ public class FlowControllingStreamObserver<T> implements StreamObserver<T> {
      */
     public FlowControllingStreamObserver(StreamObserver<T> wrappedStreamObserver, AxonHubConfiguration configuration,
                                          Function<FlowControl, T> requestWrapper, Predicate<T> isConfirmationMessage) {
+        this(wrappedStreamObserver, configuration, requestWrapper, isConfirmationMessage, (requested, outstanding) -> requested);
+    }
+
+    /**
+     * @param wrappedStreamObserver stream observer to send messages to AxonHub
+     * @param configuration AxonHub configuration for flow control
+     * @param requestWrapper Function to create a new permits request
+     * @param isConfirmationMessage predicate to test if the message sent to AxonHub is a confirmation message
+     * @param permitLimiter function that determines the number of permits to grant, given the number of permits
+     *                      configured and the number of permits granted but not yet consumed
+     */
+    public FlowControllingStreamObserver(StreamObserver<T> wrappedStreamObserver, AxonHubConfiguration configuration,
+                                         Function<FlowControl, T> requestWrapper, Predicate<T> isConfirmationMessage,
+                                         LongBinaryOperator permitLimiter) {
         this.wrappedStreamObserver = wrappedStreamObserver;
         this.configuration = configuration;
-        this.remainingPermits = new AtomicLong(configuration.getInitialNrOfPermits()-configuration.getNewPermitsThreshold());
+        this.permitLimiter = permitLimiter;
+        if (configuration.isAdaptiveFlowControl()) {
+            this.adaptiveWindow = new AdaptivePermitWindow(configuration.getMinNrOfPermits(),
+                                                           configuration.getMaxNrOfPermits());
+            this.initialPermits = permitLimiter.applyAsLong(
+                    adaptiveWindow.initialWindow(configuration.getInitialNrOfPermits()), 0);
+            this.refillThreshold = adaptiveWindow.refillThreshold();
+        } else {
+            this.adaptiveWindow = null;
+            this.initialPermits = permitLimiter.applyAsLong(configuration.getInitialNrOfPermits(), 0);
+            this.refillThreshold = configuration.getNewPermitsThreshold();
+        }
+        this.remainingPermits = new AtomicLong(initialPermits - refillThreshold);
         this.newPermits = configuration.getNrOfNewPermits();
         this.newPermitsRequest = requestWrapper.apply(createRequest(newPermits));
         this.isConfirmationMessage = isConfirmationMessage;
@@ -60,10 +95,19 @@ public class FlowControllingStreamObserver<T> implements StreamObserver<T> {
     }
 
     public FlowControllingStreamObserver<T> sendInitialPermits() {
-        wrappedStreamObserver.onNext(requestWrapper.apply(createRequest(configuration.getInitialNrOfPermits())));
+        wrappedStreamObserver.onNext(requestWrapper.apply(createRequest(initialPermits)));
         return this;
     }
 
+    /**
+     * Returns the number of permits to send in the initial request.
+     *
+     * @return the number of initial permits
+     */
+    public long getInitialPermits() {
+        return initialPermits;
+    }
+
     private FlowControl createRequest(long initialNrOfPermits) {
         return FlowControl.newBuilder()
                 .setClientName(configuration.getClientName())
@@ -104,12 +148,37 @@ public class FlowControllingStreamObserver<T> implements StreamObserver<T> {
      * @param consumed nr of messages consumed
      */
     public void markConsumed(Integer consumed) {
-        if( remainingPermits.updateAndGet(old -> old - consumed) == 0) {
-            remainingPermits.addAndGet(newPermits);
-            synchronized (wrappedStreamObserver) {
-                wrappedStreamObserver.onNext(newPermitsRequest);
+        if (adaptiveWindow != null) {
+            adaptiveWindow.consumed();
+        }
+        if( remainingPermits.updateAndGet(old -> old - consumed) <= 0) {
+            grantPermits();
+        }
+    }
+
+    private void grantPermits() {
+        synchronized (wrappedStreamObserver) {
+            long remaining = remainingPermits.get();
+            if (remaining > 0) {
+                return;
+            }
+            long outstanding = Math.max(0, remaining + refillThreshold);
+            long requested = adaptiveWindow == null ? newPermits : adaptiveWindow.permitsToFill(outstanding);
+            long permits = Math.max(0, permitLimiter.applyAsLong(requested, outstanding));
+            if (adaptiveWindow != null) {
+                // re-arm at the new threshold, also when the window shrunk below the outstanding permits
+                adaptiveWindow.granted(outstanding, permits);
+                refillThreshold = adaptiveWindow.refillThreshold();
+                remainingPermits.addAndGet(outstanding + permits - refillThreshold - remaining);
+            } else if (permits > 0) {
+                remainingPermits.addAndGet(permits);
+            }
+            if (permits == 0) {
+                return;
             }
-            logger.info("Granting new permits: {}", newPermitsRequest);
+            T request = permits == newPermits ? newPermitsRequest : requestWrapper.apply(createRequest(permits));
+            wrappedStreamObserver.onNext(request);
+            logger.info("Granting new permits: {}", request);
         }
     }
 
@@ -24,6 +24,7 @@ import org.axonframework.serialization.SimpleSerializedObject;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import static org.axonframework.common.ObjectUtils.getOrDefault;
 
@@ -33,9 +34,17 @@ import static org.axonframework.common.ObjectUtils.getOrDefault;
  * To optimize communication and minimize the loss of data structure, the MetaDataValue entries used in gRPC
  * distinguish between numerical values (double or long), Strings, booleans and arbitrary objects. The latter group is
  * converted to and from a {@code byte[]} using the configured Serializer.
+ * <p>
+ * Received meta data is exposed through a {@link GrpcMetaDataView}, which converts entries on access. For outgoing
+ * meta data, the MetaDataValues of short text values are kept in a small shared cache, as values such as correlation
+ * and trace identifiers are sent with many messages.
  */
 public class GrpcMetaDataConverter {
 
+    private static final int TEXT_CACHE_SIZE = 1024;
+    private static final int MAX_CACHED_TEXT_LENGTH = 128;
+    private static final AtomicReferenceArray<MetaDataValue> textValues = new AtomicReferenceArray<>(TEXT_CACHE_SIZE);
+
     private final Serializer serializer;
 
     /**
@@ -62,10 +71,11 @@ public class GrpcMetaDataConverter {
      * @return The protobuf representation of the given value
      */
     public MetaDataValue convertToMetaDataValue(Object value) {
-        MetaDataValue.Builder builder = MetaDataValue.newBuilder();
         if (value instanceof CharSequence) {
-            builder.setTextValue(value.toString());
-        } else if (value instanceof Double || value instanceof Float) {
+            return textValue(value.toString());
+        }
+        MetaDataValue.Builder builder = MetaDataValue.newBuilder();
+        if (value instanceof Double || value instanceof Float) {
             builder.setDoubleValue(((Number) value).doubleValue());
         } else if (value instanceof Number) {
             builder.setNumberValue(((Number) value).longValue());
@@ -82,6 +92,49 @@ public class GrpcMetaDataConverter {
         return builder.build();
     }
 
+    /**
+     * Convert the given {@code metaData} into a map of {@link MetaDataValue}s. When the meta data is a view on received
+     * protobuf meta data, the received values are reused. Values stored as serialized objects are only reused when
+     * they were serialized with the serializer of this converter, others are deserialized and serialized again.
+     *
+     * @param metaData The meta data to convert
+     * @return a map containing the same keys, referencing the protobuf representation of each value
+     */
+    public Map<String, MetaDataValue> convertToMetaDataValues(Map<String, ?> metaData) {
+        if (metaData instanceof GrpcMetaDataView) {
+            return convertToMetaDataValues((GrpcMetaDataView) metaData);
+        }
+        Map<String, MetaDataValue> metaDataValues = new HashMap<>(metaData.size() * 4 / 3 + 1);
+        metaData.forEach((key, value) -> metaDataValues.put(key, convertToMetaDataValue(value)));
+        return metaDataValues;
+    }
+
+    private Map<String, MetaDataValue> convertToMetaDataValues(GrpcMetaDataView metaData) {
+        if (metaData.getSerializer() == serializer) {
+            return metaData.getSource();
+        }
+        Map<String, MetaDataValue> metaDataValues = new HashMap<>(metaData.size() * 4 / 3 + 1);
+        metaData.getSource().forEach((key, value) -> metaDataValues.put(
+                key, value.getDataCase() == MetaDataValue.DataCase.BYTES_VALUE
+                        ? convertToMetaDataValue(metaData.get(key)) : value));
+        return metaDataValues;
+    }
+
+    private static MetaDataValue textValue(String text) {
+        if (text.length() > MAX_CACHED_TEXT_LENGTH) {
+            return MetaDataValue.newBuilder().setTextValue(text).build();
+        }
+        int hash = text.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & (TEXT_CACHE_SIZE - 1);
+        MetaDataValue cached = textValues.get(slot);
+        if (cached != null && cached.getTextValue().equals(text)) {
+            return cached;
+        }
+        MetaDataValue value = MetaDataValue.newBuilder().setTextValue(text).build();
+        textValues.lazySet(slot, value);
+        return value;
+    }
+
     /**
      * Convert the given map of MetaDataValues to a Map containing the Java representations of each MetaDataValue.
      * <p>
@@ -95,9 +148,7 @@ public class GrpcMetaDataConverter {
         if (metaDataMap.isEmpty()) {
             return MetaData.emptyInstance();
         }
-        Map<String, Object> metaData = new HashMap<>(metaDataMap.size());
-        metaDataMap.forEach((k, v) -> metaData.put(k, convertFromMetaDataValue(v)));
-        return MetaData.from(metaData);
+        return new GrpcMetaDataView(metaDataMap, serializer);
     }
 
     /**
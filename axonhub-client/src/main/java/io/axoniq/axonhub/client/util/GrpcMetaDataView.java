@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.util;
+
+import io.axoniq.platform.MetaDataValue;
+import org.axonframework.messaging.MetaData;
+import org.axonframework.serialization.Serializer;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Read-only MetaData view on the protobuf meta data map of a message. Unlike {@link MetaData#from(Map)}, the entries
+ * are not copied. Each value is converted when it is accessed, and values stored as serialized objects are
+ * deserialized at most once, on first access. Values that are never read are never deserialized.
+ * <p>
+ * Operations that derive new meta data, such as {@link #mergedWith(Map)} and {@link #and(String, Object)}, return a
+ * regular {@link MetaData} instance. The same applies when this instance is serialized with Java serialization.
+ */
+public class GrpcMetaDataView extends MetaData {
+
+    private static final long serialVersionUID = 1L;
+    private static final Object NULL = new Object();
+
+    private final transient Map<String, MetaDataValue> source;
+    private final transient Serializer serializer;
+    private final transient Map<String, Object> deserialized = new ConcurrentHashMap<>();
+
+    /**
+     * @param source     the protobuf meta data map
+     * @param serializer the serializer to deserialize values stored as serialized objects with
+     */
+    public GrpcMetaDataView(Map<String, MetaDataValue> source, Serializer serializer) {
+        super(Collections.emptyMap());
+        this.source = source;
+        this.serializer = serializer;
+    }
+
+    /**
+     * Returns the protobuf meta data map this view reads from.
+     *
+     * @return the protobuf meta data map
+     */
+    public Map<String, MetaDataValue> getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the serializer that values stored as serialized objects in the {@link #getSource() source} were
+     * serialized with.
+     *
+     * @return the serializer of the serialized values
+     */
+    public Serializer getSerializer() {
+        return serializer;
+    }
+
+    @Override
+    public Object get(Object key) {
+        MetaDataValue value = source.get(key);
+        return value == null ? null : convert((String) key, value);
+    }
+
+    private Object convert(String key, MetaDataValue value) {
+        switch (value.getDataCase()) {
+            case TEXT_VALUE:
+                return value.getTextValue();
+            case NUMBER_VALUE:
+                return value.getNumberValue();
+            case DOUBLE_VALUE:
+                return value.getDoubleValue();
+            case BOOLEAN_VALUE:
+                return value.getBooleanValue();
+            case BYTES_VALUE:
+                Object result = deserialized.computeIfAbsent(key, k -> {
+                    Object object = serializer.deserialize(new GrpcSerializedObject(value.getBytesValue()));
+                    return object == null ? NULL : object;
+                });
+                return result == NULL ? null : result;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return source.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return values().contains(value);
+    }
+
+    @Override
+    public int size() {
+        return source.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return source.isEmpty();
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return Collections.unmodifiableSet(source.keySet());
+    }
+
+    @Override
+    public Collection<Object> values() {
+        return new AbstractCollection<Object>() {
+            @Override
+            public Iterator<Object> iterator() {
+                Iterator<Map.Entry<String, MetaDataValue>> entries = source.entrySet().iterator();
+                return new Iterator<Object>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public Object next() {
+                        Map.Entry<String, MetaDataValue> entry = entries.next();
+                        return convert(entry.getKey(), entry.getValue());
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return source.size();
+            }
+        };
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Object>>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                Iterator<Map.Entry<String, MetaDataValue>> entries = source.entrySet().iterator();
+                return new Iterator<Map.Entry<String, Object>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<String, Object> next() {
+                        Map.Entry<String, MetaDataValue> entry = entries.next();
+                        return new AbstractMap.SimpleImmutableEntry<>(entry.getKey(),
+                                                                      convert(entry.getKey(), entry.getValue()));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return source.size();
+            }
+        };
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        source.forEach((key, value) -> action.accept(key, convert(key, value)));
+    }
+
+    @Override
+    public MetaData mergedWith(Map<String, ?> additionalEntries) {
+        if (additionalEntries.isEmpty()) {
+            return this;
+        }
+        Map<String, Object> merged = toMap();
+        merged.putAll(additionalEntries);
+        return new MetaData(merged);
+    }
+
+    @Override
+    public MetaData withoutKeys(Set<String> keys) {
+        Map<String, Object> remaining = toMap();
+        remaining.keySet().removeAll(keys);
+        return new MetaData(remaining);
+    }
+
+    @Override
+    public MetaData subset(String... keys) {
+        Map<String, Object> subset = new HashMap<>();
+        for (String key : keys) {
+            if (source.containsKey(key)) {
+                subset.put(key, get(key));
+            }
+        }
+        return MetaData.from(subset);
+    }
+
+    @Override
+    public MetaData and(String key, Object value) {
+        Map<String, Object> extended = toMap();
+        extended.put(key, value);
+        return new MetaData(extended);
+    }
+
+    @Override
+    public MetaData andIfNotPresent(String key, Supplier<Object> value) {
+        return containsKey(key) ? this : and(key, value.get());
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Map) || ((Map<?, ?>) other).size() != size()) {
+            return false;
+        }
+        Map<?, ?> otherMap = (Map<?, ?>) other;
+        for (Map.Entry<String, MetaDataValue> entry : source.entrySet()) {
+            Object value = convert(entry.getKey(), entry.getValue());
+            if (!Objects.equals(value, otherMap.get(entry.getKey()))
+                    || (value == null && !otherMap.containsKey(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (Map.Entry<String, MetaDataValue> entry : source.entrySet()) {
+            hashCode += entry.getKey().hashCode() ^ Objects.hashCode(convert(entry.getKey(), entry.getValue()));
+        }
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return new MetaData(toMap()).toString();
+    }
+
+    private Map<String, Object> toMap() {
+        Map<String, Object> copy = new HashMap<>(source.size());
+        forEach(copy::put);
+        return copy;
+    }
+
+    /**
+     * Replaces this view with a regular MetaData instance when serialized, so that readers of the serialized form do
+     * not depend on the protobuf representation.
+     *
+     * @return a MetaData instance containing the same entries
+     */
+    protected Object writeReplace() {
+        return new MetaData(toMap());
+    }
+}
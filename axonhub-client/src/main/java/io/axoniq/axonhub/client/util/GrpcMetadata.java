@@ -19,14 +19,10 @@ import io.axoniq.platform.MetaDataValue;
 import org.axonframework.messaging.MetaData;
 import org.axonframework.serialization.Serializer;
 
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
 
-import static java.util.stream.Collectors.toMap;
 import static org.axonframework.messaging.MetaData.emptyInstance;
-import static org.axonframework.messaging.MetaData.from;
 
 /**
  * Created by Sara Pellegrini on 12/05/2018.
@@ -38,7 +34,7 @@ public class GrpcMetadata implements Supplier<MetaData> {
 
     private final Serializer messageSerializer;
 
-    private final List<MetaData> metaData = new LinkedList<>();
+    private volatile MetaData metaData;
 
     public GrpcMetadata(Map<String, MetaDataValue> map, Serializer messageSerializer) {
         this.map = map;
@@ -47,31 +43,17 @@ public class GrpcMetadata implements Supplier<MetaData> {
 
     @Override
     public MetaData get() {
-        if (metaData.isEmpty()){
-            if (map.isEmpty()) {
-                metaData.add(emptyInstance());
-            } else {
-                metaData.add(from(map.entrySet().stream().collect(toMap(Map.Entry::getKey, e -> convert(e.getValue())))));
+        MetaData converted = metaData;
+        if (converted == null) {
+            synchronized (this) {
+                converted = metaData;
+                if (converted == null) {
+                    converted = map.isEmpty() ? emptyInstance()
+                            : new GrpcMetaDataView(map, messageSerializer);
+                    metaData = converted;
+                }
             }
         }
-        return metaData.get(0);
-    }
-
-    private Object convert(MetaDataValue value) {
-        switch (value.getDataCase()) {
-            case TEXT_VALUE:
-                return value.getTextValue();
-            case BYTES_VALUE:
-                return messageSerializer.deserialize(new GrpcSerializedObject(value.getBytesValue()));
-            case DOUBLE_VALUE:
-                return value.getDoubleValue();
-            case NUMBER_VALUE:
-                return value.getNumberValue();
-            case BOOLEAN_VALUE:
-                return value.getBooleanValue();
-            case DATA_NOT_SET:
-                return null;
-        }
-        return null;
+        return converted;
     }
 }
@@ -18,7 +18,6 @@ package io.axoniq.axonhub.client.util;
 import io.axoniq.platform.MetaDataValue;
 import org.axonframework.messaging.MetaData;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -36,8 +35,6 @@ public class GrpcMetadataSerializer implements Function<MetaData, Map<String, Me
 
     @Override
     public Map<String, MetaDataValue> apply(MetaData metaData) {
-        Map<String, MetaDataValue> metaDataValueMap = new HashMap<>();
-        metaData.forEach((key, value)-> metaDataValueMap.put(key, metaDataConverter.convertToMetaDataValue(value)));
-        return metaDataValueMap;
+        return metaDataConverter.convertToMetaDataValues(metaData);
     }
 }
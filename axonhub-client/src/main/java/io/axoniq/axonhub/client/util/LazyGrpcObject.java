@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.util;
+
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.Serializer;
+
+/**
+ * Thread-safe, lazily deserialized view on a protobuf {@link io.axoniq.platform.SerializedObject}. The object is
+ * deserialized on first access, and its class resolved through the {@link SerializedTypes} cache. Both are memoized,
+ * so interceptors, correlation data providers and handlers reading the same message share a single deserialization.
+ * <p>
+ * Unlike {@link org.axonframework.serialization.LazyDeserializingObject}, the class is not resolved until it is
+ * requested, and a {@code null} result is memoized as well.
+ *
+ * @param <T> the type of the deserialized object
+ */
+public class LazyGrpcObject<T> {
+
+    private final io.axoniq.platform.SerializedObject serializedObject;
+    private final Serializer serializer;
+    private volatile Class<T> type;
+    private volatile boolean deserialized;
+    private T object;
+
+    /**
+     * @param serializedObject the protobuf representation of the serialized object
+     * @param serializer       the serializer to deserialize the object with
+     */
+    public LazyGrpcObject(io.axoniq.platform.SerializedObject serializedObject, Serializer serializer) {
+        this.serializedObject = serializedObject;
+        this.serializer = serializer;
+    }
+
+    /**
+     * Returns the deserialized object, deserializing it on the first call.
+     *
+     * @return the deserialized object
+     */
+    @SuppressWarnings("unchecked")
+    public T getObject() {
+        if (!deserialized) {
+            synchronized (this) {
+                if (!deserialized) {
+                    object = (T) serializer.deserialize(ByteStringSerializedObjects.of(serializedObject, serializer));
+                    deserialized = true;
+                }
+            }
+        }
+        return object;
+    }
+
+    /**
+     * Returns the class of the serialized object, without deserializing it.
+     *
+     * @return the class of the serialized object
+     */
+    public Class<T> getType() {
+        Class<T> resolved = type;
+        if (resolved == null) {
+            resolved = SerializedTypes.classForType(ByteStringSerializedObjects.of(serializedObject).getType(),
+                                                    serializer);
+            type = resolved;
+        }
+        return resolved;
+    }
+
+    public boolean isDeserialized() {
+        return deserialized;
+    }
+
+    public SerializedObject<byte[]> getSerializedObject() {
+        return new GrpcSerializedObject(serializedObject);
+    }
+}
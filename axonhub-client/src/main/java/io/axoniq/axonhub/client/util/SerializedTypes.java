@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.util;
+
+import org.axonframework.serialization.SerializedType;
+import org.axonframework.serialization.Serializer;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shared cache of the classes that serialized type names resolve to. Resolving a class through the serializer on every
+ * call to {@code getPayloadType()} of a gRPC-backed message is relatively expensive, while the same few type names are
+ * resolved over and over again.
+ * <p>
+ * Classes are cached per serializer, as serializers may resolve the same name through different class loaders. The
+ * caches of the serializers are kept in a copy-on-write array, so that looking up a class does not take a lock. Only
+ * the first lookup for a serializer synchronizes. The serializers are weakly referenced. The caches of serializers that
+ * have been garbage collected are removed when the next serializer is registered, releasing their classes and class
+ * loaders.
+ * <p>
+ * Only types whose name equals the name of the resolved class are cached. Types resolved through aliases or special
+ * names, such as the empty type, are resolved by the serializer on every call.
+ */
+public class SerializedTypes {
+
+    private static volatile SerializerTypes[] caches = new SerializerTypes[0];
+
+    private SerializedTypes() {
+    }
+
+    /**
+     * Returns the class for given {@code type}, using the cache when possible and otherwise the given
+     * {@code serializer}.
+     *
+     * @param type       the serialized type to resolve
+     * @param serializer the serializer to resolve the type with when it is not cached
+     * @param <T>        the expected type of the class
+     * @return the class the type resolves to
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Class<T> classForType(SerializedType type, Serializer serializer) {
+        ConcurrentMap<String, Class<?>> classes = classesOf(serializer);
+        Class<?> cached = classes.get(type.getName());
+        if (cached != null) {
+            return (Class<T>) cached;
+        }
+        Class<?> resolved = serializer.classForType(type);
+        if (resolved.getName().equals(type.getName())) {
+            classes.putIfAbsent(type.getName(), resolved);
+        }
+        return (Class<T>) resolved;
+    }
+
+    /**
+     * Removes all classes from the cache.
+     */
+    public static synchronized void clear() {
+        caches = new SerializerTypes[0];
+    }
+
+    private static ConcurrentMap<String, Class<?>> classesOf(Serializer serializer) {
+        for (SerializerTypes cache : caches) {
+            if (cache.get() == serializer) {
+                return cache.classes;
+            }
+        }
+        return register(serializer);
+    }
+
+    private static synchronized ConcurrentMap<String, Class<?>> register(Serializer serializer) {
+        List<SerializerTypes> retained = new ArrayList<>();
+        for (SerializerTypes cache : caches) {
+            Serializer cachedSerializer = cache.get();
+            if (cachedSerializer == serializer) {
+                return cache.classes;
+            }
+            if (cachedSerializer != null) {
+                retained.add(cache);
+            }
+        }
+        SerializerTypes registered = new SerializerTypes(serializer);
+        retained.add(registered);
+        caches = retained.toArray(new SerializerTypes[0]);
+        return registered.classes;
+    }
+
+    private static class SerializerTypes extends WeakReference<Serializer> {
+
+        private final ConcurrentMap<String, Class<?>> classes = new ConcurrentHashMap<>();
+
+        private SerializerTypes(Serializer serializer) {
+            super(serializer);
+        }
+    }
+}
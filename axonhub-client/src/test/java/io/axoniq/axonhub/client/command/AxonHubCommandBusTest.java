@@ -126,6 +126,80 @@ public class AxonHubCommandBusTest {
         assertTrue(failure.get());
     }
 
+    @Test
+    public void dispatchOverStreams() throws Exception {
+        conf.setCommandDispatchStreams(2);
+        AxonHubCommandBus streamingBus = new AxonHubCommandBus(new PlatformConnectionManager(conf), conf,
+                                                               localSegment, ser, command -> "RoutingKey",
+                                                               new CommandPriorityCalculator() {});
+        try {
+            assertEquals("this is the payload", dispatchAndWait(streamingBus, "this is the payload").get());
+            assertEquals("again", dispatchAndWait(streamingBus, "again").get());
+            assertTrue(dispatchAndWait(streamingBus, "this is an error request").get() instanceof Throwable);
+            assertEquals(3, dummyMessagePlatformServer.streamedCommands());
+        } finally {
+            streamingBus.disconnect();
+        }
+    }
+
+    @Test
+    public void dispatchFallsBackWhenStreamsNotSupported() throws Exception {
+        dummyMessagePlatformServer.setDispatchStreamSupported(false);
+        conf.setCommandDispatchStreams(1);
+        AxonHubCommandBus streamingBus = new AxonHubCommandBus(new PlatformConnectionManager(conf), conf,
+                                                               localSegment, ser, command -> "RoutingKey",
+                                                               new CommandPriorityCalculator() {});
+        try {
+            assertEquals("this is the payload", dispatchAndWait(streamingBus, "this is the payload").get());
+            assertEquals("again", dispatchAndWait(streamingBus, "again").get());
+            assertEquals(0, dummyMessagePlatformServer.streamedCommands());
+        } finally {
+            streamingBus.disconnect();
+        }
+    }
+
+    @Test
+    public void dispatchLocalWhenSubscribed() throws Exception {
+        conf.setLocalCommandRouting(true);
+        Registration registration = testSubject.subscribe(String.class.getName(), c -> "handled locally");
+        try {
+            assertEquals("handled locally", dispatchAndWait(testSubject, "this is the payload").get());
+        } finally {
+            registration.cancel();
+        }
+        assertEquals("this is the payload", dispatchAndWait(testSubject, "this is the payload").get());
+    }
+
+    @Test
+    public void dispatchRemoteWhenLocalRoutingDisabled() throws Exception {
+        Registration registration = testSubject.subscribe(String.class.getName(), c -> "handled locally");
+        try {
+            assertEquals("this is the payload", dispatchAndWait(testSubject, "this is the payload").get());
+        } finally {
+            registration.cancel();
+        }
+    }
+
+    private AtomicReference<Object> dispatchAndWait(AxonHubCommandBus commandBus, String payload) throws Exception {
+        CountDownLatch waiter = new CountDownLatch(1);
+        AtomicReference<Object> resultHolder = new AtomicReference<>();
+        commandBus.dispatch(new GenericCommandMessage<>(payload), new CommandCallback<String, Object>() {
+            @Override
+            public void onSuccess(CommandMessage<? extends String> commandMessage, Object result) {
+                resultHolder.set(result);
+                waiter.countDown();
+            }
+
+            @Override
+            public void onFailure(CommandMessage<? extends String> commandMessage, Throwable cause) {
+                resultHolder.set(cause);
+                waiter.countDown();
+            }
+        });
+        assertTrue(waiter.await(5, TimeUnit.SECONDS));
+        return resultHolder;
+    }
+
     @Test
     public void subscribe() throws Exception {
         Registration registration = testSubject.subscribe(String.class.getName(), c -> "Done");
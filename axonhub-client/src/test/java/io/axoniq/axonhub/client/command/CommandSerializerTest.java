@@ -60,6 +60,19 @@ public class CommandSerializerTest {
         assertEquals(message.getPayload(), deserialize.getPayload());
     }
 
+    @Test
+    public void testDeserializedPayloadAndMetaDataAreMemoized(){
+        Map<String, ?> metadata = new HashMap<String, Object>() {{
+            this.put("key", "value");
+        }};
+        Command command = testSubject.serialize(new GenericCommandMessage<>(new StringBuilder("payload"), metadata),
+                                                "routingKey", 1);
+        CommandMessage<?> deserialize = testSubject.deserialize(command);
+        assertSame(deserialize.getPayload(), deserialize.getPayload());
+        assertSame(deserialize.getMetaData(), deserialize.getMetaData());
+        assertEquals(StringBuilder.class, deserialize.getPayloadType());
+    }
+
     @Test
     public void testSerializeResponse(){
         Object response = "response";
@@ -33,6 +33,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Author: marc
@@ -41,6 +42,8 @@ public class DummyMessagePlatformServer {
     private final int port;
     private Server server;
     private Map<String, StreamObserver> subscriptions = new HashMap<>();
+    private final AtomicInteger streamedCommands = new AtomicInteger();
+    private volatile boolean dispatchStreamSupported = true;
 
     public DummyMessagePlatformServer(int port) {
         this.port = port;
@@ -66,6 +69,14 @@ public class DummyMessagePlatformServer {
         return subscriptions.get(query);
     }
 
+    public int streamedCommands() {
+        return streamedCommands.get();
+    }
+
+    public void setDispatchStreamSupported(boolean dispatchStreamSupported) {
+        this.dispatchStreamSupported = dispatchStreamSupported;
+    }
+
     class CommandHandler extends CommandServiceGrpc.CommandServiceImplBase {
 
         @Override
@@ -99,24 +110,52 @@ public class DummyMessagePlatformServer {
 
         @Override
         public void dispatch(Command request, StreamObserver<CommandResponse> responseObserver) {
+            responseObserver.onNext(response(request).build());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public StreamObserver<Command> dispatchStream(StreamObserver<CommandResponse> responseObserver) {
+            if (!dispatchStreamSupported) {
+                return super.dispatchStream(responseObserver);
+            }
+            return new StreamObserver<Command>() {
+                @Override
+                public void onNext(Command command) {
+                    streamedCommands.incrementAndGet();
+                    synchronized (responseObserver) {
+                        responseObserver.onNext(response(command)
+                                .setRequestIdentifier(command.getMessageIdentifier())
+                                .build());
+                    }
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+
+                }
+
+                @Override
+                public void onCompleted() {
+                    responseObserver.onCompleted();
+                }
+            };
+        }
+
+        private CommandResponse.Builder response(Command request) {
             String data = request.getPayload().getData().toStringUtf8();
             if(data.contains("error")) {
-                responseObserver.onNext(CommandResponse.newBuilder()
+                return CommandResponse.newBuilder()
                         .setErrorCode(ErrorCode.DATAFILE_READ_ERROR.errorCode())
                         .setMessageIdentifier(request.getMessageIdentifier())
-                        .setMessage(ErrorMessage.newBuilder().setMessage(data))
-                        .build());
-
-            } else {
-                responseObserver.onNext(CommandResponse.newBuilder()
-                        .setMessageIdentifier(request.getMessageIdentifier())
-                        .setPayload(SerializedObject.newBuilder()
-                                .setData(request.getPayload().getData())
-                                .setType(String.class.getName())
-                                .build())
-                        .build());
+                        .setMessage(ErrorMessage.newBuilder().setMessage(data));
             }
-            responseObserver.onCompleted();
+            return CommandResponse.newBuilder()
+                    .setMessageIdentifier(request.getMessageIdentifier())
+                    .setPayload(SerializedObject.newBuilder()
+                            .setData(request.getPayload().getData())
+                            .setType(String.class.getName())
+                            .build());
         }
 
     }
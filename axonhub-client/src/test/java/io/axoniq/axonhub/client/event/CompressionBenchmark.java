@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event;
+
+import com.google.protobuf.ByteString;
+import io.axoniq.axondb.Event;
+import io.axoniq.axonhub.client.AxonHubConfiguration;
+import io.axoniq.axonhub.client.PlatformConnectionManager;
+import io.axoniq.platform.SerializedObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Measures append throughput and CPU time against the {@link StubServer} with and without gzip compression of the
+ * messages sent, for JSON payloads of different sizes. Messages smaller than the default compression threshold are
+ * sent uncompressed. CPU time is measured for the whole process, so it includes the stub server decompressing the
+ * events. Not run as part of the test suite; start the main method to run it.
+ */
+public class CompressionBenchmark {
+
+    private static final int EVENTS_PER_TRANSACTION = 100;
+    private static final long BYTES_PER_RUN = 16 * 1024 * 1024;
+    private static final int[] PAYLOAD_SIZES = {256, 4 * 1024, 64 * 1024};
+
+    public static void main(String[] args) throws Exception {
+        StubServer server = new StubServer(6126);
+        server.start();
+        try {
+            AxonHubConfiguration config = AxonHubConfiguration.newBuilder("localhost:6126", "BENCHMARK").build();
+            PlatformConnectionManager connectionManager = new PlatformConnectionManager(config);
+            AxonDBClient uncompressed = new AxonDBClient(config, connectionManager);
+            config.setEventCompression("gzip");
+            AxonDBClient compressed = new AxonDBClient(config, connectionManager);
+            for (int payloadSize : PAYLOAD_SIZES) {
+                ByteString payload = ByteString.copyFromUtf8(json(payloadSize));
+                System.out.printf("payload %,d bytes, gzip %,d bytes%n", payload.size(), gzipSize(payload));
+                run("warm-up", uncompressed, payload);
+                run("none", uncompressed, payload);
+                run("gzip", compressed, payload);
+            }
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    private static void run(String name, AxonDBClient client, ByteString payload) throws Exception {
+        com.sun.management.OperatingSystemMXBean os =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        long cpuStart = os.getProcessCpuTime();
+        long start = System.nanoTime();
+        int transactions = (int) Math.max(10, BYTES_PER_RUN / payload.size() / EVENTS_PER_TRANSACTION);
+        for (int i = 0; i < transactions; i++) {
+            AppendEventTransaction transaction = client.createAppendEventConnection();
+            for (int j = 0; j < EVENTS_PER_TRANSACTION; j++) {
+                transaction.append(event(payload));
+            }
+            transaction.commit();
+        }
+        long elapsed = System.nanoTime() - start;
+        long cpu = os.getProcessCpuTime() - cpuStart;
+        long events = (long) transactions * EVENTS_PER_TRANSACTION;
+        System.out.printf("  %-8s %,10d events/s %,10.1f MB/s %,8d us CPU per 1000 events%n", name,
+                          events * 1_000_000_000L / elapsed,
+                          events * payload.size() * 1000d / elapsed,
+                          cpu / events);
+    }
+
+    private static Event event(ByteString payload) {
+        return Event.newBuilder()
+                    .setMessageIdentifier(UUID.randomUUID().toString())
+                    .setPayload(SerializedObject.newBuilder()
+                                                .setType("com.example.OrderPlaced")
+                                                .setData(payload))
+                    .build();
+    }
+
+    private static String json(int size) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder json = new StringBuilder("{\"orderId\":\"").append(UUID.randomUUID()).append("\",\"lines\":[");
+        while (json.length() < size) {
+            json.append("{\"productId\":\"").append(UUID.randomUUID())
+                .append("\",\"description\":\"Product ").append(random.nextInt(1000))
+                .append("\",\"quantity\":").append(random.nextInt(1, 10))
+                .append(",\"price\":").append(random.nextInt(100, 100000) / 100d)
+                .append("},");
+        }
+        return json.append("{}]}").toString();
+    }
+
+    private static int gzipSize(ByteString payload) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            payload.writeTo(gzip);
+        }
+        return out.size();
+    }
+}
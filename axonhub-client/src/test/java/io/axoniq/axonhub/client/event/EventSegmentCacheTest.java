@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.axoniq.axonhub.client.event;
+
+import com.google.protobuf.ByteString;
+import io.axoniq.axondb.Event;
+import io.axoniq.axondb.grpc.EventWithToken;
+import io.axoniq.platform.SerializedObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.RandomAccessFile;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EventSegmentCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String IDENTITY = "localhost:8124/default";
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = folder.newFolder("cache").toPath();
+    }
+
+    @Test
+    public void testReadAppendedEvents() {
+        EventSegmentCache testSubject = new EventSegmentCache(directory, IDENTITY, 4096, 1024 * 1024);
+        appendEvents(testSubject, -1, 10);
+
+        assertTrue(testSubject.covers(-1));
+        assertTrue(testSubject.covers(8));
+        assertFalse(testSubject.covers(9));
+        assertEquals(tokens(3, 9), readTokens(testSubject.read(2)));
+    }
+
+    @Test
+    public void testRejectsEventsNotFollowingHighWaterMark() {
+        EventSegmentCache testSubject = new EventSegmentCache(directory, IDENTITY, 4096, 1024 * 1024);
+        appendEvents(testSubject, 99, 5);
+
+        assertFalse(testSubject.append(50, event(51)));
+        assertTrue(testSubject.append(104, event(105)));
+        assertEquals(99, testSubject.getLowWaterMark());
+        assertEquals(105, testSubject.getHighWaterMark());
+        assertFalse(testSubject.covers(98));
+    }
+
+    @Test
+    public void testReadsAcrossSegments() {
+        EventSegmentCache testSubject = new EventSegmentCache(directory, IDENTITY, 1024, 1024 * 1024);
+        appendEvents(testSubject, -1, 100);
+
+        assertTrue(testSubject.getSegmentCount() > 1);
+        assertEquals(tokens(0, 99), readTokens(testSubject.read(-1)));
+        assertEquals(tokens(71, 99), readTokens(testSubject.read(70)));
+    }
+
+    @Test
+    public void testIteratorSeesEventsAppendedWhileReading() {
+        EventSegmentCache testSubject = new EventSegmentCache(directory, IDENTITY, 1024, 1024 * 1024);
+        appendEvents(testSubject, -1, 5);
+        Iterator<EventWithToken> iterator = testSubject.read(-1);
+        List<Long> tokens = readTokens(iterator);
+
+        appendEvents(testSubject, 4, 50);
+        tokens.addAll(readTokens(iterator));
+
+        assertEquals(tokens(0, 54), tokens);
+    }
+
+    @Test
+    public void testOldestSegmentsEvicted() {
+        EventSegmentCache testSubject = new EventSegmentCache(directory, IDENTITY, 1024, 4096);
+        appendEvents(testSubject, -1, 200);
+
+        assertEquals(4, testSubject.getSegmentCount());
+        assertTrue(testSubject.getLowWaterMark() > 0);
+        assertFalse(testSubject.covers(0));
+        assertEquals(tokens(testSubject.getLowWaterMark() + 1, 199),
+                     readTokens(testSubject.read(testSubject.getLowWaterMark())));
+    }
+
+    @Test
+    public void testSegmentsReloadedOnRestart() {
+        EventSegmentCache testSubject = new EventSegmentCache(directory, IDENTITY, 1024, 1024 * 1024);
+        appendEvents(testSubject, -1, 100);
+        testSubject.close();
+
+        EventSegmentCache reopened = new EventSegmentCache(directory, IDENTITY, 1024, 1024 * 1024);
+
+        assertEquals(99, reopened.getHighWaterMark());
+        assertEquals(tokens(0, 99), readTokens(reopened.read(-1)));
+        assertTrue(reopened.append(99, event(100)));
+    }
+
+    @Test
+    public void testCorruptRecordEndsReadingAndTruncatesOnRestart() throws Exception {
+        EventSegmentCache testSubject = new EventSegmentCache(directory, IDENTITY, 4096, 1024 * 1024);
+        appendEvents(testSubject, -1, 10);
+        testSubject.close();
+        Path segment = segmentFiles().get(0);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            // corrupts the payload of the sixth record
+            long position = 28;
+            for (int i = 0; i < 5; i++) {
+                file.seek(position);
+                position += 16 + file.readInt();
+            }
+            file.seek(position + 20);
+            file.write(0xFF);
+        }
+
+        EventSegmentCache reopened = new EventSegmentCache(directory, IDENTITY, 4096, 1024 * 1024);
+        assertEquals(tokens(0, 4), readTokens(reopened.read(-1)));
+        assertEquals(4, reopened.getHighWaterMark());
+    }
+
+    @Test
+    public void testSegmentsOfOtherEventStoreDiscarded() throws Exception {
+        EventSegmentCache testSubject = new EventSegmentCache(directory, IDENTITY, 1024, 1024 * 1024);
+        appendEvents(testSubject, -1, 100);
+        testSubject.close();
+
+        EventSegmentCache reopened = new EventSegmentCache(directory, "localhost:8124/other", 1024, 1024 * 1024);
+
+        assertEquals(-1, reopened.getHighWaterMark());
+        assertEquals(0, reopened.getSegmentCount());
+        assertTrue(segmentFiles().isEmpty());
+        assertTrue(reopened.append(41, event(42)));
+    }
+
+    @Test
+    public void testCacheDisabledWhileDirectoryLocked() {
+        EventSegmentCache testSubject = new EventSegmentCache(directory, IDENTITY, 1024, 1024 * 1024);
+        appendEvents(testSubject, -1, 10);
+
+        EventSegmentCache concurrent = new EventSegmentCache(directory, IDENTITY, 1024, 1024 * 1024);
+
+        assertEquals(0, concurrent.getSegmentCount());
+        assertFalse(concurrent.covers(0));
+        assertFalse(concurrent.append(9, event(10)));
+        concurrent.close();
+
+        testSubject.close();
+        EventSegmentCache reopened = new EventSegmentCache(directory, IDENTITY, 1024, 1024 * 1024);
+        assertEquals(9, reopened.getHighWaterMark());
+    }
+
+    @Test
+    public void testOfferedEventsAppendedByWriter() throws Exception {
+        EventSegmentCache testSubject = new EventSegmentCache(directory, IDENTITY, 1024, 1024 * 1024);
+        for (long token = 0; token < 50; token++) {
+            testSubject.offer(token - 1, event(token));
+        }
+        testSubject.close();
+
+        assertEquals(49, testSubject.getHighWaterMark());
+        assertFalse(testSubject.append(49, event(50)));
+        assertEquals(tokens(0, 49), readTokens(testSubject.read(-1)));
+    }
+
+    private List<Path> segmentFiles() throws Exception {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.segment")) {
+            stream.forEach(files::add);
+        }
+        return files;
+    }
+
+    private static void appendEvents(EventSegmentCache cache, long previousToken, int count) {
+        for (long token = previousToken + 1; token <= previousToken + count; token++) {
+            assertTrue(cache.append(token - 1, event(token)));
+        }
+    }
+
+    private static List<Long> readTokens(Iterator<EventWithToken> iterator) {
+        List<Long> tokens = new ArrayList<>();
+        iterator.forEachRemaining(event -> {
+            assertEquals("Event" + event.getToken(), event.getEvent().getPayload().getData().toStringUtf8());
+            tokens.add(event.getToken());
+        });
+        return tokens;
+    }
+
+    private static List<Long> tokens(long first, long last) {
+        List<Long> tokens = new ArrayList<>();
+        for (long token = first; token <= last; token++) {
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    private static EventWithToken event(long token) {
+        return EventWithToken.newBuilder()
+                             .setToken(token)
+                             .setEvent(Event.newBuilder()
+                                            .setMessageIdentifier("id" + token)
+                                            .setPayload(SerializedObject.newBuilder()
+                                                                        .setType("java.lang.String")
+                                                                        .setData(ByteString.copyFromUtf8("Event" + token))))
+                             .build();
+    }
+}
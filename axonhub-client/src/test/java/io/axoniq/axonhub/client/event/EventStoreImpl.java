@@ -17,17 +17,38 @@ package io.axoniq.axonhub.client.event;
 
 import io.axoniq.axondb.Event;
 import io.axoniq.axondb.grpc.*;
+import io.grpc.Metadata;
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class EventStoreImpl extends EventStoreGrpc.EventStoreImplBase {
 
+    private static final Metadata.Key<String> ERROR_CODE_KEY = Metadata.Key.of("AxonIQ-ErrorCode", Metadata.ASCII_STRING_MARSHALLER);
+
     private final List<Event> events = new LinkedList<>();
+    private final List<Long> requestedPermits = new CopyOnWriteArrayList<>();
+    private final long commitLatencyMillis;
+
+    public EventStoreImpl() {
+        this(0);
+    }
+
+    /**
+     * @param commitLatencyMillis time (in ms) each commit takes, during which no other transaction can commit, to
+     *                            simulate a server that flushes each transaction to disk
+     */
+    public EventStoreImpl(long commitLatencyMillis) {
+        this.commitLatencyMillis = commitLatencyMillis;
+    }
 
     @Override
     public StreamObserver<Event> appendEvent(StreamObserver<Confirmation> responseObserver) {
@@ -47,6 +68,22 @@ public class EventStoreImpl extends EventStoreGrpc.EventStoreImplBase {
 
             @Override
             public void onCompleted() {
+                synchronized (EventStoreImpl.this) {
+                    simulateCommitLatency();
+                    complete();
+                }
+            }
+
+            private void complete() {
+                Set<String> sequencesInTx = new HashSet<>();
+                if (eventsInTx.stream().anyMatch(e -> isDuplicate(e) || (!e.getAggregateIdentifier().isEmpty()
+                        && !sequencesInTx.add(e.getAggregateIdentifier() + "/" + e.getAggregateSequenceNumber())))) {
+                    Metadata metadata = new Metadata();
+                    metadata.put(ERROR_CODE_KEY, "AXONIQ-2000");
+                    responseObserver.onError(Status.OUT_OF_RANGE.withDescription("Invalid sequence number")
+                                                                .asRuntimeException(metadata));
+                    return;
+                }
                 events.addAll(eventsInTx);
                 responseObserver.onNext(Confirmation.newBuilder().setSuccess(true).build());
                 responseObserver.onCompleted();
@@ -54,6 +91,22 @@ public class EventStoreImpl extends EventStoreGrpc.EventStoreImplBase {
         };
     }
 
+    private void simulateCommitLatency() {
+        if (commitLatencyMillis > 0) {
+            try {
+                Thread.sleep(commitLatencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean isDuplicate(Event event) {
+        return !event.getAggregateIdentifier().isEmpty()
+                && events.stream().anyMatch(e -> e.getAggregateIdentifier().equals(event.getAggregateIdentifier())
+                && e.getAggregateSequenceNumber() == event.getAggregateSequenceNumber());
+    }
+
     @Override
     public void appendSnapshot(Event request, StreamObserver<Confirmation> responseObserver) {
         super.appendSnapshot(request, responseObserver);
@@ -62,10 +115,18 @@ public class EventStoreImpl extends EventStoreGrpc.EventStoreImplBase {
     @Override
     public void listAggregateEvents(GetAggregateEventsRequest request, StreamObserver<Event> responseObserver) {
         events.stream().filter(e -> e.getAggregateIdentifier().equals(request.getAggregateId()))
+              .filter(e -> e.getAggregateSequenceNumber() >= request.getInitialSequence())
               .forEach(responseObserver::onNext);
         responseObserver.onCompleted();
     }
 
+    /**
+     * Returns the number of permits of each request received on event streams, in order of receipt.
+     */
+    public List<Long> getRequestedPermits() {
+        return requestedPermits;
+    }
+
     @Override
     public StreamObserver<GetEventsRequest> listEvents(StreamObserver<EventWithToken> responseObserver) {
         return new StreamObserver<GetEventsRequest>() {
@@ -75,6 +136,7 @@ public class EventStoreImpl extends EventStoreGrpc.EventStoreImplBase {
 
             @Override
             public void onNext(GetEventsRequest getEventsRequest) {
+                requestedPermits.add(getEventsRequest.getNumberOfPermits());
                 long oldPermits = permits.getAndAdd(getEventsRequest.getNumberOfPermits());
                 if (token == 0) {
                     token = getEventsRequest.getTrackingToken();
@@ -104,6 +166,14 @@ public class EventStoreImpl extends EventStoreGrpc.EventStoreImplBase {
         };
     }
 
+    @Override
+    public void getLastToken(GetLastTokenRequest request, StreamObserver<TrackingToken> responseObserver) {
+        synchronized (this) {
+            responseObserver.onNext(TrackingToken.newBuilder().setToken(events.size() - 1).build());
+        }
+        responseObserver.onCompleted();
+    }
+
     @Override
     public void readHighestSequenceNr(ReadHighestSequenceNrRequest request, StreamObserver<ReadHighestSequenceNrResponse> responseObserver) {
         super.readHighestSequenceNr(request, responseObserver);
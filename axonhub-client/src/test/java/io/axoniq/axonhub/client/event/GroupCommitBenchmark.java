@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event;
+
+import com.google.protobuf.ByteString;
+import io.axoniq.axondb.Event;
+import io.axoniq.axonhub.client.AxonHubConfiguration;
+import io.axoniq.axonhub.client.PlatformConnectionManager;
+import io.axoniq.platform.SerializedObject;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures appends per second against the {@link StubServer}, comparing a transaction per append with group commit.
+ * Runs once against a server that commits instantly, and once against a server that takes a millisecond per commit,
+ * like a server flushing each transaction to disk. Not run as part of the test suite; start the main method to run it.
+ */
+public class GroupCommitBenchmark {
+
+    private static final int THREADS = 10;
+    private static final long DURATION_MILLIS = 5000;
+
+    public static void main(String[] args) throws Exception {
+        benchmark(0);
+        benchmark(1);
+    }
+
+    private static void benchmark(long commitLatencyMillis) throws Exception {
+        System.out.printf("commit latency %dms%n", commitLatencyMillis);
+        StubServer server = new StubServer(6125, commitLatencyMillis);
+        server.start();
+        try {
+            AxonHubConfiguration config = AxonHubConfiguration.newBuilder("localhost:6125", "BENCHMARK").build();
+            AxonDBClient client = new AxonDBClient(config, new PlatformConnectionManager(config));
+
+            run("warm-up", () -> client.createAppendEventConnection().commit(), client);
+            run("transaction per append", () -> {
+                AppendEventTransaction transaction = client.createAppendEventConnection();
+                transaction.append(event());
+                transaction.commit();
+            }, client);
+
+            GroupCommitEventAppender appender = new GroupCommitEventAppender(client::createAppendEventConnection,
+                                                                             2, 1024 * 1024);
+            run("group commit", () -> appender.append(Collections.singletonList(event())).get(10, TimeUnit.SECONDS),
+                client);
+            appender.shutdown();
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    private static void run(String name, Append append, AxonDBClient client) throws InterruptedException {
+        AtomicLong appends = new AtomicLong();
+        long end = System.currentTimeMillis() + DURATION_MILLIS;
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            executor.submit(() -> {
+                while (System.currentTimeMillis() < end) {
+                    try {
+                        append.append();
+                        appends.incrementAndGet();
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        return;
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(DURATION_MILLIS * 2, TimeUnit.MILLISECONDS);
+        System.out.printf("%-24s %,10d appends/s%n", name, appends.get() * 1000 / DURATION_MILLIS);
+    }
+
+    private static Event event() {
+        return Event.newBuilder()
+                    .setMessageIdentifier(UUID.randomUUID().toString())
+                    .setPayload(SerializedObject.newBuilder()
+                                                .setType("java.lang.String")
+                                                .setData(ByteString.copyFromUtf8("<string>benchmark</string>")))
+                    .build();
+    }
+
+    @FunctionalInterface
+    private interface Append {
+
+        void append() throws Exception;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event;
+
+import io.axoniq.axondb.Event;
+import io.axoniq.axondb.grpc.Confirmation;
+import io.axoniq.axondb.grpc.GetAggregateEventsRequest;
+import io.axoniq.axonhub.client.AxonHubConfiguration;
+import io.axoniq.axonhub.client.PlatformConnectionManager;
+import io.axoniq.axonhub.client.event.util.EventStoreClientException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GroupCommitEventAppenderTest {
+
+    private StubServer server;
+    private AxonDBClient client;
+    private GroupCommitEventAppender testSubject;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubServer(6124);
+        server.start();
+        AxonHubConfiguration config = AxonHubConfiguration.newBuilder("localhost:6124", "JUNIT").build();
+        client = new AxonDBClient(config, new PlatformConnectionManager(config));
+        testSubject = new GroupCommitEventAppender(client::createAppendEventConnection, 60000, 1024 * 1024);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        testSubject.shutdown();
+        server.shutdown();
+    }
+
+    @Test
+    public void testAppendsInGroupShareTransaction() throws Exception {
+        CompletableFuture<Confirmation> first = testSubject.append(Collections.singletonList(event("Agg1", 0)));
+        CompletableFuture<Confirmation> second = testSubject.append(Collections.singletonList(event("Agg2", 0)));
+        assertFalse(first.isDone());
+        testSubject.flush();
+
+        assertTrue(first.get(1, TimeUnit.SECONDS).getSuccess());
+        assertTrue(second.get(1, TimeUnit.SECONDS).getSuccess());
+    }
+
+    @Test
+    public void testConflictingAppendRetriedIndividually() throws Exception {
+        CompletableFuture<Confirmation> first = testSubject.append(Collections.singletonList(event("Agg1", 0)));
+        CompletableFuture<Confirmation> conflicting = testSubject.append(Collections.singletonList(event("Agg1", 0)));
+        CompletableFuture<Confirmation> other = testSubject.append(Collections.singletonList(event("Agg2", 0)));
+        testSubject.flush();
+
+        assertTrue(first.get(1, TimeUnit.SECONDS).getSuccess());
+        assertTrue(other.get(1, TimeUnit.SECONDS).getSuccess());
+        try {
+            conflicting.get(1, TimeUnit.SECONDS);
+            fail("Expected conflicting append to fail");
+        } catch (ExecutionException e) {
+            assertEquals("AXONIQ-2000", ((EventStoreClientException) e.getCause()).getCode());
+        }
+        assertEquals(1, client.listAggregateEvents(GetAggregateEventsRequest.newBuilder().setAggregateId("Agg2").build())
+                              .count());
+    }
+
+    @Test
+    public void testGroupSentWhenMaxBytesReached() throws Exception {
+        GroupCommitEventAppender smallGroups = new GroupCommitEventAppender(client::createAppendEventConnection, 60000, 1);
+
+        CompletableFuture<Confirmation> result = smallGroups.append(Collections.singletonList(event("Agg1", 0)));
+
+        assertTrue(result.get(1, TimeUnit.SECONDS).getSuccess());
+        smallGroups.shutdown();
+    }
+
+    @Test
+    public void testLingerTimeOfGroupSentOnMaxBytesDoesNotApplyToNextGroup() throws Exception {
+        int eventSize = event("Agg1", 0).getSerializedSize();
+        GroupCommitEventAppender lingering = new GroupCommitEventAppender(client::createAppendEventConnection, 1000,
+                                                                          2 * eventSize);
+
+        client.createAppendEventConnection().commit();
+
+        long start = System.currentTimeMillis();
+        lingering.append(Collections.singletonList(event("Agg1", 0)));
+        CompletableFuture<Confirmation> full = lingering.append(Collections.singletonList(event("Agg2", 0)));
+        assertTrue(full.get(1, TimeUnit.SECONDS).getSuccess());
+        Thread.sleep(Math.max(0, start + 500 - System.currentTimeMillis()));
+        CompletableFuture<Confirmation> next = lingering.append(Collections.singletonList(event("Agg3", 0)));
+        Thread.sleep(Math.max(0, start + 1300 - System.currentTimeMillis()));
+
+        assertFalse(next.isDone());
+        assertTrue(next.get(2, TimeUnit.SECONDS).getSuccess());
+        lingering.shutdown();
+    }
+
+    @Test
+    public void testAppendAfterShutdownSentImmediately() throws Exception {
+        CompletableFuture<Confirmation> pending = testSubject.append(Collections.singletonList(event("Agg1", 0)));
+        testSubject.shutdown();
+        assertTrue(pending.get(1, TimeUnit.SECONDS).getSuccess());
+
+        CompletableFuture<Confirmation> first = testSubject.append(Collections.singletonList(event("Agg2", 0)));
+        CompletableFuture<Confirmation> second = testSubject.append(Collections.singletonList(event("Agg3", 0)));
+
+        assertTrue(first.get(1, TimeUnit.SECONDS).getSuccess());
+        assertTrue(second.get(1, TimeUnit.SECONDS).getSuccess());
+    }
+
+    private static Event event(String aggregateIdentifier, long sequenceNumber) {
+        return Event.newBuilder()
+                    .setAggregateIdentifier(aggregateIdentifier)
+                    .setAggregateSequenceNumber(sequenceNumber)
+                    .setAggregateType("Aggregate")
+                    .build();
+    }
+}
@@ -16,23 +16,52 @@
 package io.axoniq.axonhub.client.event;
 
 import io.axoniq.axonhub.client.PlatformService;
+import io.grpc.Metadata;
 import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
 import io.grpc.netty.NettyServerBuilder;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 public class StubServer {
 
     private final Server server;
+    private static final Metadata.Key<String> GRPC_ENCODING =
+            Metadata.Key.of("grpc-encoding", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final EventStoreImpl eventStore;
+    private final Map<String, String> requestEncodings = new ConcurrentHashMap<>();
 
     public StubServer(int port) {
+        this(port, 0);
+    }
+
+    public StubServer(int port, long commitLatencyMillis) {
+        eventStore = new EventStoreImpl(commitLatencyMillis);
         server = NettyServerBuilder.forPort(port)
-                                   .addService(new EventStoreImpl())
+                                   .addService(ServerInterceptors.intercept(eventStore, new EncodingRecorder()))
                                    .addService(new PlatformService(port))
                                    .build();
     }
 
+    public EventStoreImpl getEventStore() {
+        return eventStore;
+    }
+
+    /**
+     * Returns the encoding of the messages of the last call to each method of the event store, by full method name.
+     * Calls without compression are recorded as "identity".
+     */
+    public Map<String, String> getRequestEncodings() {
+        return requestEncodings;
+    }
+
     public void start() throws IOException {
         server.start();
     }
@@ -41,4 +70,16 @@ public class StubServer {
         server.shutdown();
         server.awaitTermination(1, TimeUnit.SECONDS);
     }
+
+    private class EncodingRecorder implements ServerInterceptor {
+
+        @Override
+        public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                     ServerCallHandler<ReqT, RespT> next) {
+            String encoding = headers.get(GRPC_ENCODING);
+            requestEncodings.put(call.getMethodDescriptor().getFullMethodName(),
+                                 encoding == null ? "identity" : encoding);
+            return next.startCall(call, headers);
+        }
+    }
 }
@@ -15,29 +15,58 @@
 
 package io.axoniq.axonhub.client.event.axon;
 
+import io.axoniq.axondb.grpc.EventStoreGrpc;
 import io.axoniq.axonhub.client.AxonHubConfiguration;
 import io.axoniq.axonhub.client.PlatformConnectionManager;
 import io.axoniq.axonhub.client.event.StubServer;
+import io.axoniq.axonhub.client.event.util.EventCipher;
+import org.axonframework.commandhandling.model.ConcurrencyException;
+import org.axonframework.eventhandling.EventMessage;
 import org.axonframework.eventhandling.GenericEventMessage;
+import org.axonframework.eventhandling.TrackedEventMessage;
+import org.axonframework.eventsourcing.GenericDomainEventMessage;
+import org.axonframework.eventsourcing.eventstore.DomainEventStream;
 import org.axonframework.eventsourcing.eventstore.EventStoreException;
+import org.axonframework.eventsourcing.eventstore.GlobalSequenceTrackingToken;
 import org.axonframework.eventsourcing.eventstore.TrackingEventStream;
+import org.axonframework.eventsourcing.eventstore.TrackingToken;
 import org.axonframework.messaging.Message;
+import org.axonframework.messaging.MessageStream;
 import org.axonframework.messaging.unitofwork.DefaultUnitOfWork;
 import org.axonframework.messaging.unitofwork.UnitOfWork;
 import org.axonframework.serialization.xml.XStreamSerializer;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
 
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
 
+import static io.axoniq.axonhub.client.common.AssertUtils.assertWithin;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class AxonHubEventStoreTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<AxonHubEventStore> eventStores = new ArrayList<>();
+    private final List<PlatformConnectionManager> connectionManagers = new ArrayList<>();
     private StubServer server;
     private AxonHubEventStore testSubject;
 
@@ -45,18 +74,44 @@ public class AxonHubEventStoreTest {
     public void setUp() throws Exception {
         server = new StubServer(6123);
         server.start();
-        AxonHubConfiguration config = AxonHubConfiguration.newBuilder("localhost:6123", "JUNIT")
-                                                                .flowControl(2, 1, 1)
-                                                                .build();
-        PlatformConnectionManager platformConnectionManager = new PlatformConnectionManager(config);
-        testSubject = new AxonHubEventStore(config, platformConnectionManager, new XStreamSerializer());
+        testSubject = createEventStore(builder -> builder);
     }
 
     @After
     public void tearDown() throws Exception {
+        eventStores.forEach(AxonHubEventStore::shutdown);
+        connectionManagers.forEach(PlatformConnectionManager::shutdown);
         server.shutdown();
     }
 
+    /**
+     * Creates an event store connecting to the stub server, with flow control of 2 permits, configured further by
+     * given {@code configurer}. The event store and its connection manager are shut down after the test.
+     */
+    private AxonHubEventStore createEventStore(UnaryOperator<AxonHubConfiguration.Builder> configurer) {
+        AxonHubConfiguration config = configurer.apply(AxonHubConfiguration.newBuilder("localhost:6123", "JUNIT")
+                                                                           .flowControl(2, 1, 1))
+                                                .build();
+        PlatformConnectionManager connectionManager = new PlatformConnectionManager(config);
+        connectionManagers.add(connectionManager);
+        AxonHubEventStore eventStore = new AxonHubEventStore(config, connectionManager, new XStreamSerializer());
+        eventStores.add(eventStore);
+        return eventStore;
+    }
+
+    /**
+     * Reads the payloads of the events available on given {@code stream}, until no event arrives within 100ms, and
+     * closes the stream.
+     */
+    private static List<Object> readAvailable(TrackingEventStream stream) throws InterruptedException {
+        List<Object> received = new ArrayList<>();
+        while (stream.hasNextAvailable(100, TimeUnit.MILLISECONDS)) {
+            received.add(stream.nextAvailable().getPayload());
+        }
+        stream.close();
+        return received;
+    }
+
     @Test
     public void testPublishAndConsumeEvents() throws Exception {
         UnitOfWork<Message<?>> uow = DefaultUnitOfWork.startAndGet(null);
@@ -65,15 +120,361 @@ public class AxonHubEventStoreTest {
                             GenericEventMessage.asEventMessage("Test3"));
         uow.commit();
 
-        TrackingEventStream stream = testSubject.openStream(null);
+        List<Object> received = readAvailable(testSubject.openStream(null));
+
+        assertEquals(Arrays.asList("Test1", "Test2", "Test3"), received);
+        assertEquals("identity", server.getRequestEncodings().get(EventStoreGrpc.METHOD_APPEND_EVENT.getFullMethodName()));
+    }
+
+    @Test
+    public void testPublishAndConsumeEventsWithParallelProcessing() throws Exception {
+        AxonHubEventStore parallelEventStore = createEventStore(builder -> builder.parallelEventProcessing(2, 2));
+        parallelEventStore.publish(GenericEventMessage.asEventMessage("Test1"),
+                                   GenericEventMessage.asEventMessage("Test2"),
+                                   GenericEventMessage.asEventMessage("Test3"));
+
+        List<Object> received = readAvailable(parallelEventStore.openStream(null));
+
+        assertEquals(Arrays.asList("Test1", "Test2", "Test3"), received);
+    }
+
+    @Test
+    public void testConsumeEventsWithAdaptiveFlowControl() throws Exception {
+        AxonHubEventStore adaptiveEventStore = createEventStore(builder -> builder.flowControl(8, 1, 1)
+                                                                                  .adaptiveFlowControl(1, 4));
+        List<Object> published = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            published.add("Test" + i);
+            adaptiveEventStore.publish(GenericEventMessage.asEventMessage("Test" + i));
+        }
+
+        List<Object> received = readAvailable(adaptiveEventStore.openStream(null));
+
+        assertEquals(published, received);
+        List<Long> requestedPermits = server.getEventStore().getRequestedPermits();
+        // the initial permits are limited to the maximum window, and no grant exceeds it
+        assertEquals(Long.valueOf(4), requestedPermits.get(0));
+        assertTrue(requestedPermits.size() > 1);
+        assertTrue(requestedPermits.stream().allMatch(permits -> permits <= 4));
+    }
+
+    @Test
+    public void testPublishAndConsumeEventsWithCompression() throws Exception {
+        AxonHubEventStore compressingEventStore = createEventStore(builder -> builder.compression("gzip", "gzip", "gzip")
+                                                                                    .compressionThreshold(0));
+        compressingEventStore.publish(GenericEventMessage.asEventMessage("Test1"),
+                                      GenericEventMessage.asEventMessage("Test2"));
+
+        List<Object> received = readAvailable(compressingEventStore.openStream(null));
+
+        assertEquals(Arrays.asList("Test1", "Test2"), received);
+        assertEquals("gzip", server.getRequestEncodings().get(EventStoreGrpc.METHOD_APPEND_EVENT.getFullMethodName()));
+        assertEquals("gzip", server.getRequestEncodings().get(EventStoreGrpc.METHOD_LIST_EVENTS.getFullMethodName()));
+    }
+
+    @Test
+    public void testPublishAndReadEncryptedEvents() throws Exception {
+        AxonHubEventStore encryptingEventStore = createEventStore(
+                builder -> builder.eventCipher(new EventCipher("0123456789abcdef".getBytes())));
+        encryptingEventStore.publish(new GenericDomainEventMessage<>("Aggregate", "Agg1", 0, "Test1"),
+                                     new GenericDomainEventMessage<>("Aggregate", "Agg1", 1, "Test2"));
+
+        DomainEventStream aggregateEvents = encryptingEventStore.readEvents("Agg1");
+        assertEquals("Test1", aggregateEvents.next().getPayload());
+        assertEquals("Test2", aggregateEvents.next().getPayload());
+
+        List<Object> received = readAvailable(encryptingEventStore.openStream(null));
+        assertEquals(Arrays.asList("Test1", "Test2"), received);
+    }
+
+    @Test
+    public void testConsumeEventsWithPayloadTypeFilter() throws Exception {
+        testSubject.publish(GenericEventMessage.asEventMessage("Test1"),
+                            GenericEventMessage.asEventMessage(1),
+                            GenericEventMessage.asEventMessage("Test3"));
+
+        PayloadTypeFilter filter = PayloadTypeFilter.forTypes(new XStreamSerializer(), CharSequence.class);
+        MessageStream<TrackedEventMessage<?>> stream = testSubject.withPayloadTypeFilter(filter).openStream(null);
+        List<Object> received = new ArrayList<>();
+        TrackingToken lastToken = null;
+        while (stream.hasNextAvailable(100, TimeUnit.MILLISECONDS)) {
+            TrackedEventMessage<?> message = stream.nextAvailable();
+            lastToken = message.trackingToken();
+            if (!(message.getPayload() instanceof SkippedEvent)) {
+                received.add(message.getPayload());
+            }
+        }
+        stream.close();
+
+        assertEquals(Arrays.asList("Test1", "Test3"), received);
+        assertEquals(new GlobalSequenceTrackingToken(2), lastToken);
+    }
+
+    @Test
+    public void testConsumeEventsWithCatchUpDetection() throws Exception {
+        AxonHubEventStore trackingEventStore = createEventStore(builder -> builder.catchUpDetection(1, 10));
+        trackingEventStore.publish(GenericEventMessage.asEventMessage("Test1"),
+                                   GenericEventMessage.asEventMessage("Test2"),
+                                   GenericEventMessage.asEventMessage("Test3"));
 
-        List<String> received = new ArrayList<>();
-        while(stream.hasNextAvailable(100, TimeUnit.MILLISECONDS)) {
-            received.add(stream.nextAvailable().getPayload().toString());
+        TrackingEventStream stream = trackingEventStore.openStream(null);
+        CatchUpTracker tracker = trackingEventStore.getCatchUpTrackers().get(0);
+        assertEquals(CatchUpTracker.Phase.CATCHING_UP, tracker.getPhase());
+        List<Object> received = new ArrayList<>();
+        while (stream.hasNextAvailable(100, TimeUnit.MILLISECONDS)) {
+            received.add(stream.nextAvailable().getPayload());
         }
+
+        assertEquals(Arrays.asList("Test1", "Test2", "Test3"), received);
+        assertEquals(CatchUpTracker.Phase.LIVE, tracker.getPhase());
+        assertEquals(0, tracker.getDistanceToHead());
         stream.close();
+        assertEquals(0, trackingEventStore.getCatchUpTrackers().size());
+    }
+
+    @Test
+    public void testReplayEventsFromEventCache() throws Exception {
+        String cacheFolder = folder.newFolder().getPath();
+        AxonHubEventStore cachingEventStore = createEventStore(builder -> builder.eventCache(cacheFolder, 1024 * 1024)
+                                                                                 .eventCacheSegmentSize(64 * 1024));
+        cachingEventStore.publish(GenericEventMessage.asEventMessage("Test1"),
+                                  GenericEventMessage.asEventMessage("Test2"),
+                                  GenericEventMessage.asEventMessage("Test3"));
+        readAvailable(cachingEventStore.openStream(null));
+        assertWithin(1, TimeUnit.SECONDS, () -> assertEquals(2, cachingEventStore.getEventCache().getHighWaterMark()));
+
+        server.shutdown();
+        TrackingEventStream cachedStream = cachingEventStore.openStream(null);
+        List<Object> received = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            received.add(cachedStream.nextAvailable().getPayload());
+        }
+        cachedStream.close();
+
+        assertEquals(Arrays.asList("Test1", "Test2", "Test3"), received);
+
+        TrackingEventStream filteredStream = cachingEventStore.openStream(null, payloadType -> false);
+        TrackedEventMessage<?> placeholder = filteredStream.nextAvailable();
+        filteredStream.close();
+
+        assertTrue(placeholder.getPayload() instanceof SkippedEvent);
+        assertEquals(new GlobalSequenceTrackingToken(0), placeholder.trackingToken());
+    }
+
+    @Test
+    public void testConsumeEventsFromSharedStream() throws Exception {
+        AxonHubEventStore sharingEventStore = createEventStore(builder -> builder.sharedEventStream(100));
+        sharingEventStore.publish(GenericEventMessage.asEventMessage("Test1"),
+                                  GenericEventMessage.asEventMessage("Test2"),
+                                  GenericEventMessage.asEventMessage("Test3"));
+
+        TrackingEventStream first = sharingEventStore.openStream(null);
+        TrackingEventStream second = sharingEventStore.openStream(null);
+        List<Object> receivedByFirst = readAvailable(first);
+        List<Object> receivedBySecond = readAvailable(second);
+
+        assertEquals(Arrays.asList("Test1", "Test2", "Test3"), receivedByFirst);
+        assertEquals(receivedByFirst, receivedBySecond);
+    }
+
+    @Test
+    public void testReplayEventsThroughParallelStreams() throws Exception {
+        List<EventMessage<?>> published = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            published.add(GenericEventMessage.asEventMessage("Test" + i));
+        }
+        testSubject.publish(published);
 
+        List<Object> received = readAvailable(testSubject.openParallelStream(null, 3));
+
+        assertEquals(Arrays.asList("Test0", "Test1", "Test2", "Test3", "Test4", "Test5", "Test6", "Test7", "Test8",
+                                   "Test9"), received);
+    }
+
+    @Test
+    public void testReadRangeStreams() throws Exception {
+        List<EventMessage<?>> published = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            published.add(GenericEventMessage.asEventMessage("Test" + i));
+        }
+        testSubject.publish(published);
+
+        List<TokenRangeEventStream> ranges = testSubject.openRangeStreams(new GlobalSequenceTrackingToken(0),
+                                                                         new GlobalSequenceTrackingToken(8), 3);
+        List<List<Object>> received = new ArrayList<>();
+        for (TokenRangeEventStream range : ranges) {
+            List<Object> receivedInRange = new ArrayList<>();
+            while (!range.isExhausted()) {
+                receivedInRange.add(range.nextAvailable().getPayload());
+            }
+            range.close();
+            received.add(receivedInRange);
+        }
+
+        assertEquals(Arrays.asList(Arrays.asList("Test1", "Test2"),
+                                   Arrays.asList("Test3", "Test4", "Test5"),
+                                   Arrays.asList("Test6", "Test7", "Test8")), received);
+    }
+
+    @Test
+    public void testReadRangeStreamsOfEmptyRange() {
+        testSubject.publish(GenericEventMessage.asEventMessage("Test0"), GenericEventMessage.asEventMessage("Test1"));
+
+        assertTrue(testSubject.openRangeStreams(new GlobalSequenceTrackingToken(1),
+                                                new GlobalSequenceTrackingToken(1), 3).isEmpty());
+        assertTrue(testSubject.openRangeStreams(new GlobalSequenceTrackingToken(1),
+                                                new GlobalSequenceTrackingToken(0), 3).isEmpty());
+    }
+
+    @Test
+    public void testConsumeEventsAsFlux() throws Exception {
+        testSubject.publish(GenericEventMessage.asEventMessage("Test1"),
+                            GenericEventMessage.asEventMessage("Test2"),
+                            GenericEventMessage.asEventMessage("Test3"));
+
+        List<Object> received = new CopyOnWriteArrayList<>();
+        BaseSubscriber<TrackedEventMessage<?>> subscriber = new BaseSubscriber<TrackedEventMessage<?>>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(2);
+            }
+
+            @Override
+            protected void hookOnNext(TrackedEventMessage<?> value) {
+                received.add(value.getPayload());
+            }
+        };
+        ReactiveEventStore.openFlux(testSubject, null).subscribe(subscriber);
+
+        Thread.sleep(200);
+        assertEquals(Arrays.asList("Test1", "Test2"), received);
+        subscriber.request(1);
+        Thread.sleep(200);
         assertEquals(Arrays.asList("Test1", "Test2", "Test3"), received);
+        subscriber.dispose();
+    }
+
+    @Test
+    public void testConsumeEventsAsFluxWithPayloadTypeFilter() {
+        testSubject.publish(GenericEventMessage.asEventMessage("Test1"),
+                            GenericEventMessage.asEventMessage(1),
+                            GenericEventMessage.asEventMessage("Test3"));
+
+        PayloadTypeFilter filter = PayloadTypeFilter.forTypes(new XStreamSerializer(), CharSequence.class);
+        List<Object> received = ReactiveEventStore.openFlux(testSubject, null, filter)
+                                                  .limitRate(1)
+                                                  .take(2)
+                                                  .map(message -> (Object) message.getPayload())
+                                                  .collectList()
+                                                  .block(Duration.ofSeconds(5));
+
+        assertEquals(Arrays.asList("Test1", "Test3"), received);
+    }
+
+    @Test
+    public void testEventStoreDoesNotRequireReactor() throws Exception {
+        URL[] classPath = Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+                                .map(this::toUrl)
+                                .toArray(URL[]::new);
+        ClassLoader withoutReactor = new URLClassLoader(classPath, null) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                if (name.startsWith("reactor.")) {
+                    throw new ClassNotFoundException(name);
+                }
+                return super.loadClass(name, resolve);
+            }
+        };
+
+        Class<?> eventStoreClass = Class.forName(AxonHubEventStore.class.getName(), true, withoutReactor);
+        eventStoreClass.getDeclaredMethods();
+        for (Class<?> innerClass : eventStoreClass.getDeclaredClasses()) {
+            innerClass.getDeclaredMethods();
+        }
+    }
+
+    private URL toUrl(String path) {
+        try {
+            return new File(path).toURI().toURL();
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    public void testStreamAggregateEvents() {
+        AxonHubEventStore streamingEventStore = createEventStore(builder -> builder.streamAggregateEvents(2));
+        UnitOfWork<Message<?>> uow = DefaultUnitOfWork.startAndGet(null);
+        for (int i = 0; i < 5; i++) {
+            streamingEventStore.publish(new GenericDomainEventMessage<>("Aggregate", "Agg1", i, "Test" + i));
+        }
+        uow.commit();
+
+        List<Object> received = new ArrayList<>();
+        DefaultUnitOfWork.startAndGet(null).execute(
+                () -> streamingEventStore.readEvents("Agg1").forEachRemaining(e -> received.add(e.getPayload())));
+
+        assertEquals(Arrays.asList("Test0", "Test1", "Test2", "Test3", "Test4"), received);
+    }
+
+    @Test
+    public void testStreamAggregateEventsOutsideUnitOfWorkReadsFullHistory() {
+        AxonHubEventStore streamingEventStore = createEventStore(builder -> builder.streamAggregateEvents(2));
+        for (int i = 0; i < 5; i++) {
+            streamingEventStore.publish(new GenericDomainEventMessage<>("Aggregate", "Agg1", i, "Test" + i));
+        }
+
+        DomainEventStream stream = streamingEventStore.readEvents("Agg1");
+        List<Object> received = new ArrayList<>();
+        stream.forEachRemaining(e -> received.add(e.getPayload()));
+
+        assertEquals(Arrays.asList("Test0", "Test1", "Test2", "Test3", "Test4"), received);
+    }
+
+    @Test
+    public void testAggregateEventCacheReadsTail() {
+        AxonHubEventStore cachingEventStore = createEventStore(builder -> builder.aggregateEventCache(10, 100_000));
+        cachingEventStore.publish(new GenericDomainEventMessage<>("Aggregate", "Agg1", 0, "Test0"),
+                                  new GenericDomainEventMessage<>("Aggregate", "Agg1", 1, "Test1"));
+        assertEquals(2, cachingEventStore.readEvents("Agg1").asStream().count());
+
+        cachingEventStore.publish(new GenericDomainEventMessage<>("Aggregate", "Agg1", 2, "Test2"));
+        List<Object> received = new ArrayList<>();
+        cachingEventStore.readEvents("Agg1").forEachRemaining(e -> received.add(e.getPayload()));
+
+        assertEquals(Arrays.asList("Test0", "Test1", "Test2"), received);
+        AggregateEventCache cache = cachingEventStore.getAggregateEventCache();
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(3, cache.getCachedEvents());
+        assertTrue(cache.getCachedBytes() > 0);
+    }
+
+    @Test
+    public void testAggregateEventCacheSkipsAggregatesExceedingMaxBytes() {
+        AxonHubEventStore cachingEventStore = createEventStore(builder -> builder.aggregateEventCache(10, 100));
+        cachingEventStore.publish(new GenericDomainEventMessage<>("Aggregate", "Agg1", 0, "Test0"),
+                                  new GenericDomainEventMessage<>("Aggregate", "Agg1", 1, "Test1"));
+
+        assertEquals(2, cachingEventStore.readEvents("Agg1").asStream().count());
+        assertEquals(0, cachingEventStore.getAggregateEventCache().getSize());
+        assertEquals(0, cachingEventStore.getAggregateEventCache().getCachedBytes());
+    }
+
+    @Test
+    public void testAggregateEventCacheInvalidatedOnConcurrencyException() {
+        AxonHubEventStore cachingEventStore = createEventStore(builder -> builder.aggregateEventCache(10, 100_000));
+        cachingEventStore.publish(new GenericDomainEventMessage<>("Aggregate", "Agg1", 0, "Test0"));
+        cachingEventStore.readEvents("Agg1").asStream().count();
+        assertEquals(1, cachingEventStore.getAggregateEventCache().getSize());
+
+        try {
+            cachingEventStore.publish(new GenericDomainEventMessage<>("Aggregate", "Agg1", 0, "Conflict"));
+            fail("Expected ConcurrencyException");
+        } catch (ConcurrencyException expected) {
+            // expected
+        }
+        assertEquals(0, cachingEventStore.getAggregateEventCache().getSize());
     }
 
     @Test(expected = EventStoreException.class)
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event.axon;
+
+import org.axonframework.eventsourcing.DomainEventMessage;
+import org.axonframework.eventsourcing.GenericDomainEventMessage;
+import org.axonframework.eventsourcing.eventstore.DomainEventStream;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class CachingDomainEventStreamTest {
+
+    private final List<CachingDomainEventStream.CacheableEvents> cachedResults = new ArrayList<>();
+
+    @Test
+    public void testCachedEventsFollowedByEventsRead() {
+        List<DomainEventMessage<?>> cached = Arrays.asList(message(0), message(1));
+        CachingDomainEventStream.CacheableEvents cacheableEvents =
+                new CachingDomainEventStream.CacheableEvents(cached, 20, size -> true);
+        DomainEventStream testSubject = testSubject(cached, cacheableEvents, Stream.of(message(2), message(3)));
+
+        assertSame(cached.get(0), testSubject.peek());
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L), sequenceNumbers(testSubject));
+        assertEquals(Long.valueOf(3), testSubject.getLastSequenceNumber());
+
+        assertEquals(1, cachedResults.size());
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L), cachedResults.get(0).getEvents().stream()
+                                                                  .map(DomainEventMessage::getSequenceNumber)
+                                                                  .collect(Collectors.toList()));
+        assertEquals(40, cachedResults.get(0).getSize());
+    }
+
+    @Test
+    public void testEventsNotCachedUntilStreamExhausted() {
+        CachingDomainEventStream.CacheableEvents cacheableEvents =
+                new CachingDomainEventStream.CacheableEvents(Collections.emptyList(), 0, size -> true);
+        DomainEventStream testSubject = testSubject(Collections.emptyList(), cacheableEvents,
+                                                    Stream.of(message(0), message(1)));
+
+        testSubject.next();
+        assertEquals(0, cachedResults.size());
+
+        testSubject.next();
+        assertFalse(testSubject.hasNext());
+        assertFalse(testSubject.hasNext());
+        assertEquals(1, cachedResults.size());
+    }
+
+    @Test
+    public void testEventsExceedingCacheSizeNotCached() {
+        CachingDomainEventStream.CacheableEvents cacheableEvents =
+                new CachingDomainEventStream.CacheableEvents(Collections.emptyList(), 0, size -> size <= 15);
+        DomainEventStream testSubject = testSubject(Collections.emptyList(), cacheableEvents,
+                                                    Stream.of(message(0), message(1)));
+
+        assertEquals(Arrays.asList(0L, 1L), sequenceNumbers(testSubject));
+        assertEquals(0, cachedResults.size());
+    }
+
+    @Test
+    public void testEventsReadFromSnapshotNotCached() {
+        CachingDomainEventStream.CacheableEvents cacheableEvents =
+                new CachingDomainEventStream.CacheableEvents(Collections.emptyList(), 0, size -> true);
+        DomainEventStream delegate = DomainEventStream.of(Stream.of(message(5), message(6)).peek(
+                event -> cacheableEvents.read(10, event.getSequenceNumber() == 5)));
+        DomainEventStream testSubject = new CachingDomainEventStream(Collections.emptyList(), delegate,
+                                                                     cacheableEvents, cachedResults::add);
+
+        assertEquals(Arrays.asList(5L, 6L), sequenceNumbers(testSubject));
+        assertEquals(0, cachedResults.size());
+    }
+
+    @Test
+    public void testEmptyStreamNotCached() {
+        CachingDomainEventStream.CacheableEvents cacheableEvents =
+                new CachingDomainEventStream.CacheableEvents(Collections.emptyList(), 0, size -> true);
+        DomainEventStream testSubject = testSubject(Collections.emptyList(), cacheableEvents, Stream.empty());
+
+        assertFalse(testSubject.hasNext());
+        assertNull(testSubject.getLastSequenceNumber());
+        assertEquals(0, cachedResults.size());
+    }
+
+    private DomainEventStream testSubject(List<DomainEventMessage<?>> cached,
+                                          CachingDomainEventStream.CacheableEvents cacheableEvents,
+                                          Stream<DomainEventMessage<?>> read) {
+        DomainEventStream delegate = DomainEventStream.of(read.peek(event -> cacheableEvents.read(10, false)));
+        return new CachingDomainEventStream(cached, delegate, cacheableEvents, cachedResults::add);
+    }
+
+    private static List<Long> sequenceNumbers(DomainEventStream stream) {
+        return stream.asStream().map(DomainEventMessage::getSequenceNumber).collect(Collectors.toList());
+    }
+
+    private static DomainEventMessage<?> message(long sequenceNumber) {
+        return new GenericDomainEventMessage<>("Aggregate", "Agg1", sequenceNumber, "payload");
+    }
+}
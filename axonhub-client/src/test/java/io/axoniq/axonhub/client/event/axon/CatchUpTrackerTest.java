@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.axoniq.axonhub.client.event.axon;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+
+public class CatchUpTrackerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicLong headToken = new AtomicLong();
+    private final AtomicInteger headRequests = new AtomicInteger();
+
+    private CatchUpTracker tracker(long position, long head) {
+        headToken.set(head);
+        return new CatchUpTracker(() -> {
+            headRequests.incrementAndGet();
+            return CompletableFuture.completedFuture(headToken.get());
+        }, position, head, 100, 50, 1000, now::get);
+    }
+
+    @Test
+    public void testStreamFarFromHeadIsCatchingUp() {
+        CatchUpTracker testSubject = tracker(-1, 10000);
+
+        assertEquals(CatchUpTracker.Phase.CATCHING_UP, testSubject.getPhase());
+        assertEquals(10001, testSubject.getDistanceToHead());
+        assertEquals(100000, testSubject.limitPermits(100000, 50000));
+    }
+
+    @Test
+    public void testStreamNearHeadIsLive() {
+        CatchUpTracker testSubject = tracker(9950, 10000);
+
+        assertEquals(CatchUpTracker.Phase.LIVE, testSubject.getPhase());
+        assertEquals(50, testSubject.limitPermits(100000, 0));
+        assertEquals(0, testSubject.limitPermits(100000, 30));
+        assertEquals(30, testSubject.limitPermits(100000, 20));
+    }
+
+    @Test
+    public void testSwitchesToLiveWhenReachingHead() {
+        CatchUpTracker testSubject = tracker(0, 1000);
+
+        testSubject.received(899);
+        assertEquals(CatchUpTracker.Phase.CATCHING_UP, testSubject.getPhase());
+        testSubject.received(900);
+        assertEquals(CatchUpTracker.Phase.LIVE, testSubject.getPhase());
+        assertEquals(100, testSubject.getDistanceToHead());
+    }
+
+    @Test
+    public void testSwitchesBackToCatchingUpWhenFallingBehind() {
+        CatchUpTracker testSubject = tracker(1000, 1000);
+        assertEquals(CatchUpTracker.Phase.LIVE, testSubject.getPhase());
+
+        headToken.set(1300);
+        testSubject.received(1001);
+        assertEquals(0, headRequests.get());
+        assertEquals(CatchUpTracker.Phase.LIVE, testSubject.getPhase());
+
+        now.addAndGet(1000);
+        testSubject.received(1002);
+        assertEquals(1, headRequests.get());
+        assertEquals(298, testSubject.getDistanceToHead());
+        assertEquals(CatchUpTracker.Phase.CATCHING_UP, testSubject.getPhase());
+    }
+
+    @Test
+    public void testHeadRequestedAsynchronouslyWhenNotKnown() {
+        CompletableFuture<Long> head = new CompletableFuture<>();
+        CatchUpTracker testSubject = new CatchUpTracker(() -> {
+            headRequests.incrementAndGet();
+            return head;
+        }, 9950, 100, 50, 1000, now::get);
+
+        assertEquals(1, headRequests.get());
+        assertEquals(CatchUpTracker.Phase.CATCHING_UP, testSubject.getPhase());
+        testSubject.received(9951);
+        assertEquals(CatchUpTracker.Phase.CATCHING_UP, testSubject.getPhase());
+
+        head.complete(10000L);
+        assertEquals(CatchUpTracker.Phase.LIVE, testSubject.getPhase());
+        assertEquals(49, testSubject.getDistanceToHead());
+    }
+
+    @Test
+    public void testHeadRequestRetriedAfterFailure() {
+        CompletableFuture<Long> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new RuntimeException("unavailable"));
+        headToken.set(1000);
+        CatchUpTracker testSubject = new CatchUpTracker(
+                () -> headRequests.incrementAndGet() == 1 ? failed : CompletableFuture.completedFuture(headToken.get()),
+                0, 100, 50, 1000, now::get);
+        assertEquals(1, headRequests.get());
+
+        testSubject.received(1);
+        assertEquals(1, headRequests.get());
+        assertEquals(CatchUpTracker.Phase.CATCHING_UP, testSubject.getPhase());
+
+        now.addAndGet(1000);
+        testSubject.received(950);
+        assertEquals(2, headRequests.get());
+        assertEquals(CatchUpTracker.Phase.LIVE, testSubject.getPhase());
+    }
+}
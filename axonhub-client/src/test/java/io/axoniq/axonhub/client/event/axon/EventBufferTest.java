@@ -30,8 +30,11 @@ import org.junit.Test;
 import org.mockito.stubbing.Answer;
 
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
 import static org.junit.Assert.*;
@@ -92,6 +95,155 @@ public class EventBufferTest {
         assertEquals(3, consumed.get());
     }
 
+    @Test
+    public void testBufferedBytesAreTracked() throws InterruptedException {
+        testSubject = new EventBuffer(stubUpcaster, serializer, 0, 1024 * 1024);
+        EventWithToken event = createEventData(1);
+        int size = event.getEvent().getSerializedSize();
+
+        testSubject.push(event);
+        testSubject.push(createEventData(2));
+        assertEquals(2, testSubject.getBufferedEvents());
+        assertEquals(2 * size, testSubject.getBufferedBytes());
+        assertEquals(size, testSubject.getAverageEventSize());
+
+        testSubject.nextAvailable();
+        assertEquals(size, testSubject.getBufferedBytes());
+
+        testSubject.close();
+        assertEquals(0, testSubject.getBufferedBytes());
+    }
+
+    @Test
+    public void testPermitsLimitedByByteBudget() {
+        EventWithToken event = createEventData(1);
+        int size = event.getEvent().getSerializedSize();
+        testSubject = new EventBuffer(stubUpcaster, serializer, 0, 10L * size);
+
+        // probe before the first event is received
+        assertEquals(100, testSubject.permitsWithinBudget(1000, 0));
+        assertEquals(0, testSubject.permitsWithinBudget(1000, 100));
+
+        testSubject.push(event);
+        assertEquals(9, testSubject.permitsWithinBudget(1000, 1));
+        assertEquals(6, testSubject.permitsWithinBudget(1000, 4));
+        assertEquals(0, testSubject.permitsWithinBudget(1000, 6));
+        assertEquals(2, testSubject.permitsWithinBudget(2, 1));
+    }
+
+    @Test
+    public void testNoPermitsWhileBufferExceedsByteBudget() throws InterruptedException {
+        EventWithToken event = createEventData(1);
+        int size = event.getEvent().getSerializedSize();
+        testSubject = new EventBuffer(stubUpcaster, serializer, 0, 100L * size);
+
+        for (int i = 0; i < 20; i++) {
+            testSubject.push(createEventData(i));
+            testSubject.nextAvailable();
+        }
+        EventWithToken largeEvent = event.toBuilder()
+                                         .setEvent(event.getEvent().toBuilder()
+                                                        .setPayload(event.getEvent().getPayload().toBuilder()
+                                                                         .setData(ByteString.copyFrom(new byte[120 * size]))))
+                                         .build();
+        testSubject.push(largeEvent);
+        assertTrue(testSubject.getBufferedBytes() > 100L * size);
+        assertTrue(testSubject.getAverageEventSize() < 10L * size);
+
+        assertEquals(0, testSubject.permitsWithinBudget(1000, 1));
+    }
+
+    @Test
+    public void testEventLargerThanByteBudgetDoesNotStallStream() throws InterruptedException {
+        EventWithToken event = createEventData(1);
+        int size = event.getEvent().getSerializedSize();
+        testSubject = new EventBuffer(stubUpcaster, serializer, 0, size / 2);
+
+        testSubject.push(event);
+        assertEquals(0, testSubject.permitsWithinBudget(1000, 1));
+
+        testSubject.nextAvailable();
+        assertEquals(1, testSubject.permitsWithinBudget(1000, 0));
+    }
+
+    @Test
+    public void testPermitsNotLimitedWithoutByteBudget() {
+        testSubject = new EventBuffer(stubUpcaster, serializer, 0);
+        testSubject.push(createEventData(1));
+
+        assertEquals(1000, testSubject.permitsWithinBudget(1000, 100000));
+    }
+
+    @Test
+    public void testParallelProcessingPreservesOrder() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        testSubject = new EventBuffer(stubUpcaster, serializer, 0, 0, executor, 10, UnaryOperator.identity());
+        AtomicInteger consumed = new AtomicInteger();
+        testSubject.registerConsumeListener(consumed::addAndGet);
+
+        for (int i = 0; i < 50; i++) {
+            testSubject.push(createEventData(i));
+        }
+        for (int i = 0; i < 50; i++) {
+            assertTrue(testSubject.hasNextAvailable(1, TimeUnit.SECONDS));
+            assertEquals(new GlobalSequenceTrackingToken(i), testSubject.nextAvailable().trackingToken());
+        }
+        assertFalse(testSubject.hasNextAvailable(10, TimeUnit.MILLISECONDS));
+        assertEquals(50, consumed.get());
+        assertEquals(0, testSubject.getBufferedBytes());
+        executor.shutdown();
+    }
+
+    @Test
+    public void testFilteredEventsAreHandedOutAsPlaceholders() throws InterruptedException {
+        AtomicInteger decoded = new AtomicInteger();
+        testSubject = new EventBuffer(stubUpcaster, serializer, 0, 0, null, 0, event -> {
+            decoded.incrementAndGet();
+            return event;
+        });
+        AtomicInteger consumed = new AtomicInteger();
+        testSubject.registerConsumeListener(consumed::addAndGet);
+        AtomicInteger filtered = new AtomicInteger();
+        testSubject.registerPayloadTypeFilter(payloadType -> filtered.incrementAndGet() == 2);
+
+        testSubject.push(createEventData(1));
+        testSubject.push(createEventData(2));
+        testSubject.push(createEventData(3));
+
+        TrackedEventMessage<?> first = testSubject.nextAvailable();
+        TrackedEventMessage<?> second = testSubject.nextAvailable();
+        TrackedEventMessage<?> third = testSubject.nextAvailable();
+        assertEquals(new GlobalSequenceTrackingToken(1), first.trackingToken());
+        assertTrue(first.getPayload() instanceof SkippedEvent);
+        assertEquals(new GlobalSequenceTrackingToken(2), second.trackingToken());
+        assertEquals("some object", second.getPayload());
+        assertEquals(new GlobalSequenceTrackingToken(3), third.trackingToken());
+        assertTrue(third.getPayload() instanceof SkippedEvent);
+        assertFalse(testSubject.hasNextAvailable(10, TimeUnit.MILLISECONDS));
+        assertEquals(3, consumed.get());
+        assertEquals(1, decoded.get());
+        assertEquals(0, testSubject.getBufferedEvents());
+    }
+
+    @Test
+    public void testPayloadDecryptedOnFirstAccess() throws InterruptedException {
+        AtomicInteger decrypted = new AtomicInteger();
+        testSubject = new EventBuffer(stubUpcaster, serializer, 0, 0, null, 0, event -> {
+            decrypted.incrementAndGet();
+            return event;
+        });
+
+        testSubject.push(createEventData(1));
+        TrackedEventMessage<?> message = testSubject.nextAvailable();
+
+        assertEquals(new GlobalSequenceTrackingToken(1), message.trackingToken());
+        assertNotNull(message.getMetaData());
+        assertEquals(0, decrypted.get());
+        assertEquals("some object", message.getPayload());
+        message.getPayload();
+        assertEquals(1, decrypted.get());
+    }
+
     private EventWithToken createEventData(long sequence) {
         return EventWithToken.newBuilder()
                              .setToken(sequence)
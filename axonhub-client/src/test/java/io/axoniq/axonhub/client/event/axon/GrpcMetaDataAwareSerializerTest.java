@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event.axon;
+
+import com.google.protobuf.ByteString;
+import com.thoughtworks.xstream.XStream;
+import io.axoniq.axondb.Event;
+import io.axoniq.platform.SerializedObject;
+import org.axonframework.serialization.AnnotationRevisionResolver;
+import org.axonframework.serialization.ChainingConverter;
+import org.axonframework.serialization.Converter;
+import org.axonframework.serialization.xml.XStreamSerializer;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class GrpcMetaDataAwareSerializerTest {
+
+    private final XStreamSerializer xStreamSerializer = new XStreamSerializer();
+
+    @Test
+    public void testPayloadProvidedAsByteString() {
+        ByteStringDomainEventData eventData = new ByteStringDomainEventData(event("payload"));
+
+        assertEquals(ByteString.class, eventData.getPayload().getContentType());
+        assertTrue(xStreamSerializer.getConverter().canConvert(ByteString.class, byte[].class));
+        assertEquals("payload", new GrpcMetaDataAwareSerializer(xStreamSerializer).deserialize(eventData.getPayload()));
+    }
+
+    @Test
+    public void testPublicEventDataProvidesPayloadAsByteArray() {
+        GrpcBackedDomainEventData eventData = new GrpcBackedDomainEventData(event("payload"));
+
+        assertEquals(byte[].class, eventData.getPayload().getContentType());
+        assertArrayEquals(xStreamSerializer.serialize("payload", byte[].class).getData(),
+                          eventData.getPayload().getData());
+        assertEquals("payload", new GrpcMetaDataAwareSerializer(xStreamSerializer).deserialize(eventData.getPayload()));
+    }
+
+    @Test
+    public void testFallbackToByteArrayWhenConverterDoesNotSupportByteString() {
+        ChainingConverter chainingConverter = new ChainingConverter();
+        Converter converter = new Converter() {
+            @Override
+            public boolean canConvert(Class<?> sourceType, Class<?> targetType) {
+                return !ByteString.class.equals(sourceType) && chainingConverter.canConvert(sourceType, targetType);
+            }
+
+            @Override
+            public <T> T convert(Object original, Class<?> sourceType, Class<T> targetType) {
+                assertNotEquals(ByteString.class, sourceType);
+                return chainingConverter.convert(original, sourceType, targetType);
+            }
+        };
+        XStreamSerializer serializer = new XStreamSerializer(StandardCharsets.UTF_8, new XStream(),
+                                                             new AnnotationRevisionResolver(), converter);
+        GrpcMetaDataAwareSerializer testSubject = new GrpcMetaDataAwareSerializer(serializer);
+        ByteStringDomainEventData eventData = new ByteStringDomainEventData(event("payload"));
+
+        assertTrue(testSubject.getConverter().canConvert(ByteString.class, byte[].class));
+        assertArrayEquals(xStreamSerializer.serialize("payload", byte[].class).getData(),
+                          testSubject.getConverter().convert(eventData.getPayload().getData(), ByteString.class, byte[].class));
+        assertEquals("payload", testSubject.deserialize(eventData.getPayload()));
+    }
+
+    private Event event(String payload) {
+        org.axonframework.serialization.SerializedObject<byte[]> serialized = xStreamSerializer.serialize(payload, byte[].class);
+        return Event.newBuilder()
+                    .setPayload(SerializedObject.newBuilder()
+                                                .setType(serialized.getType().getName())
+                                                .setData(ByteString.copyFrom(serialized.getData())))
+                    .build();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event.axon;
+
+import org.axonframework.eventhandling.EventHandler;
+import org.axonframework.serialization.xml.XStreamSerializer;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PayloadTypeFilterTest {
+
+    @Test
+    public void testForTypesAcceptsSubtypes() {
+        PayloadTypeFilter testSubject = PayloadTypeFilter.forTypes(Number.class);
+
+        assertTrue(testSubject.test(Integer.class.getName()));
+        assertTrue(testSubject.test(Number.class.getName()));
+        assertFalse(testSubject.test(String.class.getName()));
+        assertFalse(testSubject.test("com.example.UnknownEvent"));
+    }
+
+    @Test
+    public void testForTypesResolvesAliasesUsingSerializer() {
+        XStreamSerializer serializer = new XStreamSerializer();
+        PayloadTypeFilter testSubject = PayloadTypeFilter.forTypes(serializer, CharSequence.class);
+
+        assertTrue(testSubject.test(serializer.typeForClass(String.class).getName()));
+        assertFalse(testSubject.test(serializer.typeForClass(Integer.class).getName()));
+        assertFalse(testSubject.test("com.example.UnknownEvent"));
+    }
+
+    @Test
+    public void testForEventHandlersAcceptsHandledTypes() {
+        PayloadTypeFilter testSubject = PayloadTypeFilter.forEventHandlers(new StringEventHandler());
+
+        assertTrue(testSubject.test(String.class.getName()));
+        assertFalse(testSubject.test(Integer.class.getName()));
+    }
+
+    private static class StringEventHandler {
+
+        @EventHandler
+        public void on(String event) {
+        }
+    }
+}
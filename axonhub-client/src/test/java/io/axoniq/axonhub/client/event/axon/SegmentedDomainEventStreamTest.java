@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event.axon;
+
+import org.axonframework.eventsourcing.DomainEventMessage;
+import org.axonframework.eventsourcing.GenericDomainEventMessage;
+import org.axonframework.eventsourcing.eventstore.DomainEventData;
+import org.axonframework.eventsourcing.eventstore.DomainEventStream;
+import org.axonframework.eventsourcing.eventstore.GenericDomainEventEntry;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SegmentedDomainEventStreamTest {
+
+    private final List<String> segments = new ArrayList<>();
+
+    @Test
+    public void testSnapshotAndEventsDeserializedAsSeparateSegments() {
+        DomainEventStream testSubject = testSubject(Stream.of(entry("Snapshot", 5), entry("Event", 6),
+                                                              entry("Event", 7), entry("Event", 8)));
+
+        List<Long> sequenceNumbers = new ArrayList<>();
+        testSubject.forEachRemaining(event -> sequenceNumbers.add(event.getSequenceNumber()));
+
+        assertEquals(4, sequenceNumbers.size());
+        assertEquals(Long.valueOf(8), testSubject.getLastSequenceNumber());
+        assertEquals(2, segments.size());
+        assertEquals("snapshots: 5", segments.get(0));
+        assertEquals("events: 6, 7, 8", segments.get(1));
+    }
+
+    @Test
+    public void testSegmentsAreStartedLazily() {
+        DomainEventStream testSubject = testSubject(Stream.of(entry("Snapshot", 5), entry("Event", 6)));
+
+        assertEquals(5, testSubject.next().getSequenceNumber());
+        assertEquals(1, segments.size());
+        assertEquals(6, testSubject.peek().getSequenceNumber());
+        assertEquals(2, segments.size());
+    }
+
+    @Test
+    public void testEmptySource() {
+        DomainEventStream testSubject = testSubject(Stream.empty());
+
+        assertFalse(testSubject.hasNext());
+        assertEquals(null, testSubject.getLastSequenceNumber());
+        assertEquals(0, segments.size());
+    }
+
+    @Test
+    public void testSourceClosedWhenExhausted() {
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<DomainEventData<?>> source = Stream.<DomainEventData<?>>of(entry("Event", 0), entry("Event", 1))
+                                                  .onClose(() -> closed.set(true));
+        DomainEventStream testSubject = new SegmentedDomainEventStream(source, data -> false, (segment, snapshots) ->
+                DomainEventStream.of(segment.map(SegmentedDomainEventStreamTest::message)));
+
+        assertEquals(0, testSubject.next().getSequenceNumber());
+        assertFalse(closed.get());
+        testSubject.forEachRemaining(event -> {
+        });
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void testSourceClosedWhenDeserializationFails() {
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<DomainEventData<?>> source = Stream.<DomainEventData<?>>of(entry("Event", 0), entry("Event", 1))
+                                                  .onClose(() -> closed.set(true));
+        DomainEventStream testSubject = new SegmentedDomainEventStream(source, data -> false, (segment, snapshots) -> {
+            throw new IllegalStateException("Mock deserialization failure");
+        });
+
+        try {
+            testSubject.hasNext();
+            fail("Expected deserialization failure");
+        } catch (IllegalStateException e) {
+            assertTrue(closed.get());
+        }
+    }
+
+    private DomainEventStream testSubject(Stream<? extends DomainEventData<?>> source) {
+        return new SegmentedDomainEventStream(source, data -> "Snapshot".equals(data.getType()), (segment, snapshots) -> {
+            List<DomainEventData<?>> entries = segment.collect(Collectors.toList());
+            segments.add((snapshots ? "snapshots: " : "events: ")
+                                 + entries.stream().map(e -> String.valueOf(e.getSequenceNumber()))
+                                          .collect(Collectors.joining(", ")));
+            return DomainEventStream.of(entries.stream().map(SegmentedDomainEventStreamTest::message));
+        });
+    }
+
+    private static DomainEventMessage<?> message(DomainEventData<?> data) {
+        return new GenericDomainEventMessage<>(data.getType(), data.getAggregateIdentifier(), data.getSequenceNumber(),
+                                               "payload");
+    }
+
+    private static DomainEventData<?> entry(String type, long sequenceNumber) {
+        return new GenericDomainEventEntry<>(type, "Agg1", sequenceNumber, "event-" + sequenceNumber, Instant.now(),
+                                             "java.lang.String", null, "payload", "meta-data");
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.axoniq.axonhub.client.event.axon;
+
+import org.axonframework.eventhandling.GenericEventMessage;
+import org.axonframework.eventhandling.GenericTrackedEventMessage;
+import org.axonframework.eventhandling.TrackedEventMessage;
+import org.axonframework.eventsourcing.eventstore.GlobalSequenceTrackingToken;
+import org.axonframework.eventsourcing.eventstore.TrackingEventStream;
+import org.axonframework.eventsourcing.eventstore.TrackingToken;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class SharedEventStreamSourceTest {
+
+    private List<TrackedEventMessage<?>> events;
+    private List<TrackingToken> openedAt;
+    private List<InMemoryStream> opened;
+    private SharedEventStreamSource testSubject;
+
+    @Before
+    public void setUp() {
+        events = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            events.add(new GenericTrackedEventMessage<>(new GlobalSequenceTrackingToken(i),
+                                                        GenericEventMessage.asEventMessage("Event" + i)));
+        }
+        openedAt = new ArrayList<>();
+        opened = new ArrayList<>();
+        testSubject = new SharedEventStreamSource(token -> {
+            openedAt.add(token);
+            InMemoryStream stream = new InMemoryStream(token == null ? 0
+                    : (int) ((GlobalSequenceTrackingToken) token).getGlobalIndex() + 1);
+            opened.add(stream);
+            return stream;
+        }, 4);
+    }
+
+    @Test
+    public void testStreamsWithSameTokenShareUpstream() throws Exception {
+        TrackingEventStream first = testSubject.openStream(null);
+        TrackingEventStream second = testSubject.openStream(null);
+
+        assertEquals("Event0", first.nextAvailable().getPayload());
+        assertEquals("Event1", first.nextAvailable().getPayload());
+        assertEquals("Event0", second.nextAvailable().getPayload());
+        assertEquals("Event1", second.nextAvailable().getPayload());
+
+        assertEquals(1, openedAt.size());
+        assertEquals(2, testSubject.getSharedStreams());
+        assertSame(first.peek().get(), second.peek().get());
+    }
+
+    @Test
+    public void testStreamWithTokenInWindowAttachesToUpstream() throws Exception {
+        TrackingEventStream first = testSubject.openStream(null);
+        first.nextAvailable();
+        first.nextAvailable();
+        first.nextAvailable();
+
+        TrackingEventStream second = testSubject.openStream(new GlobalSequenceTrackingToken(1));
+
+        assertEquals("Event2", second.nextAvailable().getPayload());
+        assertEquals("Event3", second.nextAvailable().getPayload());
+        assertEquals(1, openedAt.size());
+    }
+
+    @Test
+    public void testStreamWithTokenOutsideWindowOpensDedicatedStream() throws Exception {
+        TrackingEventStream first = testSubject.openStream(null);
+        for (int i = 0; i < 8; i++) {
+            first.nextAvailable();
+        }
+
+        TrackingEventStream second = testSubject.openStream(new GlobalSequenceTrackingToken(1));
+
+        assertEquals("Event2", second.nextAvailable().getPayload());
+        assertEquals(2, openedAt.size());
+        assertEquals(1, testSubject.getSharedStreams());
+    }
+
+    @Test
+    public void testLaggingStreamSplitsOff() throws Exception {
+        TrackingEventStream leader = testSubject.openStream(null);
+        TrackingEventStream laggard = testSubject.openStream(null);
+        assertEquals("Event0", laggard.nextAvailable().getPayload());
+
+        for (int i = 0; i < 8; i++) {
+            leader.nextAvailable();
+        }
+        assertTrue(leader.hasNextAvailable(10, TimeUnit.MILLISECONDS));
+
+        assertEquals("Event1", laggard.nextAvailable().getPayload());
+        assertEquals(2, openedAt.size());
+        assertEquals(new GlobalSequenceTrackingToken(0), openedAt.get(1));
+        assertEquals(1, testSubject.getSharedStreams());
+        assertEquals("Event8", leader.nextAvailable().getPayload());
+    }
+
+    @Test
+    public void testUpstreamClosedWithLastStream() {
+        TrackingEventStream first = testSubject.openStream(null);
+        TrackingEventStream second = testSubject.openStream(null);
+
+        first.close();
+        assertFalse(opened.get(0).closed);
+        second.close();
+        assertTrue(opened.get(0).closed);
+        assertEquals(0, testSubject.getSharedStreams());
+
+        testSubject.openStream(null);
+        assertEquals(2, openedAt.size());
+    }
+
+    @Test
+    public void testUpstreamFailureReportedToAllStreams() throws Exception {
+        TrackingEventStream first = testSubject.openStream(null);
+        TrackingEventStream second = testSubject.openStream(null);
+        opened.get(0).failure = new IllegalStateException("Connection lost");
+
+        try {
+            first.hasNextAvailable(10, TimeUnit.MILLISECONDS);
+            fail("Expected failure of upstream");
+        } catch (IllegalStateException e) {
+            assertEquals("Connection lost", e.getMessage());
+        }
+        try {
+            second.hasNextAvailable(10, TimeUnit.MILLISECONDS);
+            fail("Expected failure of upstream");
+        } catch (IllegalStateException e) {
+            assertEquals("Connection lost", e.getMessage());
+        }
+
+        testSubject.openStream(null);
+        assertEquals(2, openedAt.size());
+    }
+
+    @Test
+    public void testStreamOneWindowBehindNeverSkipsEvents() throws Exception {
+        events = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            events.add(new GenericTrackedEventMessage<>(new GlobalSequenceTrackingToken(i),
+                                                        GenericEventMessage.asEventMessage("Event" + i)));
+        }
+        for (int trial = 0; trial < 2000; trial++) {
+            SharedEventStreamSource source = new SharedEventStreamSource(
+                    token -> new InMemoryStream(token == null ? 0
+                            : (int) ((GlobalSequenceTrackingToken) token).getGlobalIndex() + 1), 4);
+            TrackingEventStream leader = source.openStream(null);
+            TrackingEventStream laggard = source.openStream(null);
+            AtomicLong laggardRead = new AtomicLong();
+            Thread leaderThread = new Thread(() -> {
+                try {
+                    for (int position = 0; position < events.size(); position++) {
+                        // reads the event that replaces the slot the laggard is about to read
+                        while (laggardRead.get() < position - 4) {
+                            Thread.yield();
+                        }
+                        leader.nextAvailable();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            leaderThread.start();
+            for (int i = 0; i < events.size(); i++) {
+                TrackedEventMessage<?> message = laggard.nextAvailable();
+                assertEquals(new GlobalSequenceTrackingToken(i), message.trackingToken());
+                laggardRead.set(i + 1);
+            }
+            leaderThread.join();
+        }
+    }
+
+    private class InMemoryStream implements TrackingEventStream {
+
+        private int next;
+        private boolean closed;
+        private RuntimeException failure;
+
+        private InMemoryStream(int next) {
+            this.next = next;
+        }
+
+        @Override
+        public Optional<TrackedEventMessage<?>> peek() {
+            return next < events.size() ? Optional.of(events.get(next)) : Optional.empty();
+        }
+
+        @Override
+        public boolean hasNextAvailable(int timeout, TimeUnit unit) {
+            if (failure != null) {
+                throw failure;
+            }
+            return next < events.size();
+        }
+
+        @Override
+        public TrackedEventMessage<?> nextAvailable() {
+            return events.get(next++);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event.axon;
+
+import org.axonframework.eventsourcing.GenericDomainEventMessage;
+import org.axonframework.eventsourcing.eventstore.DomainEventStream;
+import org.axonframework.eventsourcing.eventstore.EventUtils;
+import org.axonframework.eventsourcing.eventstore.GenericDomainEventEntry;
+import org.axonframework.serialization.SimpleSerializedType;
+import org.axonframework.serialization.upcasting.event.IntermediateEventRepresentation;
+import org.axonframework.serialization.upcasting.event.SingleEventUpcaster;
+import org.axonframework.serialization.xml.XStreamSerializer;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+
+public class ShortCircuitEventUpcasterTest {
+
+    private final XStreamSerializer serializer = new XStreamSerializer();
+    private final AtomicInteger canUpcastCalls = new AtomicInteger();
+
+    private final SingleEventUpcaster revisionUpcaster = new SingleEventUpcaster() {
+        @Override
+        protected boolean canUpcast(IntermediateEventRepresentation intermediateRepresentation) {
+            canUpcastCalls.incrementAndGet();
+            return "0".equals(intermediateRepresentation.getType().getRevision());
+        }
+
+        @Override
+        protected IntermediateEventRepresentation doUpcast(IntermediateEventRepresentation intermediateRepresentation) {
+            return intermediateRepresentation.upcastPayload(new SimpleSerializedType("java.lang.String", "1"),
+                                                            byte[].class, data -> data);
+        }
+    };
+
+    private final ShortCircuitEventUpcaster testSubject = new ShortCircuitEventUpcaster(revisionUpcaster);
+
+    @Test
+    public void testChainSkippedForTypesItLeavesUnchanged() {
+        assertEquals(3, upcast(entry(1, null), entry(2, null), entry(3, null)).asStream().count());
+
+        assertEquals(1, canUpcastCalls.get());
+        assertEquals(1, testSubject.getNoOpTypeCount());
+    }
+
+    @Test
+    public void testChainAppliedForTypesItChanges() {
+        DomainEventStream events = upcast(entry(1, "0"), entry(2, "0"), entry(3, null));
+
+        assertEquals("payload", events.next().getPayload());
+        assertEquals("payload", events.next().getPayload());
+        assertEquals("payload", events.next().getPayload());
+        assertEquals(3, canUpcastCalls.get());
+        assertEquals(1, testSubject.getNoOpTypeCount());
+    }
+
+    private DomainEventStream upcast(GenericDomainEventEntry<?>... entries) {
+        return EventUtils.upcastAndDeserializeDomainEvents(Stream.of(entries), serializer, testSubject, false);
+    }
+
+    private GenericDomainEventEntry<?> entry(long sequenceNumber, String revision) {
+        byte[] payload = serializer.serialize("payload", byte[].class).getData();
+        byte[] metaData = serializer.serialize(new GenericDomainEventMessage<>("Test", "Agg1", sequenceNumber, "payload")
+                                                       .getMetaData(), byte[].class).getData();
+        return new GenericDomainEventEntry<>("Test", "Agg1", sequenceNumber, "event-" + sequenceNumber,
+                                             Instant.now(), "java.lang.String", revision, payload, metaData);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event.axon;
+
+import com.google.protobuf.ByteString;
+import io.axoniq.axondb.Event;
+import io.axoniq.axondb.grpc.EventWithToken;
+import io.axoniq.platform.SerializedObject;
+import org.axonframework.serialization.SimpleSerializedType;
+import org.axonframework.serialization.upcasting.event.EventUpcaster;
+import org.axonframework.serialization.upcasting.event.EventUpcasterChain;
+import org.axonframework.serialization.upcasting.event.IntermediateEventRepresentation;
+import org.axonframework.serialization.upcasting.event.SingleEventUpcaster;
+import org.axonframework.serialization.xml.XStreamSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Measures the number of events per second read from an {@link EventBuffer} with a chain of 20 upcasters, none of
+ * which applies to the events read, with and without the {@link ShortCircuitEventUpcaster}. Each upcaster checks the
+ * payload type and revision, as typical single event upcasters do. Only the meta data of the events is accessed, so
+ * the measurement is not dominated by payload deserialization. Not run as part of the test suite; start the main
+ * method to run it.
+ */
+public class UpcasterBenchmark {
+
+    private static final int UPCASTERS = 20;
+    private static final int EVENTS = 200_000;
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws InterruptedException {
+        XStreamSerializer serializer = new XStreamSerializer();
+        List<EventWithToken> events = events(serializer);
+        EventUpcaster chain = chain();
+        for (int i = 0; i < RUNS; i++) {
+            run("upcaster chain", chain, serializer, events);
+            run("short-circuit", new ShortCircuitEventUpcaster(chain), serializer, events);
+        }
+    }
+
+    private static void run(String name, EventUpcaster upcaster, XStreamSerializer serializer,
+                            List<EventWithToken> events) throws InterruptedException {
+        EventBuffer buffer = new EventBuffer(upcaster, serializer, 0);
+        long start = System.nanoTime();
+        for (EventWithToken event : events) {
+            buffer.push(event);
+            buffer.nextAvailable().getMetaData();
+        }
+        long elapsed = System.nanoTime() - start;
+        buffer.close();
+        System.out.printf("%-16s %,12d events/s%n", name, EVENTS * 1_000_000_000L / elapsed);
+    }
+
+    private static EventUpcaster chain() {
+        List<EventUpcaster> upcasters = new ArrayList<>();
+        for (int i = 0; i < UPCASTERS; i++) {
+            String type = "com.example.events.Renamed" + i;
+            upcasters.add(new SingleEventUpcaster() {
+                @Override
+                protected boolean canUpcast(IntermediateEventRepresentation intermediateRepresentation) {
+                    return type.equals(intermediateRepresentation.getType().getName())
+                            && "1".equals(intermediateRepresentation.getType().getRevision());
+                }
+
+                @Override
+                protected IntermediateEventRepresentation doUpcast(
+                        IntermediateEventRepresentation intermediateRepresentation) {
+                    return intermediateRepresentation.upcastPayload(new SimpleSerializedType(type, "2"),
+                                                                    byte[].class, data -> data);
+                }
+            });
+        }
+        return new EventUpcasterChain(upcasters);
+    }
+
+    private static List<EventWithToken> events(XStreamSerializer serializer) {
+        byte[] payload = serializer.serialize("benchmark", byte[].class).getData();
+        List<EventWithToken> events = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            events.add(EventWithToken.newBuilder()
+                                     .setToken(i)
+                                     .setEvent(Event.newBuilder()
+                                                    .setPayload(SerializedObject.newBuilder()
+                                                                                .setData(ByteString.copyFrom(payload))
+                                                                                .setType("java.lang.String"))
+                                                    .setMessageIdentifier(UUID.randomUUID().toString())
+                                                    .setAggregateType("Benchmark")
+                                                    .setAggregateSequenceNumber(i)
+                                                    .setTimestamp(System.currentTimeMillis())
+                                                    .setAggregateIdentifier("Agg1"))
+                                     .build());
+        }
+        return events;
+    }
+}
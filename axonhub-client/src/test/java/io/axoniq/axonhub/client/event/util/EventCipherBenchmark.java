@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event.util;
+
+import com.google.protobuf.ByteString;
+import io.axoniq.axondb.Event;
+import io.axoniq.platform.SerializedObject;
+
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compares the time to encrypt and decrypt an event for the original CBC code path, the CBC format through the
+ * ByteString based path and the GCM format, for payloads of 1 KB, 10 KB and 100 KB. Not run as part of the test suite;
+ * start the main method to run it.
+ */
+public class EventCipherBenchmark {
+
+    private static final int[] PAYLOAD_SIZES = {1024, 10 * 1024, 100 * 1024};
+    private static final long DURATION_MILLIS = 2000;
+
+    public static void main(String[] args) {
+        byte[] key = new byte[16];
+        ThreadLocalRandom.current().nextBytes(key);
+        LegacyEventCipher legacy = new LegacyEventCipher(key);
+        EventCipher cbc = new EventCipher(key);
+        EventCipher gcm = new EventCipher(event -> 0, Collections.singletonList(key), EventCipher.Mode.GCM);
+
+        for (int payloadSize : PAYLOAD_SIZES) {
+            byte[] payload = new byte[payloadSize];
+            ThreadLocalRandom.current().nextBytes(payload);
+            Event event = Event.newBuilder()
+                               .setAggregateIdentifier("1234")
+                               .setPayload(SerializedObject.newBuilder().setData(ByteString.copyFrom(payload)))
+                               .build();
+            System.out.printf("payload %,d bytes%n", payloadSize);
+            run("warm-up", legacy::encrypt, legacy::decrypt, event);
+            run("cbc (original)", legacy::encrypt, legacy::decrypt, event);
+            run("warm-up", cbc::encrypt, cbc::decrypt, event);
+            run("cbc", cbc::encrypt, cbc::decrypt, event);
+            run("warm-up", gcm::encrypt, gcm::decrypt, event);
+            run("gcm", gcm::encrypt, gcm::decrypt, event);
+        }
+    }
+
+    private static void run(String name, EventTransformer encrypt, EventTransformer decrypt, Event event) {
+        Event encrypted = encrypt.apply(event);
+        long encryptNanos = measure(() -> encrypt.apply(event));
+        long decryptNanos = measure(() -> decrypt.apply(encrypted));
+        if (!name.startsWith("warm-up")) {
+            System.out.printf("  %-16s encrypt %,8d ns/op   decrypt %,8d ns/op%n", name, encryptNanos, decryptNanos);
+        }
+    }
+
+    private static long measure(Runnable operation) {
+        long operations = 0;
+        long start = System.nanoTime();
+        long end = start + DURATION_MILLIS * 1_000_000;
+        long now;
+        do {
+            for (int i = 0; i < 100; i++) {
+                operation.run();
+            }
+            operations += 100;
+            now = System.nanoTime();
+        } while (now < end);
+        return (now - start) / operations;
+    }
+
+    @FunctionalInterface
+    private interface EventTransformer {
+
+        Event apply(Event event);
+    }
+
+    /**
+     * The original encrypt and decrypt path: copies payloads into byte arrays and back.
+     */
+    private static class LegacyEventCipher extends EventCipher {
+
+        private LegacyEventCipher(byte[] secretKey) {
+            super(secretKey);
+        }
+
+        @Override
+        public Event encrypt(Event clearEvent) {
+            return Event.newBuilder(clearEvent)
+                        .setPayload(SerializedObject.newBuilder(clearEvent.getPayload())
+                                                    .setData(ByteString.copyFrom(encryptBytes(0, clearEvent.getPayload().getData().toByteArray())))
+                                                    .build())
+                        .build();
+        }
+
+        @Override
+        public Event decrypt(Event cryptoEvent) {
+            return Event.newBuilder(cryptoEvent)
+                        .setPayload(SerializedObject.newBuilder(cryptoEvent.getPayload())
+                                                    .setData(ByteString.copyFrom(decryptBytes(0, cryptoEvent.getPayload().getData().toByteArray())))
+                                                    .build())
+                        .build();
+        }
+    }
+}
@@ -22,6 +22,7 @@ import org.junit.Test;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.concurrent.ThreadLocalRandom;
 
 import static org.junit.Assert.*;
@@ -99,6 +100,110 @@ public class EventCipherTests {
         assertNotEquals(cryptoEvent1, cryptoEvent2);
     }
 
+    @Test
+    public void gcmRoundTrip() {
+        EventCipher eventCipher = new EventCipher(event -> 0, Collections.singletonList(getRandomKeyBytes(16)),
+                                                  EventCipher.Mode.GCM);
+        Event clearEvent = createEvent(ByteString.copyFromUtf8("Hello World! AxonIQ Rulez!"));
+
+        Event cryptoEvent = eventCipher.encrypt(clearEvent);
+        assertNotEquals(clearEvent.getPayload().getData(), cryptoEvent.getPayload().getData());
+        assertEquals("AxG1", cryptoEvent.getPayload().getData().substring(0, 4).toStringUtf8());
+
+        assertEquals(clearEvent, eventCipher.decrypt(cryptoEvent));
+    }
+
+    @Test
+    public void gcmCipherRejectsCbcEncryptedEvents() {
+        byte[] key = getRandomKeyBytes(16);
+        EventCipher cbcCipher = new EventCipher(key);
+        EventCipher gcmCipher = new EventCipher(event -> 0, Collections.singletonList(key), EventCipher.Mode.GCM);
+        Event clearEvent = createEvent(ByteString.copyFromUtf8("Hello World! AxonIQ Rulez!"));
+
+        try {
+            gcmCipher.decrypt(cbcCipher.encrypt(clearEvent));
+            fail("Expected CBC payload to be rejected");
+        } catch (EventStoreClientException e) {
+            assertEquals("AXONIQ-8002", e.getCode());
+        }
+        assertEquals(clearEvent, cbcCipher.decrypt(gcmCipher.encrypt(clearEvent)));
+    }
+
+    @Test
+    public void gcmCipherReadsCbcEncryptedEventsWhenMigrating() {
+        byte[] key = getRandomKeyBytes(16);
+        EventCipher cbcCipher = new EventCipher(key);
+        EventCipher gcmCipher = new EventCipher(event -> 0, Collections.singletonList(key), EventCipher.Mode.GCM,
+                                                true);
+        Event clearEvent = createEvent(ByteString.copyFromUtf8("Hello World! AxonIQ Rulez!"));
+
+        assertEquals(clearEvent, gcmCipher.decrypt(cbcCipher.encrypt(clearEvent)));
+        assertEquals(clearEvent, gcmCipher.decrypt(gcmCipher.encrypt(clearEvent)));
+    }
+
+    @Test
+    public void gcmPayloadsAreNeverBlockAligned() {
+        EventCipher eventCipher = new EventCipher(event -> 0, Collections.singletonList(getRandomKeyBytes(16)),
+                                                  EventCipher.Mode.GCM);
+        for (int size = 0; size < 64; size++) {
+            Event clearEvent = createEvent(ByteString.copyFrom(getRandomKeyBytes(size)));
+
+            Event cryptoEvent = eventCipher.encrypt(clearEvent);
+
+            assertNotEquals(0, cryptoEvent.getPayload().getData().size() % 16);
+            assertEquals(clearEvent, eventCipher.decrypt(cryptoEvent));
+        }
+    }
+
+    @Test
+    public void cbcCipherUsesOriginalFormat() {
+        byte[] key = getRandomKeyBytes(16);
+        EventCipher eventCipher = new EventCipher(key);
+        byte[] clearPayload = "Hello World! AxonIQ Rulez!".getBytes(StandardCharsets.UTF_8);
+
+        Event cryptoEvent = eventCipher.encrypt(createEvent(ByteString.copyFrom(clearPayload)));
+
+        assertArrayEquals(clearPayload, eventCipher.decryptBytes(0, cryptoEvent.getPayload().getData().toByteArray()));
+        Event legacyEvent = createEvent(ByteString.copyFrom(eventCipher.encryptBytes(0, clearPayload)));
+        assertEquals(ByteString.copyFrom(clearPayload), eventCipher.decrypt(legacyEvent).getPayload().getData());
+    }
+
+    @Test
+    public void gcmDetectsTampering() {
+        byte[] key = getRandomKeyBytes(16);
+        EventCipher eventCipher = new EventCipher(event -> 0, Collections.singletonList(key), EventCipher.Mode.GCM);
+        byte[] cryptoBytes = eventCipher.encrypt(createEvent(ByteString.copyFromUtf8("Hello World! AxonIQ Rulez!")))
+                                        .getPayload().getData().toByteArray();
+        cryptoBytes[cryptoBytes.length - 1] ^= 1;
+
+        for (EventCipher cipher : Arrays.asList(eventCipher, new EventCipher(key))) {
+            try {
+                cipher.decrypt(createEvent(ByteString.copyFrom(cryptoBytes)));
+                fail("Expected tampered payload to be rejected");
+            } catch (EventStoreClientException e) {
+                assertEquals("AXONIQ-8002", e.getCode());
+            }
+        }
+    }
+
+    @Test
+    public void gcmHandlesEmptyAndLargePayloads() {
+        EventCipher eventCipher = new EventCipher(event -> 0, Collections.singletonList(getRandomKeyBytes(24)),
+                                                  EventCipher.Mode.GCM);
+        Event emptyEvent = createEvent(ByteString.EMPTY);
+        Event largeEvent = createEvent(ByteString.copyFrom(getRandomKeyBytes(100 * 1024)));
+
+        assertEquals(emptyEvent, eventCipher.decrypt(eventCipher.encrypt(emptyEvent)));
+        assertEquals(largeEvent, eventCipher.decrypt(eventCipher.encrypt(largeEvent)));
+    }
+
+    private Event createEvent(ByteString payload) {
+        return Event.newBuilder()
+                    .setAggregateIdentifier("1234")
+                    .setPayload(SerializedObject.newBuilder().setData(payload))
+                    .build();
+    }
+
     private String getRandomKeyString(int length) {
         byte[] bytes = new byte[length];
         for(int i = 0; i < length; i++) {
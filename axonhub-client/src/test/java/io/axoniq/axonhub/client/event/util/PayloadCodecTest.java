@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.event.util;
+
+import com.google.protobuf.ByteString;
+import io.axoniq.axondb.Event;
+import io.axoniq.platform.SerializedObject;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.*;
+
+public class PayloadCodecTest {
+
+    private static final String TYPE = "com.example.OrderPlaced";
+
+    @Test
+    public void testDeflateRoundTrip() {
+        DeflatePayloadCodec testSubject = new DeflatePayloadCodec();
+        Event event = event(json(20));
+
+        Event encoded = testSubject.encode(event);
+
+        assertTrue(encoded.getPayload().getData().size() < event.getPayload().getData().size());
+        assertEquals(TYPE, encoded.getPayload().getType());
+        assertEquals(event, testSubject.decode(encoded));
+    }
+
+    @Test
+    public void testSmallPayloadStoredUncompressed() {
+        DeflatePayloadCodec testSubject = new DeflatePayloadCodec();
+        Event event = event("{\"id\":1}");
+
+        Event encoded = testSubject.encode(event);
+
+        assertEquals(ByteString.copyFromUtf8("AxZ0{\"id\":1}"), encoded.getPayload().getData());
+        assertEquals(event, testSubject.decode(encoded));
+    }
+
+    @Test
+    public void testPayloadsNoLargerThanHeaderStoredUncompressedWithoutMinimumSize() {
+        DeflatePayloadCodec testSubject = new DeflatePayloadCodec(Deflater.DEFAULT_COMPRESSION, 0,
+                                                                  Collections.emptyMap());
+        for (int size = 0; size <= 8; size++) {
+            Event event = event(ByteString.copyFrom(new byte[size]));
+
+            Event encoded = testSubject.encode(event);
+
+            assertEquals(ByteString.copyFromUtf8("AxZ0").concat(ByteString.copyFrom(new byte[size])),
+                         encoded.getPayload().getData());
+            assertEquals(event, testSubject.decode(encoded));
+        }
+    }
+
+    @Test
+    public void testPayloadStartingWithMagicNumberRoundTrips() {
+        DeflatePayloadCodec testSubject = new DeflatePayloadCodec();
+        Event event = event("AxZ1" + "\u0000\u0000\u0000\u0003abc");
+
+        assertEquals(event, testSubject.decode(testSubject.encode(event)));
+    }
+
+    @Test
+    public void testExcessiveUncompressedLengthRejected() {
+        DeflatePayloadCodec testSubject = new DeflatePayloadCodec(Deflater.DEFAULT_COMPRESSION, 0, 1024,
+                                                                  Collections.emptyMap());
+        Event encoded = testSubject.encode(event(json(20)));
+        byte[] data = encoded.getPayload().getData().toByteArray();
+        data[4] = 0x7F;
+
+        try {
+            testSubject.decode(event(ByteString.copyFrom(data)));
+            fail("Expected decoding of oversized payload to fail");
+        } catch (EventStoreClientException e) {
+            assertEquals("AXONIQ-8003", e.getCode());
+        }
+    }
+
+    @Test
+    public void testIncompressiblePayloadStoredUncompressed() {
+        DeflatePayloadCodec testSubject = new DeflatePayloadCodec(Deflater.DEFAULT_COMPRESSION, 0,
+                                                                  Collections.emptyMap());
+        byte[] random = new byte[1024];
+        new Random(42).nextBytes(random);
+        Event event = event(ByteString.copyFrom(random));
+
+        Event encoded = testSubject.encode(event);
+
+        assertEquals(random.length + 4, encoded.getPayload().getData().size());
+        assertEquals(event, testSubject.decode(encoded));
+    }
+
+    @Test
+    public void testUncompressedDataDecodedUnchanged() {
+        DeflatePayloadCodec testSubject = new DeflatePayloadCodec();
+        Event event = event(json(20));
+
+        assertSame(event, testSubject.decode(event));
+    }
+
+    @Test
+    public void testDictionaryImprovesCompressionOfSmallPayloads() {
+        Map<String, byte[]> dictionaries = Collections.singletonMap(TYPE, json(1).getBytes());
+        DeflatePayloadCodec plain = new DeflatePayloadCodec(Deflater.DEFAULT_COMPRESSION, 0, Collections.emptyMap());
+        DeflatePayloadCodec withDictionary = new DeflatePayloadCodec(Deflater.DEFAULT_COMPRESSION, 0, dictionaries);
+        Event event = event(json(1).replace("ORD-0", "ORD-7"));
+
+        Event encoded = withDictionary.encode(event);
+
+        assertTrue(encoded.getPayload().getData().size() < plain.encode(event).getPayload().getData().size());
+        assertEquals(event, withDictionary.decode(encoded));
+    }
+
+    @Test
+    public void testMissingDictionaryReported() {
+        Map<String, byte[]> dictionaries = Collections.singletonMap(TYPE, json(1).getBytes());
+        Event encoded = new DeflatePayloadCodec(Deflater.DEFAULT_COMPRESSION, 0, dictionaries)
+                .encode(event(json(1)));
+
+        try {
+            new DeflatePayloadCodec().decode(encoded);
+            fail("Expected decoding without dictionary to fail");
+        } catch (EventStoreClientException e) {
+            assertEquals("AXONIQ-8003", e.getCode());
+        }
+    }
+
+    @Test
+    public void testCorruptPayloadReported() {
+        DeflatePayloadCodec testSubject = new DeflatePayloadCodec();
+        Event encoded = testSubject.encode(event(json(20)));
+        ByteString data = encoded.getPayload().getData();
+        Event truncated = event(data.substring(0, data.size() / 2));
+
+        try {
+            testSubject.decode(truncated);
+            fail("Expected decoding of truncated payload to fail");
+        } catch (EventStoreClientException e) {
+            assertEquals("AXONIQ-8003", e.getCode());
+        }
+    }
+
+    @Test
+    public void testChainCompressesBeforeEncrypting() {
+        EventCipher cipher = new EventCipher("0123456789abcdef".getBytes());
+        PayloadCodecChain testSubject = new PayloadCodecChain(new DeflatePayloadCodec(), cipher);
+        Event event = event(json(20));
+
+        Event encoded = testSubject.encode(event);
+
+        assertTrue(encoded.getPayload().getData().size() < event.getPayload().getData().size());
+        Event compressed = cipher.decrypt(encoded);
+        assertEquals('A', compressed.getPayload().getData().byteAt(0));
+        assertEquals(event, testSubject.decode(encoded));
+    }
+
+    private static String json(int items) {
+        StringBuilder builder = new StringBuilder("{\"orderId\":\"ORD-0\",\"items\":[");
+        for (int i = 0; i < items; i++) {
+            builder.append(i == 0 ? "" : ",")
+                   .append("{\"productId\":\"PRODUCT-").append(i).append("\",\"quantity\":").append(i)
+                   .append(",\"price\":{\"amount\":").append(i * 10).append(",\"currency\":\"EUR\"}}");
+        }
+        return builder.append("]}").toString();
+    }
+
+    private static Event event(String data) {
+        return event(ByteString.copyFromUtf8(data));
+    }
+
+    private static Event event(ByteString data) {
+        return Event.newBuilder()
+                    .setAggregateIdentifier("1234")
+                    .setPayload(SerializedObject.newBuilder().setType(TYPE).setData(data))
+                    .build();
+    }
+}
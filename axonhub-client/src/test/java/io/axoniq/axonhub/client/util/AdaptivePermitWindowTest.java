@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+
+public class AdaptivePermitWindowTest {
+
+    private AtomicLong clock;
+    private AdaptivePermitWindow testSubject;
+
+    @Before
+    public void setUp() {
+        clock = new AtomicLong(1000);
+        testSubject = new AdaptivePermitWindow(10, 1000, clock::get);
+    }
+
+    @Test
+    public void testInitialWindowIsClamped() {
+        assertEquals(1000, testSubject.initialWindow(100000));
+        assertEquals(10, testSubject.initialWindow(1));
+    }
+
+    @Test
+    public void testWindowGrowsForFastConsumer() {
+        testSubject.initialWindow(100);
+        // first message consumed 10 time units after the initial request, the whole window right after that
+        clock.addAndGet(10);
+        testSubject.consumed();
+
+        long permits = testSubject.permitsToFill(0);
+
+        assertEquals(200, permits);
+        assertEquals(100, testSubject.refillThreshold());
+    }
+
+    @Test
+    public void testWindowShrinksForSlowConsumer() {
+        testSubject.initialWindow(100);
+        clock.addAndGet(10);
+        testSubject.consumed();
+        // half of the window consumed in 500 time units: 0.1 message per time unit, 1 message per round-trip
+        clock.addAndGet(490);
+
+        long permits = testSubject.permitsToFill(50);
+
+        assertEquals(0, permits);
+        assertEquals(10, testSubject.getWindow());
+    }
+
+    @Test
+    public void testRoundTripOnlySampledAfterStarvedGrant() {
+        testSubject.initialWindow(100);
+        clock.addAndGet(10);
+        testSubject.consumed();
+        // half of the window consumed in 10 time units: window stays at 100
+        testSubject.granted(50, testSubject.permitsToFill(50));
+        // not starved, so the delay until the next consumed message is not a round-trip sample
+        clock.addAndGet(1000);
+        testSubject.consumed();
+
+        // smoothed rate of 3.775 messages per time unit, round-trip still 10
+        assertEquals(76, testSubject.permitsToFill(0));
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.util;
+
+import io.axoniq.axonhub.grpc.CommandServiceGrpc;
+import io.grpc.Channel;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+public class ChannelStubTest {
+
+    private final AtomicReference<Channel> channel = new AtomicReference<>(mock(Channel.class));
+    private final AtomicInteger created = new AtomicInteger();
+    private final ChannelStub<CommandServiceGrpc.CommandServiceStub> testSubject =
+            new ChannelStub<>(channel::get, c -> {
+                created.incrementAndGet();
+                return CommandServiceGrpc.newStub(c);
+            });
+
+    @Test
+    public void testStubReusedForSameChannel() {
+        CommandServiceGrpc.CommandServiceStub stub = testSubject.get();
+
+        assertSame(stub, testSubject.get());
+        assertSame(channel.get(), stub.getChannel());
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    public void testNewStubCreatedWhenChannelChanges() {
+        CommandServiceGrpc.CommandServiceStub stub = testSubject.get();
+        channel.set(mock(Channel.class));
+
+        CommandServiceGrpc.CommandServiceStub reconnected = testSubject.get();
+
+        assertNotSame(stub, reconnected);
+        assertSame(channel.get(), reconnected.getChannel());
+        assertEquals(2, created.get());
+    }
+}
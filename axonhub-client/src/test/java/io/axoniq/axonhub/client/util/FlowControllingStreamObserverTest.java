@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.util;
+
+import io.axoniq.axonhub.client.AxonHubConfiguration;
+import io.axoniq.axonhub.grpc.FlowControl;
+import io.grpc.stub.StreamObserver;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FlowControllingStreamObserverTest {
+
+    private final List<Long> requestedPermits = new ArrayList<>();
+
+    @Test
+    public void testFixedPermitsGrantedWithoutAdaptiveFlowControl() {
+        FlowControllingStreamObserver<FlowControl> testSubject = testSubject(
+                AxonHubConfiguration.newBuilder("localhost:6123", "JUNIT").flowControl(8, 2, 4).build());
+
+        testSubject.sendInitialPermits();
+        testSubject.markConsumed(6);
+
+        assertEquals(8L, (long) requestedPermits.get(0));
+        assertEquals(2L, (long) requestedPermits.get(1));
+    }
+
+    @Test
+    public void testAdaptiveWindowGrowsWhenConsumerKeepsUp() throws InterruptedException {
+        FlowControllingStreamObserver<FlowControl> testSubject = testSubject(
+                AxonHubConfiguration.newBuilder("localhost:6123", "JUNIT")
+                                    .flowControl(8, 1, 1)
+                                    .adaptiveFlowControl(1, 64)
+                                    .build());
+
+        testSubject.sendInitialPermits();
+        // the first messages arrive after a round-trip, after which buffered messages are consumed immediately
+        Thread.sleep(20);
+        for (int i = 0; i < 8; i++) {
+            testSubject.markConsumed(1);
+        }
+
+        assertEquals(8L, (long) requestedPermits.get(0));
+        assertTrue("Expected the window to grow beyond the initial permits, but got " + requestedPermits,
+                   requestedPermits.stream().skip(1).anyMatch(permits -> permits > 8));
+    }
+
+    private FlowControllingStreamObserver<FlowControl> testSubject(AxonHubConfiguration configuration) {
+        return new FlowControllingStreamObserver<>(new StreamObserver<FlowControl>() {
+            @Override
+            public void onNext(FlowControl flowControl) {
+                requestedPermits.add(flowControl.getPermits());
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        }, configuration, flowControl -> flowControl, flowControl -> false);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.util;
+
+import io.axoniq.platform.MetaDataValue;
+import org.axonframework.messaging.MetaData;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.xml.XStreamSerializer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class GrpcMetaDataViewTest {
+
+    private final Instant instant = Instant.ofEpochMilli(1000);
+    private XStreamSerializer serializer;
+    private GrpcMetaDataConverter converter;
+    private Map<String, Object> values;
+    private MetaData testSubject;
+
+    @Before
+    public void setUp() {
+        serializer = spy(new XStreamSerializer());
+        converter = new GrpcMetaDataConverter(serializer);
+        values = new HashMap<>();
+        values.put("text", "value");
+        values.put("number", 42L);
+        values.put("double", 4.2);
+        values.put("boolean", true);
+        values.put("object", instant);
+        Map<String, MetaDataValue> source = new HashMap<>();
+        values.forEach((key, value) -> source.put(key, converter.convertToMetaDataValue(value)));
+        testSubject = converter.convert(source);
+    }
+
+    @Test
+    public void testSerializedValuesDeserializedOnceOnFirstAccess() {
+        assertTrue(testSubject instanceof GrpcMetaDataView);
+        assertEquals("value", testSubject.get("text"));
+        assertEquals(42L, testSubject.get("number"));
+        verify(serializer, never()).deserialize(any(SerializedObject.class));
+
+        assertEquals(instant, testSubject.get("object"));
+        assertSame(testSubject.get("object"), testSubject.get("object"));
+        verify(serializer, times(1)).deserialize(any(SerializedObject.class));
+    }
+
+    @Test
+    public void testEqualToMetaDataWithSameEntries() {
+        MetaData copy = MetaData.from(values);
+
+        assertEquals(copy, testSubject);
+        assertEquals(testSubject, copy);
+        assertEquals(copy.hashCode(), testSubject.hashCode());
+        assertEquals(values.size(), testSubject.size());
+        assertEquals(values.keySet(), testSubject.keySet());
+        assertEquals(copy.entrySet(), testSubject.entrySet());
+        assertFalse(testSubject.equals(MetaData.from(singletonMap("text", "value"))));
+    }
+
+    @Test
+    public void testDerivedMetaDataIsRegularMetaData() {
+        MetaData merged = testSubject.mergedWith(singletonMap("extra", "entry"));
+
+        assertEquals(MetaData.class, merged.getClass());
+        assertEquals(values.size() + 1, merged.size());
+        assertEquals(MetaData.class, testSubject.and("extra", "entry").getClass());
+        assertEquals(MetaData.from(singletonMap("text", "value")), testSubject.subset("text", "unknown"));
+        assertEquals(values.size() - 1, testSubject.withoutKeys(singletonMap("text", null).keySet()).size());
+        assertSame(testSubject, testSubject.andIfNotPresent("text", () -> "other"));
+    }
+
+    @Test
+    public void testSerializedAsRegularMetaData() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(testSubject);
+        }
+        Object deserialized = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+        assertEquals(MetaData.class, deserialized.getClass());
+        assertEquals(testSubject, deserialized);
+
+        Object fromXml = serializer.deserialize(serializer.serialize(testSubject, String.class));
+        assertEquals(MetaData.class, fromXml.getClass());
+        assertEquals(testSubject, fromXml);
+    }
+
+    @Test
+    public void testOutboundConversionReusesReceivedValues() {
+        Map<String, MetaDataValue> source = ((GrpcMetaDataView) testSubject).getSource();
+
+        assertSame(source, converter.convertToMetaDataValues(testSubject));
+        assertSame(converter.convertToMetaDataValue("trace-id"), converter.convertToMetaDataValue("trace-id"));
+        assertEquals(source, converter.convertToMetaDataValues(MetaData.from(values)));
+    }
+
+    @Test
+    public void testOutboundConversionReserializesValuesOfOtherSerializer() {
+        Map<String, MetaDataValue> source = ((GrpcMetaDataView) testSubject).getSource();
+        XStreamSerializer otherSerializer = spy(new XStreamSerializer());
+        GrpcMetaDataConverter otherConverter = new GrpcMetaDataConverter(otherSerializer);
+
+        Map<String, MetaDataValue> converted = otherConverter.convertToMetaDataValues(testSubject);
+
+        assertNotSame(source, converted);
+        assertSame(source.get("text"), converted.get("text"));
+        verify(otherSerializer).serialize(instant, byte[].class);
+        assertEquals(testSubject, otherConverter.convert(converted));
+    }
+}
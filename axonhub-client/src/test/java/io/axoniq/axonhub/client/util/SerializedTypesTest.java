@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2018. AxonIQ
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.axoniq.axonhub.client.util;
+
+import org.axonframework.serialization.SerializedType;
+import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.SimpleSerializedType;
+import org.junit.After;
+import org.junit.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class SerializedTypesTest {
+
+    private final SerializedType type = new SimpleSerializedType(SerializedTypesTest.class.getName(), null);
+
+    @After
+    public void tearDown() {
+        SerializedTypes.clear();
+    }
+
+    @Test
+    public void testResolvedClassIsCachedPerSerializer() {
+        Serializer serializer = mock(Serializer.class);
+        doReturn(SerializedTypesTest.class).when(serializer).classForType(any());
+
+        assertSame(SerializedTypesTest.class, SerializedTypes.classForType(type, serializer));
+        assertSame(SerializedTypesTest.class, SerializedTypes.classForType(type, serializer));
+
+        verify(serializer, times(1)).classForType(any());
+    }
+
+    @Test
+    public void testSerializersResolvingThroughOtherClassLoaderGetTheirOwnClass() throws Exception {
+        URL classes = SerializedTypesTest.class.getProtectionDomain().getCodeSource().getLocation();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{classes}, null)) {
+            Class<?> otherClass = classLoader.loadClass(SerializedTypesTest.class.getName());
+            assertNotSame(SerializedTypesTest.class, otherClass);
+            Serializer serializer = mock(Serializer.class);
+            doReturn(SerializedTypesTest.class).when(serializer).classForType(any());
+            Serializer otherSerializer = mock(Serializer.class);
+            doReturn(otherClass).when(otherSerializer).classForType(any());
+
+            assertSame(SerializedTypesTest.class, SerializedTypes.classForType(type, serializer));
+            assertSame(otherClass, SerializedTypes.classForType(type, otherSerializer));
+        }
+    }
+}